@@ -17,24 +17,22 @@ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
 */
 package com.github.kkieffer.accessorygauges;
 
+import com.github.kkieffer.jcirculargauges.RenderingProfile;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Insets;
-import java.awt.RenderingHints;
-import javax.swing.JComponent;
 
 
 /**
- * A JSegmentGauge shows bars which may be colored, and optionally labelled, to show a level. The gauge is either horizontal or vertical.  Indicies start
- * start on the left for horizontal and bottom for vertical
+ * Paints bars which may be colored, and optionally labelled, to show a level, on any Graphics2D at a size given for each paint.  The gauge is
+ * either horizontal or vertical.  Indicies start on the left for horizontal and bottom for vertical.  JSegmentGauge wraps a renderer in a
+ * Swing component.
  * 
  * @author kkieffer
  */
-public class JSegmentGauge extends JComponent {
+public class SegmentGaugeRenderer {
 
     private final Color labelColor;
     private final Color[] segmentColors;
@@ -43,6 +41,7 @@ public class JSegmentGauge extends JComponent {
     private final BasicStroke outlineStroke;  //stroke for outline of each segment
     private final boolean isHoriz; //true for horizontal meter, false for vertical
     private final int segmentGap; //pixels of gap between segments
+    private RenderingProfile renderingProfile = RenderingProfile.DEFAULT;
 
     /**
      * 
@@ -53,7 +52,7 @@ public class JSegmentGauge extends JComponent {
      * @param labelColor color of the segment label
      * @param gap the number of pixels between each segment
      */
-    public JSegmentGauge(boolean isHorizontal, int numSegments, BasicStroke stroke, Color strokeColor, Color labelColor, int gap) {
+    public SegmentGaugeRenderer(boolean isHorizontal, int numSegments, BasicStroke stroke, Color strokeColor, Color labelColor, int gap) {
         
      
         this.outlineStroke = stroke;
@@ -72,8 +71,10 @@ public class JSegmentGauge extends JComponent {
     }
     
     
-    
-    @Override
+    /**
+     * Get the size the segments are laid out for, not including any border around them
+     * @return the preferred size
+     */
     public Dimension getPreferredSize() {
         
         int strokeSize = outlineStroke == null ? 0 : (int)outlineStroke.getLineWidth();
@@ -82,15 +83,21 @@ public class JSegmentGauge extends JComponent {
         int longSide = (strokeSize + segmentColors.length) * 20 + (segmentColors.length-1) * segmentGap;
         int shortSide = 10 + strokeSize;
         
-        Insets insets = this.getInsets();
-        
         if (isHoriz)
-            return new Dimension(longSide, shortSide + insets.top + insets.bottom);
+            return new Dimension(longSide, shortSide);
         else
-            return new Dimension(shortSide, longSide + insets.top + insets.bottom);
+            return new Dimension(shortSide, longSide);
                 
     }
     
+    /**
+     * Get the number of segments in the meter
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return segmentColors.length;
+    }
+    
     /**
      * Change the color of the specified segment index
      * @param index the segment index, which must be within the valid range
@@ -98,13 +105,11 @@ public class JSegmentGauge extends JComponent {
      */
     public void changeSegmentColor(int index, Color c) {
         segmentColors[index] = c;  
-        repaint();
     }
     
     
     public void changeLabel(int index, String label) {
         segmentLabels[index] = label;
-        repaint();
     }
     
     /**
@@ -114,7 +119,6 @@ public class JSegmentGauge extends JComponent {
     public void setAllSegmentColors(Color c) {
         for (int i=0; i<segmentColors.length; i++)
             segmentColors[i] = c;  
-        repaint();
     }
     
     /**
@@ -123,7 +127,20 @@ public class JSegmentGauge extends JComponent {
     public void clearAllLabels() {
         for (int i=0; i<segmentLabels.length; i++)
             segmentLabels[i] = "";  
-        repaint();
+    }
+    
+    
+    /**
+     * Set the rendering hints.  The segments are all painted on every paint, so only the dynamic layer hints of the profile are used.
+     * The default is RenderingProfile.DEFAULT.
+     * @param profile the profile, null for the default
+     */
+    public void setRenderingProfile(RenderingProfile profile) {
+        renderingProfile = profile == null ? RenderingProfile.DEFAULT : profile;
+    }
+    
+    public RenderingProfile getRenderingProfile() {
+        return renderingProfile;
     }
     
     
@@ -133,23 +150,18 @@ public class JSegmentGauge extends JComponent {
     }
     
     
-    
-    
-    @Override
-    public void paint(Graphics g) {
-        
-        Graphics2D g2d = (Graphics2D)g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        
-        Dimension size = this.getSize();
-        Insets insets = this.getInsets();
+    /**
+     * Paint the segments, from the origin of the graphics
+     * @param g2d the graphics to paint on
+     * @param width the width available for the segments
+     * @param height the height available for the segments
+     */
+    public void paint(Graphics2D g2d, int width, int height) {
         
-        size.width -= insets.left + insets.right;
-        size.height -= insets.top + insets.bottom;
+        renderingProfile.applyDynamicHints(g2d);
         
-        int segmentWidth = isHoriz ? computeSize(size.width) : size.width;  //if horizontal, divide across width, otherwise use the full width
-        int segmentHeight = isHoriz ? size.height : computeSize(size.height); //if horizontal, use the full height, otherwise divide across height
+        int segmentWidth = isHoriz ? computeSize(width) : width;  //if horizontal, divide across width, otherwise use the full width
+        int segmentHeight = isHoriz ? height : computeSize(height); //if horizontal, use the full height, otherwise divide across height
 
         int step = isHoriz ? segmentWidth + segmentGap : segmentHeight + segmentGap; //the amount of space to move to the next segment (including the gap)
        
@@ -164,32 +176,32 @@ public class JSegmentGauge extends JComponent {
         if (isHoriz) 
             x = 0;     
         else
-            y = size.height - step; //start at the bottom less the stride
+            y = height - step; //start at the bottom less the stride
         
         //Paint each segment
         for (int i=0; i<segmentColors.length; i++) {
 
-            g.setColor(segmentColors[i]);
-            g.fillRect(x, y, segmentWidth, segmentHeight);
+            g2d.setColor(segmentColors[i]);
+            g2d.fillRect(x, y, segmentWidth, segmentHeight);
 
             //Paint the border, if not null
             if (outlineStroke != null && strokeColor != null) {
-                g.setColor(strokeColor);
+                g2d.setColor(strokeColor);
                 g2d.setStroke(outlineStroke);
-                g.drawRect(x, y, segmentWidth, segmentHeight);
+                g2d.drawRect(x, y, segmentWidth, segmentHeight);
             }
             
             
             String label = segmentLabels[i];
             if (!label.isEmpty()) {
-                g.setColor(labelColor);
+                g2d.setColor(labelColor);
 
                 int fontWidth = g2d.getFontMetrics().stringWidth(label);
                 int fontHeight = g2d.getFontMetrics().getHeight();
 
                 int cx = x + segmentWidth/2;
                 int cy = y + segmentHeight/2;
-                g.drawString(label, cx - fontWidth/2, cy + fontHeight/2);
+                g2d.drawString(label, cx - fontWidth/2, cy + fontHeight/2);
             }
             
             if (isHoriz) 
@@ -202,7 +214,4 @@ public class JSegmentGauge extends JComponent {
         
     }
     
-   
-
-    
 }
@@ -0,0 +1,469 @@
+/*
+Copyright (C) 2018 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.BasicStroke;
+import static java.awt.BasicStroke.CAP_SQUARE;
+import static java.awt.BasicStroke.JOIN_MITER;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Paints an artifical horizon gauge, also known as an attitude gauge / gyro horizon.  These are typically seen in aircraft.
+ * They display land with a horizon and sky, visually depicting the vehicle's pitch and roll.  The horizon moves up and down
+ * to indicate pitch and rotates to indicate roll.
+ * 
+ * This gauge uses the actual angle to represent roll, for instance 30 degrees rotation on the dial is 30 degrees roll.  The
+ * pitch sensitivity can be adjusted.  The sensitivity is a multiplier against the pitch to translation value, where 90 degrees
+ * pitch up is the top of the gauge and -90 degrees is the bottom of the gauge.  The default sensitivity is 1.0.  As an example,
+ * if the specified pitch is 45 degrees up, then the horizon will be shown below the center of the gauge, at a distance half that
+ * of the radius of the gauge. For a vehicle going straight up (+90), only sky would be shown.  Since these angles are not 
+ * common, the gauge sensitivity can be increased.  For instance a value of 1.5 will have 45 degrees pitch up 3/4 of the way along
+ * the gauge radius, thus exaggerating the effect of pitch on the horizon. Conversely, a negative value can be used to reduce sensitivity.
+ * 
+ * The gauge scales with preferred size, although too small of a size crowds the text.  Minor ticks are drawn for roll if the gauge
+ * is large enough.  Thumbnails, the lowest level of detail, draw only the horizon, zero pitch line, and roll arrow and ticks.
+ * 
+ * The bezel, ground, and sky colors can be customized.  The default is silver, brown, and blue.
+ * 
+ *  Note that once the artificial horizon falls outside the gauge, the perspective lines also disappear.  The entire gauge
+ * fills with either sky or ground, and pitch cannot be determined.  Roll is still measured.
+ * 
+ * @author kkieffer
+ */
+public class ArtificialHorizonRenderer extends GaugeRenderer {
+    
+    private static final Color BROWN = new Color(160, 90, 70);  //default ground
+    private static final Color BLUE = new Color(175, 225, 255); //default sky
+    
+    private static final double DEFAULT_PITCH_SENSITIVITY = 1.0;  //default sensitivity
+    private static final String[] PARTS = {"sky", "ground", "ladder"};  //exported parts, see GaugeExport
+    private static final int SKY_PART = 0;
+    private static final int GROUND_PART = 1;
+    
+    private static final BasicStroke HORIZON_PERSPECTIVE_STROKE = new BasicStroke(1, CAP_SQUARE, JOIN_MITER, 10.0f, new float[]{5.0f}, 0.0f);
+    private static final BasicStroke GROUND_PERSPECTIVE_STROKE = new BasicStroke(2, CAP_SQUARE, JOIN_MITER, 10.0f, new float[]{8.0f}, 0.0f);
+    private static final BasicStroke MINOR_PITCH_STROKE = new BasicStroke(1);
+    private static final BasicStroke ZERO_PITCH_STROKE = new BasicStroke(4);
+    private static final BasicStroke THIN_STROKE = new BasicStroke(1);
+    private static final double[] GROUND_PERSPECTIVE_ANGLES = {-10, -20};  //angles of the ground perspective lines, each one longer than the last
+    private static final double[] GROUND_PERSPECTIVE_COS = new double[GROUND_PERSPECTIVE_ANGLES.length];
+    private static final double[] GROUND_PERSPECTIVE_SIN = new double[GROUND_PERSPECTIVE_ANGLES.length];
+    static {
+        for (int i=0; i<GROUND_PERSPECTIVE_ANGLES.length; i++) {
+            GROUND_PERSPECTIVE_COS[i] = Math.cos(Math.toRadians(GROUND_PERSPECTIVE_ANGLES[i]));
+            GROUND_PERSPECTIVE_SIN[i] = -Math.sin(Math.toRadians(GROUND_PERSPECTIVE_ANGLES[i]));
+        }
+    }
+    
+    
+    private double pitchSensitivity;
+    private double frameAngle;  //roll and translation for the attitude being painted
+    private double frameTranslateFactor;
+    private double framePitch;
+    private Color groundColor;
+    private Color skyColor;
+    private Color indicatorColor;
+    private Ellipse2D.Double dialClip;  //clip for the sky and ground fill
+    
+    //The pitch ladder doesn't move with pitch, only with roll, so it is cached as a transparent tape or a display list
+    private BufferedImage ladderTape;
+    private double ladderTapeScale;
+    private double ladderTapeHalfWidth;
+    private double ladderTapeHalfHeight;
+    private DisplayList ladderList;
+    private double ladderRadius;  //inside radius of the cached tape and display list
+    private boolean ladderThumbnail;
+
+    /**
+     * Create the artificial horizon renderer with default parameters
+     */
+    public ArtificialHorizonRenderer() {
+        this(DEFAULT_PITCH_SENSITIVITY);
+    }
+    
+    /**
+     * Create the artificial horizon renderer
+     * @param pitchSensitivity the pitch sensitivity, where 1.0 corresponds to 45 degrees pitch at half the radius of the gauge
+     */
+    public ArtificialHorizonRenderer(double pitchSensitivity) {
+        this.pitchSensitivity = pitchSensitivity;
+        hasStaticFace = false;  //sky and ground move with the attitude
+        setColors(null, null, null, null);
+    }
+    
+    
+    /**
+     * Customize the gauge colors
+     * @param indicatorColor colors of ticks and labels
+     * @param bezelColor the gauge color, null for default
+     * @param groundColor the ground color, null for default
+     * @param skyColor the sky color, null for default
+     */
+    public final void setColors(Color indicatorColor, Color bezelColor, Color groundColor, Color skyColor) {
+        this.indicatorColor = indicatorColor == null ? Color.BLACK : indicatorColor;
+        this.groundColor = groundColor == null ? BROWN : groundColor;
+        this.skyColor = skyColor == null ? BLUE : skyColor;
+        ladderTape = null;
+        ladderList = null;
+        super.setColors(bezelColor, null);
+    }
+    
+    /**
+     * Set the rendering hints.  Also discards the pitch ladder, which was rendered with the hints of the old profile.
+     * @param profile the profile, null for the default
+     */
+    @Override
+    public void setRenderingProfile(RenderingProfile profile) {
+        ladderTape = null;
+        ladderList = null;
+        super.setRenderingProfile(profile);
+    }
+   
+ 
+    /**
+     * Set the attitude to paint
+     * @param values the roll and pitch, which may be shared with an AttitudeModel
+     */
+    public void setValues(AttitudeValues values) {
+        frameAngle = values.rollRadians;
+        frameTranslateFactor = (-values.pitch / 90.0) * pitchSensitivity;
+        framePitch = values.pitch;
+    }
+    
+    /**
+     * Set the pitch and roll values to paint, in degrees
+     * @param roll positive value roll to right / starboard
+     * @param pitch positive value is pitch up
+     */
+    public void setAttitude(double roll, double pitch) {
+        setValues(new AttitudeValues(roll, pitch));
+    }
+    
+    
+    //The dial circle, rebuilt only when the radius changes
+    private Ellipse2D getDialClip(double radius) {
+        if (dialClip == null || dialClip.getWidth() != radius * 2)
+            dialClip = new Ellipse2D.Double(-radius, -radius, radius * 2, radius * 2);
+        return dialClip;
+    }
+    
+    @Override
+    protected void paintDynamic(Graphics2D g2d) {
+             
+        //The sky and ground are clipped to the dial, so the fill can extend to the middle of the gauge ring where the bezel hides
+        //the edge of the clip
+        double insideRadius = outsideRadius * 0.99;  //inside radius to use for drawing
+        double translate = insideRadius * frameTranslateFactor;  //how far to translate the horizon vertically, negative is down, positive is up
+        boolean thumbnail = getLevelOfDetail() == LevelOfDetail.THUMBNAIL;  //no perspective lines, and only the zero pitch line
+        
+        //Fill the dial with sky, then rotate through the roll angle and fill the ground as the half plane below the horizon
+        Graphics2D fill = (Graphics2D)g2d.create();
+        fill.clip(getDialClip(insideRadius));
+        fill.setColor(skyColor);
+        fill.fill(dialClip);
+        
+        double groundHeight = insideRadius + translate;  //from the horizon to the bottom of the dial
+        if (groundHeight > 0) {
+            fill.rotate(frameAngle);
+            paintGround(fill, insideRadius, translate, groundHeight);
+        }
+        fill.dispose();
+        
+        g2d.rotate(frameAngle);
+
+        if (Math.abs(translate) <= insideRadius) {
+
+            //Value d is half the length of the horizon.  If pitch is zero, then d == radius, otherwise d is smaller than radius
+            double d = Math.sqrt(Math.pow(insideRadius, 2) -  Math.pow(translate, 2));
+
+            int t = (int)Math.round(translate);
+            int l = (int)Math.round(d);
+
+            g2d.setColor(indicatorColor);
+            
+            if (!thumbnail) {
+
+                //Draw dashed perspective lines from the horizon to the origin
+                g2d.setStroke(HORIZON_PERSPECTIVE_STROKE);
+                g2d.drawLine(0, 0, (int)(l*0.8), -t);
+                g2d.drawLine(0, 0, (int)(-l*0.8), -t);
+
+
+                //Draw dashed perspective lines on the ground
+                g2d.translate(0, -translate);
+                paintGroundPerspective(g2d, d);
+                g2d.setStroke(THIN_STROKE);
+                g2d.translate(0, translate);
+            
+            }
+
+        }
+
+         
+        //Draw the pitch lines and labels
+        switch (getStaticLayerCache()) {
+            case IMAGE:
+                paintLadderTape(g2d, insideRadius, thumbnail);
+                break;
+            case DISPLAY_LIST:
+                paintLadderList(g2d, insideRadius, thumbnail);
+                break;
+            default:
+                paintPitchLadder(g2d, insideRadius, thumbnail);
+                break;
+        }
+        paintRollArrow(g2d);
+            
+    }
+    
+    //Fill the ground below the horizon, which is at the origin less the translation
+    private void paintGround(Graphics2D g2d, double insideRadius, double translate, double height) {
+        g2d.setColor(groundColor);
+        g2d.fill(new Rectangle2D.Double(-insideRadius, -translate, insideRadius * 2, height));
+    }
+    
+    //Draw the dashed ground perspective lines from the origin, for a horizon half length d
+    private void paintGroundPerspective(Graphics2D g2d, double d) {
+        g2d.setStroke(GROUND_PERSPECTIVE_STROKE);
+        g2d.setColor(groundColor.darker());
+        for (int i=0; i<GROUND_PERSPECTIVE_ANGLES.length; i++) {
+
+            int px = (int)(d/4 * GROUND_PERSPECTIVE_COS[i] * (i+1));
+            int py = (int)(d/4 * GROUND_PERSPECTIVE_SIN[i] * (i+1));
+
+            g2d.drawLine(0, 0, px, py);
+            g2d.drawLine(0, 0, -px, py);
+
+        }
+    }
+    
+    private void paintRollArrow(Graphics2D g2d) {
+        
+        g2d.setColor(indicatorColor);
+        g2d.setStroke(THIN_STROKE);
+        
+        int rollIndicatorRadius = (int)(-realInsideRadius + realInsideRadius/10.0);
+        int tickLength = (int)(realInsideRadius + rollIndicatorRadius);
+        
+        //Draw the roll indicator arrow
+        g2d.drawLine(0, 0, 0, rollIndicatorRadius);
+        g2d.fillPolygon(new int[]{0, -tickLength/4, tickLength/4},
+                   new int[]{rollIndicatorRadius, rollIndicatorRadius+tickLength/2, rollIndicatorRadius+tickLength/2},
+                   3);
+    }
+    
+    
+    @Override
+    protected String[] getPartNames() {
+        return PARTS;
+    }
+    
+    //The ground extends twice the radius below the horizon, enough to fill the dial at any offset that shows the horizon.  The
+    //perspective lines from the center to the horizon change length with pitch, so they aren't exported.
+    @Override
+    protected void paintPart(Graphics2D g2d, int part) {
+        
+        double insideRadius = outsideRadius * 0.99;
+        boolean thumbnail = getLevelOfDetail() == LevelOfDetail.THUMBNAIL;
+        
+        switch (part) {
+            case SKY_PART:
+                g2d.setColor(skyColor);
+                g2d.fill(getDialClip(insideRadius));
+                break;
+            case GROUND_PART:
+                paintGround(g2d, insideRadius, 0, insideRadius * 2);
+                if (!thumbnail)
+                    paintGroundPerspective(g2d, insideRadius);
+                break;
+            default:
+                paintPitchLadder(g2d, insideRadius, thumbnail);
+                paintRollArrow(g2d);
+                break;
+        }
+    }
+    
+    @Override
+    protected Shape getPartClip(int part) {
+        return part == GROUND_PART ? getDialClip(outsideRadius * 0.99) : null;
+    }
+    
+    @Override
+    protected double getPartRotation(int part) {
+        return part == SKY_PART ? 0 : frameAngle;
+    }
+    
+    @Override
+    protected double getPartOffset(int part) {
+        return part == GROUND_PART ? -outsideRadius * 0.99 * frameTranslateFactor : 0;
+    }
+    
+    @Override
+    protected int getStateValues(double[] values) {
+        values[0] = Math.toDegrees(frameAngle);
+        values[1] = framePitch;
+        return 2;
+    }
+    
+    
+    //Draw the pitch lines and labels, from -30 to 30 degrees
+    private void paintPitchLadder(Graphics2D g2d, double insideRadius, boolean thumbnail) {
+        
+        g2d.setColor(indicatorColor);
+        int y;
+        for (int i=-30; i<=30; i+= 5) {
+            if (thumbnail && i != 0)  //only the zero line
+                continue;
+            if (i==0)
+                g2d.setStroke(ZERO_PITCH_STROKE);  //thicker zero line
+            else
+                g2d.setStroke(MINOR_PITCH_STROKE);
+            y = (int)Math.round(i * insideRadius * pitchSensitivity / 90.0);
+            
+            int width = (int)(insideRadius/4);
+            if ((i % 10) != 0) //smaller minor ticks
+                width /= 2;
+            else if (!thumbnail)
+                g2d.drawString(String.valueOf(i), 3, y-2);  //label for major ticks
+
+            g2d.drawLine(width, y, -width, y);
+            
+        }
+    }
+    
+    private boolean isLadderValid(double insideRadius, boolean thumbnail) {
+        return ladderRadius == insideRadius && ladderThumbnail == thumbnail;
+    }
+    
+    //Draw the pitch ladder from a tape rendered at the device resolution, so only the image is rotated each frame
+    private void paintLadderTape(Graphics2D g2d, double insideRadius, boolean thumbnail) {
+        
+        AffineTransform transform = g2d.getTransform();
+        double scale = Math.hypot(transform.getScaleX(), transform.getShearY());  //device pixels per unit, with any rotation
+        
+        if (ladderTape == null || ladderTapeScale != scale || !isLadderValid(insideRadius, thumbnail)) {
+            
+            //Extends to the widest label to the right and the zero line stroke and labels above and below
+            int fontSize = g2d.getFont().getSize();
+            ladderTapeHalfWidth = Math.max(insideRadius/4, 3 + g2d.getFontMetrics().stringWidth("-30")) + 2;
+            ladderTapeHalfHeight = Math.abs(30 * insideRadius * pitchSensitivity / 90.0) + fontSize + 4;
+            
+            int width = (int)Math.ceil(ladderTapeHalfWidth * 2 * scale);
+            int height = (int)Math.ceil(ladderTapeHalfHeight * 2 * scale);
+            ladderTape = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB_PRE);
+            
+            Graphics2D tg = ladderTape.createGraphics();
+            tg.setRenderingHints(g2d.getRenderingHints());
+            tg.setFont(g2d.getFont());
+            tg.scale(scale, scale);
+            tg.translate(ladderTapeHalfWidth, ladderTapeHalfHeight);
+            paintPitchLadder(tg, insideRadius, thumbnail);
+            tg.dispose();
+            
+            ladderTapeScale = scale;
+            ladderRadius = insideRadius;
+            ladderThumbnail = thumbnail;
+            ladderList = null;  //both share the radius, so only keep one
+        }
+        
+        Graphics2D tg = (Graphics2D)g2d.create();
+        try {
+            tg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            tg.translate(-ladderTapeHalfWidth, -ladderTapeHalfHeight);
+            tg.scale(1/scale, 1/scale);
+            tg.drawImage(ladderTape, 0, 0, null);
+        } finally {
+            tg.dispose();
+        }
+    }
+    
+    //Draw the pitch ladder from a display list, which keeps the lines and text sharp at any roll angle
+    private void paintLadderList(Graphics2D g2d, final double insideRadius, final boolean thumbnail) {
+        
+        if (ladderList == null || !isLadderValid(insideRadius, thumbnail)) {
+            final Font font = g2d.getFont();
+            ladderList = DisplayList.record(new DisplayList.Painter() {
+                @Override
+                public void paint(Graphics2D rg) {
+                    rg.setFont(font);
+                    paintPitchLadder(rg, insideRadius, thumbnail);
+                }
+            });
+            ladderRadius = insideRadius;
+            ladderThumbnail = thumbnail;
+            ladderTape = null;  //both share the radius, so only keep one
+        }
+        
+        Graphics2D lg = (Graphics2D)g2d.create();
+        try {
+            ladderList.replay(lg);
+        } finally {
+            lg.dispose();
+        }
+    }
+    
+    
+    @Override
+    protected void paintOverlay(Graphics2D g2d) {
+        
+        g2d.setColor(indicatorColor);
+        
+        int rollIndicatorRadius = (int)(-realInsideRadius + realInsideRadius/10.0);
+        int tickLength = (int)(realInsideRadius + rollIndicatorRadius);
+        LevelOfDetail detail = getLevelOfDetail();
+        
+        //Draw the roll indicators and labels
+        g2d.rotate(Math.toRadians(-60));
+        for (int i=-60; i<=60; i+=5) {
+            
+            if (detail == LevelOfDetail.THUMBNAIL) {  //only the 30 degree ticks, no labels
+                if ((i % 30) == 0)
+                    g2d.drawLine(0, rollIndicatorRadius, 0, (int)-realInsideRadius);
+            }
+            else if ((i % 10) == 0) {  //major tick
+                g2d.drawString(String.valueOf(i), 2, rollIndicatorRadius);
+                g2d.drawLine(0, rollIndicatorRadius, 0, (int)-realInsideRadius);         
+            }
+            else if (detail == LevelOfDetail.FULL) //draw minor tick, if large enough
+                g2d.drawLine(0, rollIndicatorRadius - tickLength/2, 0, (int)-realInsideRadius);         
+           
+            g2d.rotate(Math.toRadians(5.0));
+        }
+
+        //Restore to origin
+        g2d.setTransform(centerGaugeTransform);
+                
+        //Now paint the bezel
+        paintBezel(g2d);
+        
+    }
+    
+    
+    
+    
+    
+}
@@ -0,0 +1,51 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+package com.github.kkieffer.jcirculargauges;
+
+/**
+ * The state painted by an ArtificialHorizonRenderer: a roll and pitch, with the values derived from them.  Immutable, so an
+ * AttitudeModel can share one instance with all its views.
+ *
+ * @author kkieffer
+ */
+public final class AttitudeValues {
+
+    final double roll;  //degrees
+    final double pitch;
+    final double rollRadians;
+
+    /**
+     * Create the state
+     * @param roll the roll in degrees, positive value roll to right / starboard
+     * @param pitch the pitch in degrees, positive value is pitch up
+     */
+    public AttitudeValues(double roll, double pitch) {
+        this.roll = roll;
+        this.pitch = pitch;
+        rollRadians = Math.toRadians(roll);
+    }
+
+    public double getRoll() {
+        return roll;
+    }
+
+    public double getPitch() {
+        return pitch;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+
+/**
+ * The recent bearings of a JCompass, drawn as a fading trail around the card.  Bearings and their times are kept in fixed size
+ * primitive ring buffers, so the memory of a trail never grows however long it runs.
+ *
+ * The ring is divided into buckets, each with a path through its bearings on a circle of unit radius.  A new bearing extends the
+ * path of the newest bucket, and when that bucket is full the oldest is reset and reused, so each bearing costs a constant amount of
+ * work and nothing is rebuilt as the trail ages.  Older buckets are drawn on smaller circles and more transparent, by transform and
+ * color alone.  Because the oldest bucket is dropped whole, the trail shows between length less one bucket and length bearings.
+ *
+ * Not thread safe, used on the event dispatch thread.
+ *
+ * @author kkieffer
+ */
+class BearingTrail {
+
+    static final int BUCKETS = 8;
+    private static final double BREAK = Math.toRadians(45);  //larger jumps between bearings aren't joined
+    private static final float STROKE_WIDTH = 2.0f;
+
+    private final int bucketSize;
+    private final double[] bearings;  //radians
+    private final long[] times;  //millis
+    private final Path2D.Float[] paths = new Path2D.Float[BUCKETS];
+    private long count;  //bearings added since cleared
+
+    private final Color[] colors = new Color[BUCKETS];  //newest to oldest
+    private final BasicStroke[] strokes = new BasicStroke[BUCKETS];
+    private double strokeRadius, strokeSpacing;  //the radius and spacing the strokes were made for
+
+    /**
+     * Create a trail
+     * @param length the number of bearings to show, rounded up to a multiple of the bucket count
+     * @param color the color of the newest part of the trail
+     */
+    BearingTrail(int length, Color color) {
+        bucketSize = Math.max(1, (length + BUCKETS - 1) / BUCKETS);
+        bearings = new double[bucketSize * BUCKETS];
+        times = new long[bucketSize * BUCKETS];
+        for (int i=0; i<BUCKETS; i++)
+            paths[i] = new Path2D.Float(Path2D.WIND_NON_ZERO, 2 * bucketSize + 2);
+        setColor(color);
+    }
+
+    final void setColor(Color color) {
+        for (int i=0; i<BUCKETS; i++)
+            colors[i] = new Color(color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha() * (BUCKETS - i) / BUCKETS);
+    }
+
+
+    void clear() {
+        count = 0;
+        for (Path2D.Float p : paths)
+            p.reset();
+    }
+
+    /**
+     * Add a bearing
+     * @param radians the bearing
+     * @param time the time of the bearing, in millis
+     */
+    void add(double radians, long time) {
+
+        int index = (int)(count % bearings.length);
+        int bucket = index / bucketSize;
+        Path2D.Float path = paths[bucket];
+        float x = (float)Math.sin(radians);
+        float y = (float)-Math.cos(radians);
+
+        boolean joined = false;
+        if (count > 0) {
+            double previous = bearings[(index + bearings.length - 1) % bearings.length];
+            double jump = Math.abs(radians - previous);
+            joined = Math.min(jump, 2*Math.PI - jump) <= BREAK;
+        }
+
+        if (index % bucketSize == 0) {  //start the bucket over, from the end of the previous one
+            path.reset();
+            if (joined) {
+                double previous = bearings[(index + bearings.length - 1) % bearings.length];
+                path.moveTo((float)Math.sin(previous), (float)-Math.cos(previous));
+            }
+            else
+                path.moveTo(x, y);
+        }
+        else if (!joined)
+            path.moveTo(x, y);
+
+        path.lineTo(x, y);
+        bearings[index] = radians;
+        times[index] = time;
+        count++;
+    }
+
+    /**
+     * Draw the trail, from the oldest bucket to the newest
+     * @param g2d graphics centered on the card, in its rotation
+     * @param radius the radius of the newest bucket
+     * @param spacing how much smaller the radius of each older bucket is
+     * @param now the current time, in millis
+     * @param maxAge buckets whose newest bearing is older than this aren't drawn, or 0 to draw all
+     */
+    void paint(Graphics2D g2d, double radius, double spacing, long now, long maxAge) {
+
+        if (count == 0)
+            return;
+
+        if (radius != strokeRadius || spacing != strokeSpacing) {  //strokes are scaled with the unit circle paths
+            for (int age=0; age<BUCKETS; age++)
+                strokes[age] = new BasicStroke((float)(STROKE_WIDTH / (radius - age * spacing)), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+            strokeRadius = radius;
+            strokeSpacing = spacing;
+        }
+
+        int latest = (int)((count - 1) % bearings.length);
+        int newest = latest / bucketSize;
+        int used = (int)Math.min(BUCKETS, (count + bucketSize - 1) / bucketSize);
+        AffineTransform origin = g2d.getTransform();
+
+        for (int age=used-1; age>=0; age--) {
+            int bucket = (newest - age + BUCKETS) % BUCKETS;
+            int last = age == 0 ? latest : (bucket + 1) * bucketSize - 1;  //the newest bearing in the bucket
+            if (maxAge > 0 && now - times[last] > maxAge)
+                continue;
+
+            double scale = radius - age * spacing;
+            g2d.scale(scale, scale);
+            g2d.setColor(colors[age]);
+            g2d.setStroke(strokes[age]);
+            g2d.draw(paths[bucket]);
+            g2d.setTransform(origin);
+        }
+    }
+
+}
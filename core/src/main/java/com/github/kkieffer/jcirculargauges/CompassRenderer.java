@@ -0,0 +1,603 @@
+/*
+Copyright (C) 2018 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * Paints a typical compass with numeric readout, from 0 to 360 degrees, with 0 = N, 90 = E, etc.  Major ticks with degree labels are drawn at 10 degree increments,
+ * the N,E,W,S indicators are drawn, and minor ticks are drawn every 5 degrees if the compass is sized large enough.  Fonts scale with gauge size.
+ * Smaller gauges draw fewer labels, depending on the level of detail, and thumbnails draw only the cardinal ticks and needles.
+ * 
+ * The primary needle is to show bearing of the vehicle, an optional secondary needle shows the desired course.
+ * 
+ * An optional trail shows the recent bearings as a fading arc around the card, newest outermost.
+ * 
+ * The compass can be configured to be north up, where N is always at the top and the primary needle moves.  If not set for north up, the compass rotates
+ * while the bearing needle always points up.  Regardless of the setting, the course needle always points to the set course.
+ * 
+ * When north up, the card is cached with the face, and only the needles and readout change with the bearing: getChangedBounds
+ * gives the area a view needs to repaint between two bearings.
+
+ * @author kkieffer
+ */
+public class CompassRenderer extends GaugeRenderer {
+    
+    private static final String[] PARTS = {"card", "bearing", "course"};  //exported parts, see GaugeExport
+    private static final int CARD_PART = 0;
+    private static final int BEARING_PART = 1;
+   
+    private boolean northUp;
+    private CompassValues values = new CompassValues(0.0, 0.0);
+    private double frameBearing;  //bearing and course, in radians, of the values
+    private double frameCourse;
+    private boolean showCourseNeedle = true;
+    private Color indicatorColor;
+    private Color courseNeedleColor;
+    private BearingTrail trail;
+    private int trailLength;
+    private long trailMaxAge;
+    private CompassValues trailValues;  //the last values added to the trail
+    protected boolean thickerCardinalLine = true;
+    protected double tickScale = 0.1;  //fraction of the inside radius for the length of the tick
+    
+    private final Polygon[] arrowheads = new Polygon[2];  //of the bearing and course needles, which only change with the size
+    private int nextArrowhead;
+    
+    //The readout fonts derived from the gauge font, and the widths of the degrees, measured once per font and render context
+    private Font readoutBaseFont;
+    private Font readoutFont;
+    private Font tenthsFont;
+    private FontRenderContext readoutContext;
+    private int tenthsOffset;
+    private final int[] degreeWidths = new int[361];  //the last for "?"
+    
+    private static final String[] DEGREE_LABELS = new String[361];
+    private static final String[] DEGREE_SIGN_LABELS = new String[361];  //the degree labels followed by the degree sign
+    private static final String[] TENTHS_LABELS = new String[10];
+    static {
+        for (int i=0; i<360; i++)
+            DEGREE_LABELS[i] = String.valueOf(i);
+        DEGREE_LABELS[360] = "?";
+        for (int i=0; i<=360; i++)
+            DEGREE_SIGN_LABELS[i] = DEGREE_LABELS[i] + "°";
+        for (int i=0; i<10; i++)
+            TENTHS_LABELS[i] = "." + i;
+    }
+    
+    private static final FontRenderContext READOUT_CONTEXT = new FontRenderContext(null, true, false);  //for the readout bounds
+    
+    /**
+     * Create the compass renderer
+     * @param northUp true to always have north up, otherwise, gauge rotates and bearing is always up
+     */
+    public CompassRenderer(boolean northUp) {
+        this.northUp = northUp;
+        indicatorColor = Color.BLACK;
+        courseNeedleColor = Color.RED;
+        dialCenterDivider = 20;
+        setValues(values);
+    }
+
+    
+    public boolean isNorthUp() {
+        return northUp;
+    }
+    
+    
+    public void setNorthUp(boolean northUp) {
+        this.northUp = northUp;
+        invalidateStaticLayers();
+    }
+    
+    /**
+     * Set the colors of the gauge
+     * @param indicator the needle and labels, marks.  If null, color is black
+     * @param courseNeedle color of the course needle. If null, color is red
+     * @param bezelColor the gauge color, null for default
+     * @param background the gauge background color
+     */
+     public void setColors(Color indicator, Color courseNeedle, Color bezelColor, Color background) {
+        indicatorColor = indicator == null ? Color.BLACK : indicator;
+        courseNeedleColor = courseNeedle == null ? Color.RED : courseNeedle;
+        super.setColors(bezelColor, background);
+    }
+    
+    /**
+     * Set the bearing and course to paint.  If a trail is shown, the bearing is added to it unless the values are the ones last set.
+     * @param values the bearing and course, which may be shared with a CompassModel
+     */
+    public void setValues(CompassValues values) {
+        this.values = values;
+        frameBearing = values.bearingRadians;
+        frameCourse = values.courseRadians;
+        
+        if (trail != null && values != trailValues) {
+            if (Double.isFinite(values.bearingRadians))
+                trail.add(values.bearingRadians, System.currentTimeMillis());
+            trailValues = values;
+        }
+    }
+    
+    /**
+     * Set the bearing and course to paint, in degrees
+     * @param b the bearing, from 0-360.  Values outside this range will be modulus 360.
+     * @param c the course, from 0-360.  Values outside this range will be modulus 360.
+     */
+    public void setBearingAndCourse(double b, double c) {
+        setValues(new CompassValues(b, c));
+    }
+    
+    public double getBearing() {
+        return values.bearing;
+    }
+    
+    public double getCourse() {
+        return values.course;
+    }
+    
+    
+    /**
+     * Show or hide the course needle.  The default is to show.
+     * @param show 
+     */
+    public void showCourseNeedle(boolean show) {
+        this.showCourseNeedle = show;
+    }
+    
+
+    /**
+     * Show a trail of the recent bearings, or remove it.  Each new bearing set is added, so the trail covers the last length
+     * values set.  Its memory is fixed by the length.  Not drawn in thumbnails.
+     * @param length the number of bearings in the trail, or 0 to remove the trail
+     * @param maxAgeMillis parts of the trail older than this fade out at the next paint, or 0 to keep them
+     * @param color color of the trail, if null, the indicator color
+     */
+    public void setBearingTrail(int length, long maxAgeMillis, Color color) {
+        Color c = color == null ? indicatorColor : color;
+        if (length <= 0)
+            trail = null;
+        else if (trail == null || trailLength != length) {
+            trail = new BearingTrail(length, c);
+            trailValues = null;
+        }
+        else
+            trail.setColor(c);  //keep the bearings
+        trailLength = length;
+        trailMaxAge = maxAgeMillis;
+    }
+    
+    /**
+     * Clear the bearings of the trail, if shown
+     */
+    public void clearBearingTrail() {
+        if (trail != null)
+            trail.clear();
+    }
+    
+    protected void drawBearingNeedle(Graphics2D g2d, int radius, int tickLen) {
+       
+        if (!Double.isFinite(frameBearing))
+            return;
+        
+        if (!northUp)
+            g2d.rotate(frameBearing);
+
+        drawNeedle(g2d, radius, tickLen);
+        
+        if (!northUp)
+            g2d.rotate(-frameBearing);
+
+    }
+    
+    
+    //Draw a needle pointing up
+    private void drawNeedle(Graphics2D g2d, int radius, int tickLen) {
+       
+        g2d.drawLine(0, 0, 0, radius+tickLen/2);
+        g2d.fillPolygon(getArrowhead(radius, tickLen));
+ 
+    }
+    
+    //The arrowhead of a needle pointing up, from the cache if the size hasn't changed
+    private Polygon getArrowhead(int radius, int tickLen) {
+        
+        for (Polygon p : arrowheads)
+            if (p != null && p.ypoints[0] == radius && p.ypoints[1] == radius+tickLen && p.xpoints[2] == tickLen/2)
+                return p;
+        
+        Polygon p = new Polygon(new int[]{0, -tickLen/2, tickLen/2},
+                   new int[]{radius, radius+tickLen, radius+tickLen},
+                   3);
+        arrowheads[nextArrowhead] = p;
+        nextArrowhead = (nextArrowhead + 1) % arrowheads.length;
+        return p;
+    }
+   
+    protected void paintValue(Graphics2D g2d) {
+        g2d.setColor(indicatorColor);
+        Font origFont = g2d.getFont();
+        
+        if (!origFont.equals(readoutBaseFont)) {
+            readoutBaseFont = origFont;
+            readoutFont = origFont.deriveFont((float)origFont.getSize()*4);
+            tenthsFont = origFont.deriveFont((float)origFont.getSize()*1.5f);
+            readoutContext = null;
+        }
+        
+        FontRenderContext context = g2d.getFontRenderContext();
+        if (!context.equals(readoutContext)) {
+            readoutContext = context;
+            Arrays.fill(degreeWidths, -1);
+            tenthsOffset = g2d.getFontMetrics(tenthsFont).stringWidth(".0");
+        }
+        
+        int degrees = Double.isFinite(frameBearing) ? values.readoutDegrees : 360;
+        int fontWidth = degreeWidths[degrees];
+        if (fontWidth < 0)
+            fontWidth = degreeWidths[degrees] = g2d.getFontMetrics(readoutFont).stringWidth(DEGREE_LABELS[degrees]);
+
+        g2d.setFont(readoutFont);
+        g2d.translate((int)(realInsideRadius/3), (int)(realInsideRadius/3));
+        g2d.drawString(DEGREE_SIGN_LABELS[degrees], -fontWidth, 0);
+         
+        g2d.setFont(tenthsFont);
+        g2d.translate(tenthsOffset, 0);
+        g2d.drawString(TENTHS_LABELS[values.readoutTenths], 0, 0);
+
+    }
+    
+    
+    protected void drawCardinalLetter(Graphics2D g2d, String letter, int yOffset) {
+        Rectangle2D stringBounds = g2d.getFontMetrics().getStringBounds(letter, g2d);
+        g2d.drawString(letter, (int)-stringBounds.getCenterX(), yOffset + (int)stringBounds.getMaxY());
+    }
+    
+    //Radius where the ticks start, negative (up) from the center
+    private int getIndicatorRadius() {
+        return getIndicatorRadius(realInsideRadius);
+    }
+    
+    private int getIndicatorRadius(double insideRadius) {
+        return (int)(-insideRadius + insideRadius*tickScale);
+    }
+    
+    private int getTickLength(int indicatorRadius) {
+        return (int)(realInsideRadius + indicatorRadius);
+    }
+    
+    /**
+     * Get the area that changes between painting two bearings and courses on a gauge of a size.  When north up, this is the needles
+     * that moved and the readout, if it differs; otherwise the card rotates, so it is the whole gauge.  A trail also changes with each
+     * bearing, so it is the whole gauge when a trail is shown.
+     * @param from the values painted last, not null
+     * @param to the values to paint, not null
+     * @param width the width of the gauge
+     * @param height the height of the gauge
+     * @return the area in the coordinates of the gauge, which may be empty
+     */
+    public Rectangle getChangedBounds(CompassValues from, CompassValues to, int width, int height) {
+        
+        if (!northUp || trail != null)
+            return new Rectangle(0, 0, width, height);
+        
+        int radius = Math.min(width, height) / 2;
+        double insideRadius = getInsideRadius(radius);
+        int indicatorRadius = getIndicatorRadius(insideRadius);
+        int tickLength = (int)(insideRadius + indicatorRadius);
+        
+        boolean fromValid = Double.isFinite(from.bearingRadians);
+        boolean toValid = Double.isFinite(to.bearingRadians);
+        Rectangle2D area = new Rectangle2D.Double();
+        
+        if (fromValid != toValid || Double.compare(from.bearing, to.bearing) != 0) {
+            if (fromValid)
+                addNeedleBounds(area, from.bearingRadians, indicatorRadius, tickLength);
+            if (toValid)
+                addNeedleBounds(area, to.bearingRadians, indicatorRadius, tickLength);
+        }
+        
+        //The course needle is only shown with a bearing
+        if (showCourseNeedle && (fromValid != toValid || Double.compare(from.course, to.course) != 0)) {
+            if (fromValid)
+                addNeedleBounds(area, from.courseRadians, indicatorRadius*2/3, tickLength);
+            if (toValid)
+                addNeedleBounds(area, to.courseRadians, indicatorRadius*2/3, tickLength);
+        }
+        
+        if ((fromValid != toValid || from.readoutDegrees != to.readoutDegrees || from.readoutTenths != to.readoutTenths) && 
+                chooseLevelOfDetail(radius) != LevelOfDetail.THUMBNAIL)
+            addReadoutBounds(area, getGaugeFont(radius), insideRadius);
+        
+        if (area.isEmpty())
+            return new Rectangle();
+        
+        Rectangle bounds = area.getBounds();
+        bounds.grow(3, 3);  //for the needle stroke, antialiasing, and rounding to the device
+        bounds.translate(width/2, height/2);
+        return bounds;
+    }
+    
+    //Add the line and arrowhead of a needle rotated to the angle
+    private static void addNeedleBounds(Rectangle2D area, double angle, int radius, int tickLen) {
+        
+        double[] points = {0, 0, 0, radius+tickLen/2, 0, radius, -tickLen/2, radius+tickLen, tickLen/2, radius+tickLen};
+        AffineTransform.getRotateInstance(angle).transform(points, 0, points, 0, points.length/2);
+        
+        double minX = 0, minY = 0, maxX = 0, maxY = 0;  //the first point is the center
+        for (int i=2; i<points.length; i+=2) {
+            minX = Math.min(minX, points[i]);
+            maxX = Math.max(maxX, points[i]);
+            minY = Math.min(minY, points[i+1]);
+            maxY = Math.max(maxY, points[i+1]);
+        }
+        add(area, new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY));
+    }
+    
+    private static void add(Rectangle2D area, Rectangle2D r) {
+        if (area.isEmpty())
+            area.setRect(r);
+        else
+            area.add(r);
+    }
+    
+    //Add the widest readout: three digits and the degree sign to the left, the tenths to the right
+    private static void addReadoutBounds(Rectangle2D area, Font font, double insideRadius) {
+        
+        Font largeFont = font.deriveFont((float)font.getSize()*4);
+        Font smallFont = font.deriveFont((float)font.getSize()*1.5f);
+        Rectangle2D digits = largeFont.getStringBounds("888", READOUT_CONTEXT);
+        double degreeSign = largeFont.getStringBounds("888°", READOUT_CONTEXT).getWidth() - digits.getWidth();
+        double tenths = smallFont.getStringBounds(".0.8", READOUT_CONTEXT).getWidth();
+        
+        int x = (int)(insideRadius/3);
+        int y = (int)(insideRadius/3);
+        double right = Math.max(degreeSign, tenths);
+        add(area, new Rectangle2D.Double(x - digits.getWidth() - 4, y + digits.getY(), digits.getWidth() + right + 8, digits.getHeight()));
+    }
+    
+    
+    //Draw the ticks, degree labels, and cardinal letters, starting at north and rotating clockwise through a full circle
+    private void paintCard(Graphics2D g2d) {
+        
+        int indicatorRadius = getIndicatorRadius();
+        int tickLength = getTickLength(indicatorRadius);
+        
+        LevelOfDetail detail = getLevelOfDetail();
+        
+        int majorTickIncrement;
+        switch (detail) {
+            case THUMBNAIL:
+            case MINIMAL:
+                majorTickIncrement = 90;
+                break;
+            case LOW:
+                majorTickIncrement = 30;
+                break;
+            case MEDIUM:
+                majorTickIncrement = 15;
+                break;
+            default:
+                majorTickIncrement = 10;
+                break;
+        }
+        
+        if (detail == LevelOfDetail.THUMBNAIL) {  //just the cardinal ticks
+            g2d.setStroke(new BasicStroke(2));
+            for (int i=0; i<360; i+=majorTickIncrement) {
+                g2d.drawLine(0, indicatorRadius, 0, (int)-realInsideRadius);
+                g2d.rotate(Math.toRadians(majorTickIncrement));
+            }
+            return;
+        }
+        
+        //Draw the indicators and labels
+        for (int i=0; i<360; i+=5) {
+            
+            if ((i % majorTickIncrement) == 0) {  //major tick
+                g2d.drawString(String.valueOf(i), 2, indicatorRadius);
+                
+                int lineStart;
+                if (thickerCardinalLine) {
+                    lineStart = indicatorRadius + tickLength; //double for N, W, E, S
+                    g2d.setStroke(new BasicStroke(4));  //thicker line
+                }
+                else {
+                    lineStart = indicatorRadius;
+                    g2d.setStroke(new BasicStroke(1));  //normal line
+                }
+                Font origFont = g2d.getFont();
+                Font largeFont = origFont.deriveFont((float)origFont.getSize()*2);
+                g2d.setFont(largeFont);
+                
+                
+                switch (i) {
+                    case 0:
+                        drawCardinalLetter(g2d, "N", indicatorRadius + 2*tickLength);
+                        break;
+                    case 90:
+                        drawCardinalLetter(g2d, "E", indicatorRadius + 2*tickLength);
+                        break;
+                    case 180:
+                        drawCardinalLetter(g2d, "S", indicatorRadius + 2*tickLength);
+                        break;
+                    case 270:
+                        drawCardinalLetter(g2d, "W", indicatorRadius + 2*tickLength);
+                        break;
+                    default:
+                        lineStart = indicatorRadius;
+                        g2d.setFont(origFont);
+                        g2d.setStroke(new BasicStroke(1));  //normal thin line
+                        break;
+                }
+
+                g2d.drawLine(0, lineStart, 0, (int)-realInsideRadius);
+                g2d.setStroke(new BasicStroke(1));  
+                g2d.setFont(origFont);
+
+            }
+            else if (detail == LevelOfDetail.FULL) //draw minor tick, if large enough
+                g2d.drawLine(0, indicatorRadius - tickLength/2, 0, (int)-realInsideRadius);         
+           
+            g2d.rotate(Math.toRadians(5.0));
+        }
+    }
+    
+    
+    @Override
+    protected void paintFace(Graphics2D g2d) {
+        
+        this.paintGaugeBackground(g2d);
+        
+        //When north up, the card never moves so it can be cached with the face
+        if (northUp) {
+            g2d.setColor(indicatorColor);
+            paintCard(g2d);
+        }
+    }
+    
+    
+    @Override
+    protected void paintDynamic(Graphics2D g2d) {
+        
+        g2d.setColor(indicatorColor);
+           
+        int indicatorRadius = getIndicatorRadius();
+        int tickLength = getTickLength(indicatorRadius);
+        
+        if (!northUp) {
+            if (Double.isFinite(frameBearing))
+                g2d.rotate(-frameBearing);
+            
+            paintCard(g2d);
+        }
+        
+        //The trail is in card coordinates, inside the labels
+        if (trail != null && getLevelOfDetail() != LevelOfDetail.THUMBNAIL) {
+            trail.paint(g2d, realInsideRadius * 0.6, realInsideRadius * 0.03, System.currentTimeMillis(), trailMaxAge);
+            g2d.setColor(indicatorColor);
+        }
+        
+        if (northUp && Double.isFinite(frameBearing))
+            g2d.rotate(frameBearing);
+        
+        g2d.setStroke(new BasicStroke(2.0f));
+
+        drawBearingNeedle(g2d, indicatorRadius, tickLength);
+ 
+         //Restore to origin
+        g2d.setTransform(centerGaugeTransform);
+        
+        if (showCourseNeedle && Double.isFinite(frameBearing)) {
+            if (!northUp)
+                g2d.rotate(-frameBearing);
+
+            g2d.rotate(frameCourse);
+
+            g2d.setColor(courseNeedleColor);
+            drawNeedle(g2d, indicatorRadius*2/3, tickLength);
+
+            //Restore to origin
+            g2d.setTransform(centerGaugeTransform);
+
+        }
+
+        //Paint the value, unless too small to read
+        if (getLevelOfDetail() != LevelOfDetail.THUMBNAIL)
+            paintValue(g2d);
+        
+    }
+    
+    
+    @Override
+    protected String[] getPartNames() {
+        return PARTS;
+    }
+    
+    @Override
+    protected void paintPart(Graphics2D g2d, int part) {
+        
+        int indicatorRadius = getIndicatorRadius();
+        int tickLength = getTickLength(indicatorRadius);
+        
+        g2d.setStroke(new BasicStroke(2.0f));
+        switch (part) {
+            case CARD_PART:
+                if (!northUp) {  //otherwise the card is on the face
+                    g2d.setColor(indicatorColor);
+                    paintCard(g2d);
+                }
+                break;
+            case BEARING_PART:
+                g2d.setColor(indicatorColor);
+                drawNeedle(g2d, indicatorRadius, tickLength);
+                break;
+            default:
+                g2d.setColor(courseNeedleColor);
+                drawNeedle(g2d, indicatorRadius*2/3, tickLength);
+                break;
+        }
+    }
+    
+    @Override
+    protected double getPartRotation(int part) {
+        boolean valid = Double.isFinite(frameBearing);
+        switch (part) {
+            case CARD_PART:
+                return northUp || !valid ? 0 : -frameBearing;
+            case BEARING_PART:
+                return !valid ? Double.NaN : northUp ? frameBearing : 0;
+            default:
+                return !valid || !showCourseNeedle ? Double.NaN : northUp ? frameCourse : frameCourse - frameBearing;
+        }
+    }
+    
+    @Override
+    protected int getStateValues(double[] values) {
+        values[0] = Math.toDegrees(frameBearing);
+        values[1] = Math.toDegrees(frameCourse);
+        return 2;
+    }
+    
+    
+    @Override
+    protected void paintOverlay(Graphics2D g2d) {
+        
+        //Draw Center of dial
+        g2d.setColor(indicatorColor);
+        drawDialCenter(g2d);
+      
+        //Now paint the bezel
+        paintBezel(g2d);
+    }
+    
+    
+    
+    
+    
+}
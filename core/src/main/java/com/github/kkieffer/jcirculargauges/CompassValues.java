@@ -0,0 +1,73 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+package com.github.kkieffer.jcirculargauges;
+
+/**
+ * The state painted by a CompassRenderer: a bearing and course, with the values derived from them.  Immutable, so a CompassModel can
+ * share one instance with all its views.
+ *
+ * @author kkieffer
+ */
+public final class CompassValues {
+
+    final double bearing;  //degrees, from 0-360
+    final double course;
+    final double bearingRadians;
+    final double courseRadians;
+    final int readoutDegrees;  //the bearing readout, rounded to tenths
+    final int readoutTenths;
+
+    /**
+     * Create the state
+     * @param bearing the bearing in degrees.  Values outside 0-360 will be modulus 360.
+     * @param course the course in degrees.  Values outside 0-360 will be modulus 360.
+     */
+    public CompassValues(double bearing, double course) {
+        this.bearing = normalize(bearing);
+        this.course = normalize(course);
+        bearingRadians = Math.toRadians(this.bearing);
+        courseRadians = Math.toRadians(this.course);
+
+        int degrees = (int)Math.floor(this.bearing);
+        int tenths = (int)Math.abs(Math.round(10.0 * (this.bearing - degrees)));
+        if (tenths >= 10) {
+            degrees++;
+            tenths = 0;
+        }
+        if (degrees >= 360)
+            degrees = 0;
+        readoutDegrees = degrees;
+        readoutTenths = tenths;
+    }
+
+    public double getBearing() {
+        return bearing;
+    }
+
+    public double getCourse() {
+        return course;
+    }
+
+    private static double normalize(double degrees) {
+        degrees = degrees % 360;
+        if (degrees < 0)
+            degrees += 360;
+        return degrees;
+    }
+
+}
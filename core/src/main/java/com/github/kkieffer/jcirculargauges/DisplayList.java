@@ -0,0 +1,310 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A retained list of drawing operations, recorded once from a gauge paint method and replayed on every frame.
+ * 
+ * Transforms are multiplied into the coordinates when recording: lines are kept as four floats in a flat array, and other shapes
+ * and text (as glyph outlines) as pre-transformed float paths.  Replaying is a walk through the opcode array with no trigonometry,
+ * transform changes, or allocation, except for the rare shape whose paint is not a plain color and can't be pre-transformed.
+ * Paint, stroke, and composite changes are only recorded when they differ from the previous value, and clip changes only when the clip
+ * was set since the previous operation.
+ * 
+ * Strokes are not scaled, so shapes outlined under a transform that scales are recorded as filled stroke outlines.
+ * 
+ * @author kkieffer
+ */
+final class DisplayList implements RecordingGraphics2D.Sink {
+    
+    private static final int OP_PAINT = 0;  //object index
+    private static final int OP_STROKE = 1;  //object index
+    private static final int OP_COMPOSITE = 2;  //object index
+    private static final int OP_CLIP = 3;  //object index, or -1 for no clip
+    private static final int OP_LINE = 4;  //coordinate index of x1, y1, x2, y2
+    private static final int OP_DRAW = 5;  //object index of the shape
+    private static final int OP_FILL = 6;  //object index of the shape
+    private static final int OP_FILL_TRANSFORMED = 7;  //object index of the shape, then of the transform (shapes with non-color paint)
+    private static final int OP_IMAGE = 8;  //object index of the image, then of the transform
+    
+    private int[] ops = new int[64];
+    private int opCount;
+    private float[] coords = new float[64];
+    private int coordCount;
+    private final ArrayList<Object> objects = new ArrayList<>();
+    
+    private Paint lastPaint;
+    private Stroke lastStroke;
+    private Composite lastComposite;
+    private Shape lastClip;
+    private boolean hasClip;  //true if any clip operations were recorded
+    
+    private final Line2D.Float line = new Line2D.Float();  //reused for replaying lines
+    
+    
+    /**
+     * Record the operations of a painter into a new list
+     * @param painter paints onto the recorder, with the origin where the list will be replayed
+     * @return the list
+     */
+    static DisplayList record(Painter painter) {
+        DisplayList list = new DisplayList();
+        RecordingGraphics2D recorder = new RecordingGraphics2D(list);
+        try {
+            painter.paint(recorder);
+        } finally {
+            recorder.dispose();
+        }
+        list.trim();
+        return list;
+    }
+    
+    /**
+     * Something that can paint itself onto a Graphics2D
+     */
+    interface Painter {
+        void paint(Graphics2D g2d);
+    }
+    
+    
+    /**
+     * Replay the operations.  The paint, stroke, composite, and clip of the graphics are changed, so pass a copy if they must be preserved.
+     * @param g2d the graphics, with its transform at the origin of the recording
+     */
+    void replay(Graphics2D g2d) {
+        
+        Shape baseClip = hasClip ? g2d.getClip() : null;
+        
+        for (int i=0; i<opCount; i++) {
+            
+            switch (ops[i]) {
+                case OP_PAINT:
+                    g2d.setPaint((Paint)objects.get(ops[++i]));
+                    break;
+                case OP_STROKE:
+                    g2d.setStroke((Stroke)objects.get(ops[++i]));
+                    break;
+                case OP_COMPOSITE:
+                    g2d.setComposite((Composite)objects.get(ops[++i]));
+                    break;
+                case OP_CLIP:
+                    int clip = ops[++i];
+                    g2d.setClip(baseClip);
+                    if (clip >= 0)
+                        g2d.clip((Shape)objects.get(clip));
+                    break;
+                case OP_LINE:
+                    int c = ops[++i];
+                    line.setLine(coords[c], coords[c+1], coords[c+2], coords[c+3]);
+                    g2d.draw(line);
+                    break;
+                case OP_DRAW:
+                    g2d.draw((Shape)objects.get(ops[++i]));
+                    break;
+                case OP_FILL:
+                    g2d.fill((Shape)objects.get(ops[++i]));
+                    break;
+                case OP_FILL_TRANSFORMED:
+                case OP_IMAGE:
+                    int op = ops[i];
+                    Object o = objects.get(ops[++i]);
+                    AffineTransform xform = (AffineTransform)objects.get(ops[++i]);
+                    if (op == OP_IMAGE)
+                        g2d.drawImage((Image)o, xform, null);
+                    else {
+                        AffineTransform saved = g2d.getTransform();
+                        g2d.transform(xform);
+                        g2d.fill((Shape)o);
+                        g2d.setTransform(saved);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Bad display list opcode " + ops[i]);
+            }
+        }
+        
+        if (hasClip)
+            g2d.setClip(baseClip);
+    }
+    
+    
+    /**
+     * Estimate the memory held by the list: the arrays, and the coordinates of the recorded paths.  Images drawn into the list
+     * are counted at 4 bytes per pixel.
+     * @return the approximate size in bytes
+     */
+    long getFootprint() {
+        long bytes = ops.length * 4L + coords.length * 4L + objects.size() * 8L;
+        float[] segment = new float[6];
+        for (Object o : objects) {
+            if (o instanceof Shape) {
+                PathIterator it = ((Shape)o).getPathIterator(null);
+                for (; !it.isDone(); it.next())
+                    bytes += 1 + 4 * 2 * segmentPoints(it.currentSegment(segment));
+            }
+            else if (o instanceof Image) {
+                Image image = (Image)o;
+                bytes += 4L * Math.max(0, image.getWidth(null)) * Math.max(0, image.getHeight(null));
+            }
+        }
+        return bytes;
+    }
+    
+    private static int segmentPoints(int type) {
+        switch (type) {
+            case PathIterator.SEG_QUADTO:
+                return 2;
+            case PathIterator.SEG_CUBICTO:
+                return 3;
+            case PathIterator.SEG_CLOSE:
+                return 0;
+            default:
+                return 1;
+        }
+    }
+    
+    
+    
+    // ---------- Recording
+    
+    @Override
+    public void shape(RecordingGraphics2D g, Shape shape, boolean fill) {
+        
+        recordState(g, !fill);
+        
+        AffineTransform transform = g.getTransform();
+        
+        if (!(g.getPaint() instanceof Color) && !transform.isIdentity()) {  //paint is in user space, so it needs the transform
+            Shape s = fill ? shape : g.getStroke().createStrokedShape(shape);
+            addOp(OP_FILL_TRANSFORMED, addObject(new Path2D.Float(s)));
+            addOp(addObject(transform));
+            return;
+        }
+        
+        //Strokes are not transformed when replayed, so a scaled outline must be converted to a fill
+        boolean rigid = (transform.getType() & (AffineTransform.TYPE_MASK_SCALE | AffineTransform.TYPE_FLIP | AffineTransform.TYPE_GENERAL_TRANSFORM)) == 0;
+        if (!fill && !rigid) {
+            shape = g.getStroke().createStrokedShape(shape);
+            fill = true;
+        }
+        
+        if (!fill && shape instanceof Line2D) {
+            Line2D l = (Line2D)shape;
+            float[] pts = {(float)l.getX1(), (float)l.getY1(), (float)l.getX2(), (float)l.getY2()};
+            transform.transform(pts, 0, pts, 0, 2);
+            addOp(OP_LINE, addCoords(pts));
+            return;
+        }
+        
+        addOp(fill ? OP_FILL : OP_DRAW, addObject(new Path2D.Float(shape, transform)));
+    }
+
+    @Override
+    public void glyphs(RecordingGraphics2D g, GlyphVector glyphs, float x, float y) {
+        recordState(g, false);
+        Shape outline = glyphs.getOutline(x, y);
+        if (!(g.getPaint() instanceof Color) && !g.getTransform().isIdentity()) {
+            addOp(OP_FILL_TRANSFORMED, addObject(new Path2D.Float(outline)));
+            addOp(addObject(g.getTransform()));
+        } else
+            addOp(OP_FILL, addObject(new Path2D.Float(outline, g.getTransform())));
+    }
+
+    @Override
+    public void image(RecordingGraphics2D g, Image image, AffineTransform xform) {
+        recordState(g, false);
+        AffineTransform t = g.getTransform();
+        t.concatenate(xform);
+        addOp(OP_IMAGE, addObject(image));
+        addOp(addObject(t));
+    }
+    
+    
+    //Record any state changes since the last operation
+    private void recordState(RecordingGraphics2D g, boolean stroked) {
+        
+        Paint paint = g.getPaint();
+        if (!Objects.equals(paint, lastPaint)) {
+            addOp(OP_PAINT, addObject(paint));
+            lastPaint = paint;
+        }
+        
+        Composite composite = g.getComposite();
+        if (!Objects.equals(composite, lastComposite)) {
+            addOp(OP_COMPOSITE, addObject(composite));
+            lastComposite = composite;
+        }
+        
+        Stroke stroke = g.getStroke();
+        if (stroked && !Objects.equals(stroke, lastStroke)) {
+            addOp(OP_STROKE, addObject(stroke));
+            lastStroke = stroke;
+        }
+        
+        Shape clip = g.getRecordingClip();
+        if (clip != lastClip) {  //the recorder returns the same instance until the clip is changed
+            addOp(OP_CLIP, clip == null ? -1 : addObject(clip));
+            lastClip = clip;
+            hasClip = true;
+        }
+    }
+    
+    private int addObject(Object o) {
+        objects.add(o);
+        return objects.size() - 1;
+    }
+    
+    private int addCoords(float[] pts) {
+        if (coordCount + pts.length > coords.length)
+            coords = Arrays.copyOf(coords, Math.max(coords.length * 2, coordCount + pts.length));
+        System.arraycopy(pts, 0, coords, coordCount, pts.length);
+        coordCount += pts.length;
+        return coordCount - pts.length;
+    }
+    
+    private void addOp(int... values) {
+        if (opCount + values.length > ops.length)
+            ops = Arrays.copyOf(ops, Math.max(ops.length * 2, opCount + values.length));
+        System.arraycopy(values, 0, ops, opCount, values.length);
+        opCount += values.length;
+    }
+    
+    private void trim() {
+        ops = Arrays.copyOf(ops, opCount);
+        coords = Arrays.copyOf(coords, coordCount);
+        objects.trimToSize();
+    }
+    
+}
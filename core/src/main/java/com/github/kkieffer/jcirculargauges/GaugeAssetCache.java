@@ -0,0 +1,311 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A directory of rendered static layers (the face and overlay of each gauge) that persists across runs, so an application that shows
+ * many gauges can start up without rendering their artwork again.  Set the same cache on any number of gauges with
+ * JCircularGauge.setAssetCache().  It is only used with the IMAGE static layer cache.
+ *
+ * Each layer is keyed by a digest of what it draws (see LayerDigest) with its pixel size and device scale, this library's version
+ * and build time, and the Java version and platform, whose rasterizers differ.  The digest is computed by recording the layer's paint
+ * method without rasterizing it, which is much cheaper than rendering it, so a changed setting or another build of the library can
+ * never load stale artwork: it just misses, and the new layer is written beside the old one.  Call clear() to remove the old ones.
+ * The version and build time are written into version.properties by the build; if they aren't there, nothing is cached.
+ *
+ * Each layer is one file, named by the key, holding a small header with the full key and the raw 32-bit pixels, which are read a
+ * band of rows at a time straight into the layer image.  Files are written to a temporary name and moved into place, so processes sharing
+ * the directory never see a partial file; a file whose header doesn't match its key or whose length is wrong is deleted.  A file
+ * that can't be read or written is counted as a failure, and the layer is rendered as if it missed.  The cache can be used from any
+ * thread.
+ *
+ * @author kkieffer
+ */
+public final class GaugeAssetCache {
+
+    private static final int MAGIC = 0x4A434741;  //"JCGA"
+    private static final int FORMAT_VERSION = 1;
+    private static final int KEY_BYTES = 32;
+    private static final int HEADER_BYTES = 5 * 4 + KEY_BYTES;  //magic, format, image type, width, height, key
+    private static final int BAND_PIXELS = 16384;  //pixels read from a file at a time
+    private static final String SUFFIX = ".layer";
+
+    //Everything besides the artwork that changes the rendered pixels, hashed into every key, or null if the library build is unknown
+    private static final String ENVIRONMENT = environment(readLibraryBuild());
+
+    private final File directory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile IOException lastFailure;
+
+    /**
+     * Create a cache in a directory, which is created if needed
+     * @param directory the directory
+     */
+    public GaugeAssetCache(File directory) {
+        this.directory = directory;
+        directory.mkdirs();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of layers loaded from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of layers that weren't in the cache, or couldn't be keyed, and were rendered
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of layer files that couldn't be read or written
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the exception of the last layer file that couldn't be read or written, or null if none
+     */
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Check if layers can be cached, which needs the version and build time of the library, from the version.properties written by
+     * the build.  If not, every layer misses and none are stored.
+     * @return true if the library build is known
+     */
+    public static boolean isAvailable() {
+        return ENVIRONMENT != null;
+    }
+
+    /**
+     * Delete all the cached layers.  Gauges keep the layers they already loaded.
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+        for (File f : files)
+            if (f.getName().endsWith(SUFFIX))
+                f.delete();
+    }
+
+
+    /**
+     * Start the key of a layer, to which the layer's operations are added
+     * @param pixelWidth the width of the layer image
+     * @param pixelHeight the height of the layer image
+     * @param scaleX the device scale in x
+     * @param scaleY the device scale in y
+     * @return the digest, or null if the library build is unknown, so nothing can be cached
+     */
+    static LayerDigest startKey(int pixelWidth, int pixelHeight, double scaleX, double scaleY) {
+        if (ENVIRONMENT == null)
+            return null;
+        LayerDigest key = new LayerDigest();
+        key.add(ENVIRONMENT);
+        key.add(pixelWidth);
+        key.add(pixelHeight);
+        key.add(scaleX);
+        key.add(scaleY);
+        return key;
+    }
+
+    /**
+     * Load a layer
+     * @param key the key, null if the layer couldn't be keyed
+     * @param width the expected width
+     * @param height the expected height
+     * @return the layer, or null if it isn't cached
+     */
+    BufferedImage load(byte[] key, int width, int height) {
+
+        File file = key == null ? null : fileFor(key);
+        if (file == null || !file.isFile()) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        BufferedImage image = null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            image = read(channel, key, width, height);
+        } catch (IOException ex) {
+            failed(ex);
+        }
+
+        if (image == null) {
+            misses.incrementAndGet();
+            file.delete();  //truncated, or from a different key with the same name; closed first so this works on Windows too
+            return null;
+        }
+        hits.incrementAndGet();
+        return image;
+    }
+
+    //Read the layer from the file, or return null if the header or length don't match
+    private static BufferedImage read(FileChannel channel, byte[] key, int width, int height) throws IOException {
+
+        if (channel.size() != HEADER_BYTES + 4L * width * height)
+            return null;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (!readFully(channel, header))
+            return null;
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION)
+            return null;
+        int type = header.getInt();
+        if ((type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_ARGB_PRE) || header.getInt() != width || header.getInt() != height)
+            return null;
+        byte[] fileKey = new byte[KEY_BYTES];
+        header.get(fileKey);
+        if (!Arrays.equals(fileKey, key))
+            return null;
+
+        //Read a band of rows at a time straight into the raster, so there's no full size copy of the pixels
+        BufferedImage image = new BufferedImage(width, height, type);
+        WritableRaster raster = image.getRaster();
+        int bandRows = Math.max(1, Math.min(height, BAND_PIXELS / Math.max(1, width)));
+        ByteBuffer band = ByteBuffer.allocate(4 * width * bandRows);
+        int[] pixels = new int[width * bandRows];
+        for (int y=0; y<height; y+=bandRows) {
+            int rows = Math.min(bandRows, height - y);
+            band.clear();
+            band.limit(4 * width * rows);
+            if (!readFully(channel, band))
+                return null;
+            band.asIntBuffer().get(pixels, 0, width * rows);
+            raster.setDataElements(0, y, width, rows, pixels);  //not the DataBufferInt array itself, so the image stays managed
+        }
+        return image;
+    }
+
+    //Fill the buffer from the channel and flip it, returning false if the file ends first
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                return false;
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * Store a layer.  Images that aren't 32-bit ARGB are not stored.
+     * @param key the key, null if the layer couldn't be keyed
+     * @param image the layer
+     */
+    void store(byte[] key, BufferedImage image) {
+
+        int type = image.getType();
+        if (key == null || type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_ARGB_PRE)
+            return;
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ByteBuffer data = ByteBuffer.allocate(HEADER_BYTES + 4 * width * height);
+        data.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(type).putInt(width).putInt(height).put(key);
+        IntBuffer pixels = data.asIntBuffer();  //starts after the header
+        pixels.put((int[])image.getRaster().getDataElements(0, 0, width, height, null));
+        data.rewind();
+
+        Path target = fileFor(key).toPath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory.toPath(), "layer", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining())
+                    channel.write(data);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } catch (IOException ex) {
+            failed(ex);
+        } finally {
+            if (temp != null)
+                temp.toFile().delete();
+        }
+    }
+
+    private void failed(IOException ex) {
+        lastFailure = ex;
+        failures.incrementAndGet();
+    }
+
+    private File fileFor(byte[] key) {
+        StringBuilder name = new StringBuilder(2 * KEY_BYTES + SUFFIX.length());
+        for (byte b : key)
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return new File(directory, name.append(SUFFIX).toString());
+    }
+
+    //The version and build time of the library, or null if the build didn't write them
+    private static String readLibraryBuild() {
+        try (InputStream in = GaugeAssetCache.class.getResourceAsStream("version.properties")) {
+            if (in == null)
+                return null;
+            Properties p = new Properties();
+            p.load(in);
+            String version = p.getProperty("version", "");
+            String build = p.getProperty("build", "");
+            if (version.isEmpty() || build.isEmpty() || version.contains("${") || build.contains("${"))
+                return null;  //not filtered, for instance compiled outside of Maven
+            return version + "/" + build;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static String environment(String libraryBuild) {
+        if (libraryBuild == null)
+            return null;
+        return FORMAT_VERSION + "/" + libraryBuild + "/" + System.getProperty("java.version") + "/" + System.getProperty("os.name") + "/"
+               + System.getProperty("os.arch");
+    }
+
+}
@@ -0,0 +1,862 @@
+/*
+Copyright (C) 2018 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.MultipleGradientPaint;
+import java.awt.Paint;
+import java.awt.RadialGradientPaint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.nio.ByteBuffer;
+
+/**
+ * Paints a circular gauge on any Graphics2D, at a size given for each paint, with no dependency on Swing.  The gauge is painted in
+ * three layers: the face (background and dial artwork beneath the needles), the dynamic content (needles, readouts), and the overlay
+ * (dial center and bezel, drawn over the needles).  Subclasses override paintFace(), paintDynamic(), and paintOverlay() respectively,
+ * and hold the state they paint, which is set explicitly before each paint.  The Swing components (JCircularGauge and its subclasses)
+ * are thin wrappers that copy the state of their models into a renderer and paint it with the size of the component.
+ * 
+ * The face and overlay only change when the gauge is resized or reconfigured, so by default they are rendered once into images
+ * and blitted on each paint.  The images are rendered at the physical pixel resolution of the device (the scale of the Graphics
+ * transform, for instance 2.0 with sun.java2d.uiScale=2) and drawn 1:1, so they are as sharp as painting directly.  Subclasses
+ * must call invalidateStaticLayers() when any setting that affects the face or overlay changes.
+ * 
+ * For memory constrained targets the static layers can instead be recorded into display lists: the drawing operations are
+ * recorded once per size and configuration, with their transforms multiplied into flat coordinate arrays, and replayed on each
+ * paint.  A display list is typically a few percent of the size of the equivalent image.
+ * 
+ * How much is drawn depends on the level of detail, which is chosen from the gauge radius by configurable thresholds.  The level
+ * can also be capped by a paint time budget: if painting takes longer than the budget, the level is lowered, and if it takes less
+ * than half the budget it is raised again, up to the level for the radius.  Each level has its own cached static layers.
+ * 
+ * The rendering hints come from a RenderingProfile, which has separate hints for the static layers and the dynamic layer, so for
+ * instance the face can be rendered into the cache at the best quality while the needles are painted with fast hints.
+ * 
+ * Optionally, accelerated buffering keeps the static layers in VolatileImages compatible with the graphics configuration of the
+ * destination, so blits are done by the graphics pipeline rather than the CPU.  If volatile images are not accelerated, or are not
+ * available (headless), the renderer silently uses BufferedImages instead.
+ * 
+ * A renderer is not thread safe: setting its state and painting it must be serialized by the caller.
+ *
+ * @author kkieffer
+ */
+public class GaugeRenderer {
+    
+       
+    protected Color bezelColor;
+    protected Color background;
+    protected int outsideRadius;
+    protected double realInsideRadius;
+    private AffineTransform origTransform;
+    protected AffineTransform centerGaugeTransform;
+    protected float dialCenterDivider = 20;    
+    protected boolean hasStaticFace = true;  //false if the subclass paints nothing in the face layer
+    
+    private float[] dist = {0.0f, 0.89f, 0.9f, 0.95f, 1.0f};  //Bezel gradients, starting at .89 * radius
+    private int width;  //size of the paint in progress, or the last one
+    private int height;
+
+    /**
+     * How the face and overlay layers are cached between paints
+     */
+    public enum StaticLayerCache {
+        NONE,           //paint the layers on every paint
+        IMAGE,          //render the layers into images at the device resolution, and blit them
+        DISPLAY_LIST    //record the drawing operations of the layers, and replay them
+    }
+    
+    private StaticLayerCache staticLayerCache = StaticLayerCache.IMAGE;
+    private RenderingProfile renderingProfile = RenderingProfile.DEFAULT;
+    private volatile GaugeAssetCache assetCache;  //persists the IMAGE layers across runs, null for none
+    
+    /**
+     * Levels of detail, from least to most
+     */
+    public enum LevelOfDetail {
+        THUMBNAIL,  //no text and a plain bezel, for thumbnail gauges in overview grids
+        MINIMAL,
+        LOW,
+        MEDIUM,
+        HIGH,
+        FULL
+    }
+    
+    private static final LevelOfDetail[] LEVELS = LevelOfDetail.values();
+    private static final int[] DEFAULT_DETAIL_THRESHOLDS = {0, 0, 75, 150, 200, 251};  //minimum outside radius for each level
+    private static final int BUDGET_SAMPLE_FRAMES = 10;  //frames to average before changing the level to meet the budget
+    private final int[] detailThresholds = DEFAULT_DETAIL_THRESHOLDS.clone();
+    private long detailBudgetNanos;  //zero for no budget
+    private LevelOfDetail detailCap = LevelOfDetail.FULL;  //highest level allowed by the budget
+    private double averagePaintNanos;
+    private int budgetFrames;
+    private LevelOfDetail frameDetail = LevelOfDetail.FULL;  //level of the frame being painted
+    private boolean frameCacheMiss;  //true if a static layer was rendered or recorded for the frame being painted
+    
+    private final StaticLayer[] faceLayers = new StaticLayer[LEVELS.length];
+    private final StaticLayer[] overlayLayers = new StaticLayer[LEVELS.length];
+    
+    static final int MAX_STATE_VALUES = 8;  //most state values of any gauge
+    private static final String[] NO_PARTS = {};
+    private final double[] stateValues = new double[MAX_STATE_VALUES];  //scratch space for encoding the state
+    
+    private GraphicsConfiguration graphicsConfiguration;
+    private boolean acceleratedBuffering;
+    private boolean acceleratedUnavailable;  //set when the pipeline can't accelerate volatile images
+    
+    
+    /**
+     * Create a renderer that paints the background and bezel, with default colors
+     */
+    public GaugeRenderer() {
+        setColors(null, null);
+    }
+    
+    protected void setBezelGradients(float[] d) {
+        dist = d;
+        invalidateStaticLayers();
+    }
+    
+    //The inside radius of the bezel for an outside radius
+    double getInsideRadius(int radius) {
+        return radius * dist[2];
+    }
+    
+    /**
+     * Customize the gauge colors
+     * @param bezelColor the gauge color, null for default
+     * @param background the gauge background color
+     */
+    public final void setColors(Color bezelColor, Color background) {
+        this.bezelColor = bezelColor == null ? Color.DARK_GRAY : bezelColor;
+        this.background = background == null ? Color.WHITE : background;
+        invalidateStaticLayers();
+    }
+    
+    /**
+     * Set how the face and overlay are cached.  The default is IMAGE.
+     * @param cache the caching mode, null for NONE
+     */
+    public void setStaticLayerCache(StaticLayerCache cache) {
+        staticLayerCache = cache == null ? StaticLayerCache.NONE : cache;
+        for (int i=0; i<LEVELS.length; i++) {  //free whatever the previous mode held
+            if (faceLayers[i] != null)
+                faceLayers[i].release();
+            if (overlayLayers[i] != null)
+                overlayLayers[i].release();
+        }
+        invalidateStaticLayers();
+    }
+    
+    public StaticLayerCache getStaticLayerCache() {
+        return staticLayerCache;
+    }
+    
+    /**
+     * Set the rendering hints for the static layers and the dynamic layer.  The default is RenderingProfile.DEFAULT.
+     * @param profile the profile, null for the default
+     */
+    public void setRenderingProfile(RenderingProfile profile) {
+        renderingProfile = profile == null ? RenderingProfile.DEFAULT : profile;
+        invalidateStaticLayers();
+    }
+    
+    public RenderingProfile getRenderingProfile() {
+        return renderingProfile;
+    }
+    
+    /**
+     * Set a cache directory that the face and overlay images are loaded from when they were rendered before, by this or an earlier
+     * run, and saved to when they are rendered.  Only used with the IMAGE static layer cache.  The default is none.
+     * @param cache the cache, which can be shared by any number of gauges, or null for none
+     */
+    public void setAssetCache(GaugeAssetCache cache) {
+        assetCache = cache;
+    }
+    
+    public GaugeAssetCache getAssetCache() {
+        return assetCache;
+    }
+    
+    /**
+     * Set the smallest outside radius, in pixels, at which a level of detail is used.  The level for a radius is the highest
+     * one whose threshold is at or below it.  The defaults are 0 (MINIMAL), 75 (LOW), 150 (MEDIUM), 200 (HIGH), and 251 (FULL), so
+     * THUMBNAIL is only used once the MINIMAL threshold is raised.  Subclasses may change the defaults in their constructors.
+     * @param level the level, which can't be THUMBNAIL since it is used for all radii below the MINIMAL threshold
+     * @param minRadius the smallest radius
+     */
+    public void setDetailThreshold(LevelOfDetail level, int minRadius) {
+        if (level == LevelOfDetail.THUMBNAIL)
+            throw new IllegalArgumentException("THUMBNAIL is used below the MINIMAL threshold");
+        detailThresholds[level.ordinal()] = minRadius;
+    }
+    
+    public int getDetailThreshold(LevelOfDetail level) {
+        return detailThresholds[level.ordinal()];
+    }
+    
+    /**
+     * Set a paint time budget.  The level of detail is lowered when the average paint time is over the budget, and raised (up to
+     * the level for the radius) when it is under half the budget.  Frames that render static layers into the cache are not counted.
+     * @param millis the budget in milliseconds, zero for none (the default), in which case the level depends only on the radius
+     */
+    public void setDetailBudget(double millis) {
+        detailBudgetNanos = (long)(millis * 1000000.0);
+        detailCap = LevelOfDetail.FULL;
+        budgetFrames = 0;
+    }
+    
+    public double getDetailBudget() {
+        return detailBudgetNanos / 1000000.0;
+    }
+    
+    /**
+     * Get the level of detail for the frame being painted, or the last one painted.  Subclasses use this to decide what to draw.
+     * @return the level of detail
+     */
+    public LevelOfDetail getLevelOfDetail() {
+        return frameDetail;
+    }
+    
+    //The level for the radius, capped by the budget
+    LevelOfDetail chooseLevelOfDetail(int radius) {
+        LevelOfDetail level = LevelOfDetail.THUMBNAIL;
+        for (int i=1; i<LEVELS.length; i++)
+            if (radius >= detailThresholds[i] && LEVELS[i].compareTo(level) > 0)
+                level = LEVELS[i];
+        
+        return level.compareTo(detailCap) > 0 ? detailCap : level;
+    }
+
+    /**
+     * Check if the face or overlay was rendered or recorded for the frame being painted, or the last one painted, rather than
+     * taken from the cache.  Always false when the static layers aren't cached.
+     * @return true if the frame missed the static layer cache
+     */
+    public boolean isFrameCacheMiss() {
+        return frameCacheMiss;
+    }
+    
+    //Average the paint time, and change the level cap if the average is over the budget or well under it
+    private void updateDetailBudget(long paintNanos) {
+        
+        if (detailBudgetNanos <= 0 || frameCacheMiss)
+            return;
+        
+        averagePaintNanos = budgetFrames == 0 ? paintNanos : 0.8 * averagePaintNanos + 0.2 * paintNanos;
+        if (++budgetFrames < BUDGET_SAMPLE_FRAMES)
+            return;
+        
+        int level = frameDetail.ordinal();
+        if (averagePaintNanos > detailBudgetNanos && level > 0) {
+            detailCap = LEVELS[level - 1];
+            budgetFrames = 0;
+        }
+        else if (averagePaintNanos < detailBudgetNanos / 2 && frameDetail == detailCap && level < LEVELS.length - 1) {
+            detailCap = LEVELS[level + 1];
+            budgetFrames = 0;
+        }
+    }
+    
+    /**
+     * Get the approximate memory held by the cached face and overlay, in the current caching mode
+     * @return the size in bytes, or zero if nothing is cached yet
+     */
+    public long getStaticLayerFootprint() {
+        long bytes = 0;
+        for (int i=0; i<LEVELS.length; i++) {
+            if (faceLayers[i] != null)
+                bytes += faceLayers[i].getFootprint();
+            if (overlayLayers[i] != null)
+                bytes += overlayLayers[i].getFootprint();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Set the graphics configuration of the destination, which the cached layer images are made compatible with, and which
+     * accelerated buffering creates volatile images for
+     * @param gc the configuration, or null (the default) for plain BufferedImages
+     */
+    public void setGraphicsConfiguration(GraphicsConfiguration gc) {
+        graphicsConfiguration = gc;
+    }
+    
+    public GraphicsConfiguration getGraphicsConfiguration() {
+        return graphicsConfiguration;
+    }
+    
+    /**
+     * Enable or disable accelerated buffering. The default is disabled.  When enabled, the cached static layers are copied into
+     * VolatileImages if the graphics pipeline of the graphics configuration accelerates them, otherwise the renderer paints as if disabled.
+     * @param enable true to use accelerated buffering when available
+     */
+    public void setAcceleratedBuffering(boolean enable) {
+        acceleratedBuffering = enable;
+        acceleratedUnavailable = false;
+        if (!enable) {
+            for (int i=0; i<LEVELS.length; i++) {
+                if (faceLayers[i] != null)
+                    faceLayers[i].flushAccelerated();
+                if (overlayLayers[i] != null)
+                    overlayLayers[i].flushAccelerated();
+            }
+        }
+    }
+    
+    public boolean isAcceleratedBuffering() {
+        return acceleratedBuffering;
+    }
+    
+    //True if volatile images should be tried, with any graphics configuration
+    boolean canAccelerate() {
+        return acceleratedBuffering && !acceleratedUnavailable && !GraphicsEnvironment.isHeadless();
+    }
+    
+    //Get the graphics configuration to create volatile images with, or null if accelerated buffering is off or unavailable
+    private GraphicsConfiguration getAcceleratedConfiguration() {
+        return canAccelerate() ? graphicsConfiguration : null;
+    }
+    
+    /**
+     * Discard the cached face and overlay so they are re-rendered on the next paint.  Call this whenever a setting that is drawn
+     * in paintFace() or paintOverlay() changes.
+     */
+    protected void invalidateStaticLayers() {
+        for (int i=0; i<LEVELS.length; i++) {
+            if (faceLayers[i] != null)
+                faceLayers[i].invalidate();
+            if (overlayLayers[i] != null)
+                overlayLayers[i].invalidate();
+        }
+    }
+    
+    //Get the layer for the level, creating it if needed
+    private static StaticLayer getLayer(StaticLayer[] layers, LevelOfDetail level) {
+        StaticLayer layer = layers[level.ordinal()];
+        if (layer == null) {
+            layer = new StaticLayer();
+            layers[level.ordinal()] = layer;
+        }
+        return layer;
+    }
+    
+    
+    protected int getOutsideRadius() {  //Determine the smallest of height and width
+        if (height > width)
+            return width/2;
+        else
+            return height/2;
+    }
+    
+   
+    
+    //Paint the rim of the gauge (assumes translated to center of dial)    
+    protected void paintBezel(Graphics2D g) {
+    
+        int r = getOutsideRadius();
+        
+        if (frameDetail == LevelOfDetail.THUMBNAIL) {  //plain ring instead of the gradient
+            double width = r - realInsideRadius;
+            double ringRadius = r - width/2;
+            Stroke stroke = g.getStroke();
+            g.setColor(bezelColor);
+            g.setStroke(new BasicStroke((float)width));
+            g.draw(new Ellipse2D.Double(-ringRadius, -ringRadius, 2*ringRadius, 2*ringRadius));
+            g.setStroke(stroke);
+            return;
+        }
+
+        Color[] colors = {new Color(0,0,0,0), new Color(0,0,0,0), bezelColor, Color.WHITE, bezelColor};
+        
+        RadialGradientPaint rgp = new RadialGradientPaint(new Point2D.Double(0,0), r, dist, colors, MultipleGradientPaint.CycleMethod.NO_CYCLE);
+        
+        Paint paint = g.getPaint();
+        g.setPaint(rgp);
+        g.fillOval(-r, -r, 2*r, 2*r);
+        g.setPaint(paint);
+       
+    }
+    
+    
+    protected void paintGaugeBackground(Graphics2D g) {
+        g.setColor(background);
+        int r = getOutsideRadius();
+
+        g.fillOval(-r, -r, 2*r, 2*r);
+        
+    }
+    
+    protected void drawDialCenter(Graphics2D g2d) {
+        //Draw Center of dial
+        double r = realInsideRadius/dialCenterDivider;
+        g2d.fill(new Ellipse2D.Double(-r/2, -r/2, r, r));
+    }
+    
+    /**
+     * Paint the static artwork beneath the needles (assumes translated to center of dial).  The default paints the background.
+     * @param g2d the graphics to paint on
+     */
+    protected void paintFace(Graphics2D g2d) {
+        paintGaugeBackground(g2d);
+    }
+    
+    /**
+     * Paint the content that changes with the gauge value (assumes translated to center of dial)
+     * @param g2d the graphics to paint on
+     */
+    protected void paintDynamic(Graphics2D g2d) {
+    }
+    
+    /**
+     * Paint the static artwork over the needles (assumes translated to center of dial).  The default paints the bezel.
+     * @param g2d the graphics to paint on
+     */
+    protected void paintOverlay(Graphics2D g2d) {
+        paintBezel(g2d);
+    }
+    
+    
+    /**
+     * Get the names of the parts of the dynamic layer that move as rigid artwork, such as needles, for export to clients that draw
+     * them once and move them with the transform of each update (see GaugeExport).  The default is none.
+     * @return the part names, which are used as SVG ids
+     */
+    protected String[] getPartNames() {
+        return NO_PARTS;
+    }
+    
+    /**
+     * Paint a part at rest, with no rotation or offset, the way paintDynamic() paints it (assumes translated to center of dial)
+     * @param g2d the graphics to paint on
+     * @param part the index of the part in getPartNames()
+     */
+    protected void paintPart(Graphics2D g2d, int part) {
+    }
+    
+    /**
+     * Get the clip of a part, which stays in place while the part moves
+     * @param part the index of the part
+     * @return the clip, or null for none
+     */
+    protected Shape getPartClip(int part) {
+        return null;
+    }
+    
+    /**
+     * Get the rotation of a part about the center of the dial, for the current state
+     * @param part the index of the part
+     * @return the rotation in radians, clockwise, or NaN if the part is hidden
+     */
+    protected double getPartRotation(int part) {
+        return 0;
+    }
+    
+    /**
+     * Get the offset of a part along its rotated y axis, applied after the rotation, for the current state
+     * @param part the index of the part
+     * @return the offset, positive is down
+     */
+    protected double getPartOffset(int part) {
+        return 0;
+    }
+    
+    /**
+     * Get the values of the current state, such as the speed, so clients can draw readouts
+     * @param values filled with the values, in the units of the gauge setters
+     * @return the number of values
+     */
+    protected int getStateValues(double[] values) {
+        return 0;
+    }
+    
+    
+    /**
+     * Record the face, the parts at rest, and the overlay into SVG groups
+     * @param svg the document
+     * @param width the width of the gauge
+     * @param height the height of the gauge
+     */
+    void exportLayers(SvgDocument svg, int width, int height) {
+        
+        this.width = width;
+        this.height = height;
+        outsideRadius = getOutsideRadius();
+        realInsideRadius = outsideRadius * dist[2];
+        frameDetail = chooseLevelOfDetail(outsideRadius);
+        
+        //Layer painters may restore to the center transform, which is the recording origin while recording
+        AffineTransform screenCenterTransform = centerGaugeTransform;
+        centerGaugeTransform = new AffineTransform();
+        RecordingGraphics2D rg = new RecordingGraphics2D(svg);
+        try {
+            configureGraphics(rg, true);
+            
+            svg.beginGroup("face", null);
+            if (hasStaticFace)
+                paintLayerContent(rg, true);
+            svg.endGroup(false);
+            
+            String[] parts = getPartNames();
+            for (int i=0; i<parts.length; i++) {
+                Shape clip = getPartClip(i);
+                svg.beginGroup(parts[i], clip);
+                Graphics2D pg = (Graphics2D)rg.create();
+                try {
+                    paintPart(pg, i);
+                } finally {
+                    pg.dispose();
+                }
+                svg.endGroup(clip != null);
+            }
+            
+            svg.beginGroup("overlay", null);
+            paintLayerContent(rg, false);
+            svg.endGroup(false);
+        } finally {
+            rg.dispose();
+            centerGaugeTransform = screenCenterTransform;
+        }
+    }
+    
+    /**
+     * Write the pose of each part and the state values for the current state, in the layout described by GaugeExport
+     * @param buffer the buffer to write to
+     */
+    void encodeState(ByteBuffer buffer) {
+        
+        int parts = getPartNames().length;
+        buffer.put((byte)parts);
+        for (int i=0; i<parts; i++) {
+            buffer.putFloat((float)Math.toDegrees(getPartRotation(i)));
+            buffer.putFloat((float)getPartOffset(i));
+        }
+        int count = getStateValues(stateValues);
+        buffer.put((byte)count);
+        for (int i=0; i<count; i++)
+            buffer.putFloat((float)stateValues[i]);
+    }
+    
+    
+    /**
+     * Paint the face, dynamic content, and overlay for the current state.  The gauge is centered in the area from the origin of the
+     * graphics to the width and height, and the transform of the graphics is restored when done.
+     * @param g2d the graphics to paint on
+     * @param width the width of the gauge, in the units of the graphics
+     * @param height the height of the gauge
+     */
+    public void paint(Graphics2D g2d, int width, int height) {
+        
+        long start = System.nanoTime();
+        this.width = width;
+        this.height = height;
+        
+        setupForPaint(g2d);
+        frameDetail = chooseLevelOfDetail(outsideRadius);
+        frameCacheMiss = false;
+        
+        if (hasStaticFace)
+            paintStaticLayer(g2d, getLayer(faceLayers, frameDetail), true);
+        
+        Graphics2D dg = (Graphics2D)g2d.create();  //so the dynamic painting can't leak state into the overlay
+        try {
+            paintDynamic(dg);
+        } finally {
+            dg.dispose();
+        }
+        
+        paintStaticLayer(g2d, getLayer(overlayLayers, frameDetail), false);
+        
+        completePaint(g2d);
+        updateDetailBudget(System.nanoTime() - start);
+    }
+    
+    
+    //Create a translucent volatile image, or return null if the pipeline can't accelerate it
+    VolatileImage createAcceleratedImage(GraphicsConfiguration gc, int width, int height) {
+        
+        VolatileImage image;
+        try {
+            image = gc.createCompatibleVolatileImage(width, height, Transparency.TRANSLUCENT);
+        } catch (UnsupportedOperationException | IllegalArgumentException ex) {
+            image = null;
+        }
+        
+        if (image == null || !image.getCapabilities().isAccelerated()) {
+            if (image != null)
+                image.flush();
+            acceleratedUnavailable = true;  //stop trying, and fall back to BufferedImages
+            return null;
+        }
+        return image;
+    }
+    
+    //True if the transform is only a scale and translation, so images can be blitted 1:1 to device pixels
+    static boolean isDeviceAligned(AffineTransform deviceTransform) {
+        return (deviceTransform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) == 0;
+    }
+    
+    static int devicePixels(int size, double scale) {
+        return Math.max(1, (int)Math.ceil(size * Math.abs(scale)));
+    }
+    
+    //Draw the image at the device pixel location of the origin, with no scaling.  The transform is left unchanged.
+    static void blit(Graphics2D g2d, Image image, AffineTransform deviceTransform) {
+        AffineTransform current = g2d.getTransform();
+        g2d.setTransform(AffineTransform.getTranslateInstance(Math.round(deviceTransform.getTranslateX()), Math.round(deviceTransform.getTranslateY())));
+        g2d.drawImage(image, 0, 0, null);
+        g2d.setTransform(current);
+    }
+    
+    
+    //Paint one of the static layers, from the cache if possible
+    private void paintStaticLayer(Graphics2D g2d, StaticLayer layer, boolean face) {
+        
+        AffineTransform deviceTransform = origTransform;
+        
+        if (staticLayerCache == StaticLayerCache.DISPLAY_LIST) {
+            paintDisplayList(g2d, layer, face);
+            return;
+        }
+        
+        if (staticLayerCache == StaticLayerCache.NONE || !isDeviceAligned(deviceTransform)) {
+            paintLayerContent(g2d, face);
+            g2d.setTransform(centerGaugeTransform);
+            return;
+        }
+        
+        double scaleX = deviceTransform.getScaleX();
+        double scaleY = deviceTransform.getScaleY();
+        
+        if (!layer.isValid(width, height, scaleX, scaleY)) {
+            renderLayer(layer, face, scaleX, scaleY);
+            frameCacheMiss = true;
+        }
+        
+        GraphicsConfiguration gc = getAcceleratedConfiguration();
+        VolatileImage accelerated = gc != null ? getAcceleratedCopy(layer, gc) : null;
+        
+        if (accelerated != null) {
+            blit(g2d, accelerated, deviceTransform);
+            if (accelerated.contentsLost())
+                layer.updateAccelerated(accelerated, false);  //refresh on the next paint
+        } else
+            blit(g2d, layer.getImage(), deviceTransform);
+        
+    }
+    
+    
+    //Replay the display list of the layer, recording it first if needed
+    private void paintDisplayList(Graphics2D g2d, StaticLayer layer, final boolean face) {
+        
+        DisplayList list = layer.getDisplayList(width, height);
+        
+        if (list == null) {
+            final int version = layer.getVersion();
+            
+            //Layer painters may restore to the center transform, which is the recording origin while recording
+            AffineTransform screenCenterTransform = centerGaugeTransform;
+            centerGaugeTransform = new AffineTransform();
+            try {
+                list = DisplayList.record(new DisplayList.Painter() {
+                    @Override
+                    public void paint(Graphics2D rg) {
+                        configureGraphics(rg, true);
+                        paintLayerContent(rg, face);
+                    }
+                });
+            } finally {
+                centerGaugeTransform = screenCenterTransform;
+            }
+            layer.updateDisplayList(list, width, height, version);
+            frameCacheMiss = true;
+        }
+        
+        Graphics2D lg = (Graphics2D)g2d.create();
+        try {
+            renderingProfile.applyStaticHints(lg);  //the list doesn't record hints, so it is replayed with these
+            list.replay(lg);
+        } finally {
+            lg.dispose();
+        }
+    }
+    
+    
+    //Get the volatile copy of the layer image, refreshing it if needed, or null if it can't be accelerated
+    private VolatileImage getAcceleratedCopy(StaticLayer layer, GraphicsConfiguration gc) {
+        
+        BufferedImage image = layer.getImage();
+        VolatileImage accelerated = layer.getAcceleratedImage();
+        
+        int status = accelerated == null ? VolatileImage.IMAGE_INCOMPATIBLE : accelerated.validate(gc);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE || accelerated.getWidth() != image.getWidth() || accelerated.getHeight() != image.getHeight()) {
+            layer.flushAccelerated();
+            accelerated = createAcceleratedImage(gc, image.getWidth(), image.getHeight());
+            if (accelerated == null)
+                return null;
+            status = VolatileImage.IMAGE_RESTORED;
+        }
+        
+        if (status == VolatileImage.IMAGE_RESTORED || !layer.isAcceleratedValid()) {
+            Graphics2D vg = accelerated.createGraphics();
+            vg.setComposite(AlphaComposite.Src);
+            vg.drawImage(image, 0, 0, null);
+            vg.dispose();
+            layer.updateAccelerated(accelerated, true);
+        }
+        return accelerated;
+    }
+    
+    
+    //Render the layer into an image at the device resolution
+    private void renderLayer(StaticLayer layer, boolean face, double scaleX, double scaleY) {
+
+        int pixelWidth = devicePixels(width, scaleX);
+        int pixelHeight = devicePixels(height, scaleY);
+        int version = layer.getVersion();
+        
+        GaugeAssetCache cache = assetCache;
+        byte[] key = null;
+        if (cache != null) {
+            key = keyLayer(face, pixelWidth, pixelHeight, scaleX, scaleY);
+            BufferedImage cached = cache.load(key, pixelWidth, pixelHeight);
+            if (cached != null) {
+                layer.update(cached, width, height, scaleX, scaleY, version);
+                return;
+            }
+        }
+        
+        BufferedImage image = layer.getImage();
+        if (image == null || image.getWidth() != pixelWidth || image.getHeight() != pixelHeight) {
+            GraphicsConfiguration gc = graphicsConfiguration;
+            image = gc != null ? gc.createCompatibleImage(pixelWidth, pixelHeight, Transparency.TRANSLUCENT) : new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        
+        Graphics2D ig = image.createGraphics();
+        ig.setComposite(AlphaComposite.Clear);
+        ig.fillRect(0, 0, pixelWidth, pixelHeight);
+        ig.setComposite(AlphaComposite.SrcOver);
+        
+        ig.scale(scaleX, scaleY);
+        configureGraphics(ig, true);
+        ig.translate(width/2, height/2);
+        
+        //Layer painters may restore to the center transform, which must be the one of the image while rendering
+        AffineTransform screenCenterTransform = centerGaugeTransform;
+        centerGaugeTransform = ig.getTransform();
+        try {
+            paintLayerContent(ig, face);
+        } finally {
+            centerGaugeTransform = screenCenterTransform;
+            ig.dispose();
+        }
+        
+        layer.update(image, width, height, scaleX, scaleY, version);
+        
+        if (cache != null)
+            cache.store(key, image);
+    }
+    
+    //Compute the asset cache key of the layer from the operations it paints, or null if they can't be hashed
+    private byte[] keyLayer(boolean face, int pixelWidth, int pixelHeight, double scaleX, double scaleY) {
+        
+        LayerDigest key = GaugeAssetCache.startKey(pixelWidth, pixelHeight, scaleX, scaleY);
+        if (key == null)
+            return null;  //the library build is unknown
+        key.add(width);  //the layer is rendered from the center, size / 2
+        key.add(height);
+        
+        //Layer painters may restore to the center transform, which is the recording origin while recording
+        AffineTransform screenCenterTransform = centerGaugeTransform;
+        centerGaugeTransform = new AffineTransform();
+        RecordingGraphics2D rg = new RecordingGraphics2D(key);
+        try {
+            configureGraphics(rg, true);
+            paintLayerContent(rg, face);
+        } finally {
+            rg.dispose();
+            centerGaugeTransform = screenCenterTransform;
+        }
+        return key.finish();
+    }
+    
+    private void paintLayerContent(Graphics2D g2d, boolean face) {
+        Graphics2D lg = (Graphics2D)g2d.create();  //so layer painters can't leak color, stroke or font changes
+        try {
+            renderingProfile.applyStaticHints(lg);  //when painted directly, the frame has the dynamic hints
+            if (face)
+                paintFace(lg);
+            else
+                paintOverlay(lg);
+        } finally {
+            lg.dispose();
+        }
+    }
+    
+    
+    //Set the rendering hints of the static or dynamic layers, and the font, which scales with the gauge size
+    private void configureGraphics(Graphics2D g2d, boolean staticLayer) {
+        if (staticLayer)
+            renderingProfile.applyStaticHints(g2d);
+        else
+            renderingProfile.applyDynamicHints(g2d);
+        g2d.setFont(getGaugeFont(outsideRadius));
+    }
+    
+    //The font for an outside radius, which scales with the gauge size
+    static Font getGaugeFont(int radius) {
+        return new Font("Arial", Font.PLAIN, (int)(6 + Math.round(radius/40.0)));
+    }
+    
+    protected void setupForPaint(Graphics2D g) {
+         
+        outsideRadius = getOutsideRadius();  //absolute outside radius which includes bezel
+        realInsideRadius = outsideRadius * dist[2];   //the actual inside radius of the bezel
+        
+     
+        Graphics2D g2d = (Graphics2D)g;        
+        configureGraphics(g2d, false);
+        
+        //Translate to center of the gauge circle (our new origin 0,0 from here on out)
+        origTransform = g2d.getTransform();
+        g2d.translate(width/2, height/2);  
+               
+        centerGaugeTransform = g2d.getTransform();
+    }
+    
+    
+    protected void completePaint(Graphics2D g) {
+        
+        g.setTransform(origTransform);
+    }
+    
+}
@@ -0,0 +1,289 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Image;
+import java.awt.LinearGradientPaint;
+import java.awt.MultipleGradientPaint;
+import java.awt.Paint;
+import java.awt.RadialGradientPaint;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes a SHA-256 digest of the operations recorded by a RecordingGraphics2D, which identifies what a layer looks like: any
+ * setting that changes the artwork, such as a color, label, or tick spacing, changes the shapes, paints, or text drawn and so the
+ * digest, without the gauges having to list their settings.  Geometry is hashed exactly, and text as glyph codes and positions
+ * with the font, which is much cheaper than recording it as an SVG or display list.
+ *
+ * Paints, strokes, and composites other than the ones the JDK provides, and images that aren't BufferedImages, can't be hashed by
+ * value.  A layer that draws with one is marked unhashable, and isn't cached on disk.
+ *
+ * @author kkieffer
+ */
+final class LayerDigest implements RecordingGraphics2D.Sink {
+
+    private static final RenderingHints.Key[] HINTS = {RenderingHints.KEY_ANTIALIASING, RenderingHints.KEY_TEXT_ANTIALIASING,
+                                                       RenderingHints.KEY_RENDERING, RenderingHints.KEY_STROKE_CONTROL,
+                                                       RenderingHints.KEY_INTERPOLATION, RenderingHints.KEY_FRACTIONALMETRICS,
+                                                       RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.KEY_COLOR_RENDERING};
+
+    private static final byte OP_SHAPE = 1;
+    private static final byte OP_GLYPHS = 2;
+    private static final byte OP_IMAGE = 3;
+
+    private final MessageDigest digest;
+    private final ByteBuffer buffer = ByteBuffer.allocate(8192);  //values are batched here before updating the digest
+    private final float[] coords = new float[6];
+    private boolean hashable = true;
+
+    LayerDigest() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {  //required of every Java platform
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Get the digest of everything added, after which the digest can't be used
+     * @return the digest, or null if an operation couldn't be hashed
+     */
+    byte[] finish() {
+        flush();
+        return hashable ? digest.digest() : null;
+    }
+
+    void add(int value) {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void add(double value) {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    void add(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        add(bytes.length);
+        flush();
+        digest.update(bytes);
+    }
+
+
+    @Override
+    public void shape(RecordingGraphics2D g, Shape shape, boolean fill) {
+        add(OP_SHAPE);
+        add(fill ? 1 : 0);
+        addPath(shape);
+        if (!fill)
+            addStroke(g.getStroke());
+        addState(g);
+    }
+
+    @Override
+    public void glyphs(RecordingGraphics2D g, GlyphVector glyphs, float x, float y) {
+        add(OP_GLYPHS);
+        addFont(glyphs.getFont());
+        int count = glyphs.getNumGlyphs();
+        add(count);
+        for (int code : glyphs.getGlyphCodes(0, count, null))
+            add(code);
+        for (float position : glyphs.getGlyphPositions(0, count + 1, null))
+            add(position);
+        add(x);
+        add(y);
+        addState(g);
+    }
+
+    @Override
+    public void image(RecordingGraphics2D g, Image image, AffineTransform xform) {
+        if (!(image instanceof BufferedImage)) {
+            hashable = false;
+            return;
+        }
+        BufferedImage bi = (BufferedImage)image;
+        add(OP_IMAGE);
+        add(bi.getWidth());
+        add(bi.getHeight());
+        int[] row = new int[bi.getWidth()];
+        for (int y=0; y<bi.getHeight(); y++) {
+            bi.getRGB(0, y, row.length, 1, row, 0, row.length);
+            for (int argb : row)
+                add(argb);
+        }
+        addTransform(xform);
+        addState(g);
+    }
+
+
+    //The transform, paint, composite, clip, and hints the operation is drawn with
+    private void addState(RecordingGraphics2D g) {
+        addTransform(g.getTransform());
+        addPaint(g.getPaint());
+        addComposite(g.getComposite());
+        Shape clip = g.getRecordingClip();
+        add(clip == null ? 0 : 1);
+        if (clip != null)
+            addPath(clip);
+        for (RenderingHints.Key key : HINTS) {
+            Object value = g.getRenderingHint(key);
+            add(value == null ? "" : value.toString());
+        }
+    }
+
+    private void addPath(Shape shape) {
+        PathIterator it = shape.getPathIterator(null);
+        add(it.getWindingRule());
+        for (; !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            add(type);
+            int count = type == PathIterator.SEG_CUBICTO ? 6 : type == PathIterator.SEG_QUADTO ? 4 : type == PathIterator.SEG_CLOSE ? 0 : 2;
+            for (int i=0; i<count; i++)
+                add(coords[i]);
+        }
+        add(-1);
+    }
+
+    private void addTransform(AffineTransform t) {
+        add(t.getScaleX());
+        add(t.getShearY());
+        add(t.getShearX());
+        add(t.getScaleY());
+        add(t.getTranslateX());
+        add(t.getTranslateY());
+    }
+
+    private void addPaint(Paint paint) {
+        if (paint instanceof Color) {
+            add(1);
+            add(((Color)paint).getRGB());
+        }
+        else if (paint instanceof GradientPaint) {
+            GradientPaint gp = (GradientPaint)paint;
+            add(2);
+            addPoint(gp.getPoint1());
+            addPoint(gp.getPoint2());
+            add(gp.getColor1().getRGB());
+            add(gp.getColor2().getRGB());
+            add(gp.isCyclic() ? 1 : 0);
+        }
+        else if (paint instanceof MultipleGradientPaint) {
+            MultipleGradientPaint mp = (MultipleGradientPaint)paint;
+            if (paint instanceof LinearGradientPaint) {
+                LinearGradientPaint lp = (LinearGradientPaint)paint;
+                add(3);
+                addPoint(lp.getStartPoint());
+                addPoint(lp.getEndPoint());
+            }
+            else if (paint instanceof RadialGradientPaint) {
+                RadialGradientPaint rp = (RadialGradientPaint)paint;
+                add(4);
+                addPoint(rp.getCenterPoint());
+                addPoint(rp.getFocusPoint());
+                add(rp.getRadius());
+            }
+            else {
+                hashable = false;
+                return;
+            }
+            float[] fractions = mp.getFractions();
+            Color[] colors = mp.getColors();
+            add(fractions.length);
+            for (int i=0; i<fractions.length; i++) {
+                add(fractions[i]);
+                add(colors[i].getRGB());
+            }
+            add(mp.getCycleMethod().ordinal());
+            add(mp.getColorSpace().ordinal());
+            addTransform(mp.getTransform());
+        }
+        else
+            hashable = false;
+    }
+
+    private void addStroke(Stroke stroke) {
+        if (!(stroke instanceof BasicStroke)) {
+            hashable = false;
+            return;
+        }
+        BasicStroke bs = (BasicStroke)stroke;
+        add(bs.getLineWidth());
+        add(bs.getEndCap());
+        add(bs.getLineJoin());
+        add(bs.getMiterLimit());
+        float[] dash = bs.getDashArray();
+        add(dash == null ? -1 : dash.length);
+        if (dash != null) {
+            for (float d : dash)
+                add(d);
+            add(bs.getDashPhase());
+        }
+    }
+
+    private void addComposite(Composite composite) {
+        if (!(composite instanceof AlphaComposite)) {
+            hashable = false;
+            return;
+        }
+        add(((AlphaComposite)composite).getRule());
+        add(((AlphaComposite)composite).getAlpha());
+    }
+
+    private void addFont(Font font) {
+        add(font.getFontName());
+        add(font.getStyle());
+        add(font.getSize2D());
+        addTransform(font.getTransform());
+    }
+
+    private void addPoint(Point2D p) {
+        add(p.getX());
+        add(p.getY());
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void flush() {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the minimum, maximum, and a held peak of a stream of samples, for display as markers on a gauge.  Samples can come from any
+ * number of threads at any rate: each accumulator is a compare-and-set on the bits of its value, so sampling never blocks or
+ * allocates, and samples that don't change an accumulator cost only a read.
+ *
+ * The held peak is the highest recent sample.  It is held for the hold time, then decays at the decay rate until a sample reaches it
+ * again.  It is kept as a float with the time it was set, packed into one long, so both update together.
+ *
+ * Non-finite samples are ignored.  Before any samples, the getters return NaN.
+ *
+ * @author kkieffer
+ */
+public class PeakHoldTracker {
+
+    private static final long MIN_EMPTY = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+    private static final long MAX_EMPTY = Double.doubleToLongBits(Double.NEGATIVE_INFINITY);
+    private static final long PEAK_EMPTY = pack(Float.NaN, 0);
+
+    private final long startNanos = System.nanoTime();  //origin of the peak times
+    private final AtomicLong min = new AtomicLong(MIN_EMPTY);
+    private final AtomicLong max = new AtomicLong(MAX_EMPTY);
+    private final AtomicLong peak = new AtomicLong(PEAK_EMPTY);  //float value in the high bits, millis since start in the low bits
+    private final LongAdder samples = new LongAdder();
+    private volatile long holdMillis;
+    private volatile double decayPerSecond;
+
+    /**
+     * Create a tracker
+     * @param holdMillis how long the peak is held before decaying
+     * @param decayPerSecond how fast the peak decays after the hold time, in sample units per second.  Zero holds the peak until
+     * reset or exceeded
+     */
+    public PeakHoldTracker(long holdMillis, double decayPerSecond) {
+        this.holdMillis = holdMillis;
+        this.decayPerSecond = decayPerSecond;
+    }
+
+    public void setHoldTime(long holdMillis) {
+        this.holdMillis = holdMillis;
+    }
+
+    public long getHoldTime() {
+        return holdMillis;
+    }
+
+    public void setDecayRate(double decayPerSecond) {
+        this.decayPerSecond = decayPerSecond;
+    }
+
+    public double getDecayRate() {
+        return decayPerSecond;
+    }
+
+    /**
+     * Add a sample
+     * @param value the sample, ignored if not finite
+     */
+    public void sample(double value) {
+
+        if (!Double.isFinite(value))
+            return;
+
+        samples.increment();
+
+        long bits;
+        while (value < Double.longBitsToDouble(bits = min.get()))
+            if (min.compareAndSet(bits, Double.doubleToLongBits(value)))
+                break;
+
+        while (value > Double.longBitsToDouble(bits = max.get()))
+            if (max.compareAndSet(bits, Double.doubleToLongBits(value)))
+                break;
+
+        //Raise the peak to the sample, or restart the hold when the sample reaches it, at most once per millisecond
+        int now = nowMillis();
+        float sample = (float)value;  //as held, so a steady sample compares equal to the peak it set
+        while (true) {
+            bits = peak.get();
+            float held = unpackValue(bits);
+            int time = unpackTime(bits);
+            if (!Float.isNaN(held)) {
+                double current = decay(held, time, now);
+                if (sample < current || (sample == current && time == now))
+                    break;
+            }
+            if (peak.compareAndSet(bits, pack(sample, now)))
+                break;
+        }
+    }
+
+    /**
+     * Clear the accumulators, as if no samples were added
+     */
+    public void reset() {
+        min.set(MIN_EMPTY);
+        max.set(MAX_EMPTY);
+        peak.set(PEAK_EMPTY);
+        samples.reset();
+    }
+
+    public double getMin() {
+        long bits = min.get();
+        return bits == MIN_EMPTY ? Double.NaN : Double.longBitsToDouble(bits);
+    }
+
+    public double getMax() {
+        long bits = max.get();
+        return bits == MAX_EMPTY ? Double.NaN : Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Get the held peak, decayed to the current time
+     * @return the peak
+     */
+    public double getPeak() {
+        long bits = peak.get();
+        float held = unpackValue(bits);
+        return Float.isNaN(held) ? Double.NaN : decay(held, unpackTime(bits), nowMillis());
+    }
+
+    /**
+     * @return the number of samples added since created or reset
+     */
+    public long getSampleCount() {
+        return samples.sum();
+    }
+
+    //The held value, less the decay since the hold time ended
+    private double decay(float held, int time, int now) {
+        long elapsed = (now - time) - holdMillis;
+        return elapsed <= 0 ? held : held - decayPerSecond * elapsed / 1000.0;
+    }
+
+    private int nowMillis() {
+        return (int)((System.nanoTime() - startNanos) / 1000000);
+    }
+
+    private static long pack(float value, int millis) {
+        return ((long)Float.floatToRawIntBits(value) << 32) | (millis & 0xFFFFFFFFL);
+    }
+
+    private static float unpackValue(long bits) {
+        return Float.intBitsToFloat((int)(bits >>> 32));
+    }
+
+    private static int unpackTime(long bits) {
+        return (int)bits;
+    }
+
+}
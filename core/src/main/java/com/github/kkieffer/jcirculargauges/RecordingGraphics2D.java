@@ -0,0 +1,545 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.util.Map;
+
+/**
+ * A Graphics2D that records drawing operations instead of rendering them, passing each one to a Sink.  Transforms, clip, paint, stroke,
+ * font, and hints are tracked by a Graphics2D on a small scratch image, so font metrics and state behave as they do when painting on
+ * screen.  All coordinates given to the sink are relative to the recording origin, which is where the recorder started (usually the
+ * gauge center).
+ * 
+ * Text is passed to the sink as glyph vectors, and the integer shape methods (drawLine, fillOval, etc) as their equivalent Shapes.
+ * 
+ * @author kkieffer
+ */
+final class RecordingGraphics2D extends Graphics2D {
+    
+    /**
+     * Receives the recorded operations.  The recorder is passed so the sink can query the current paint, stroke, composite,
+     * transform, and clip with getRecordingClip().
+     */
+    interface Sink {
+        
+        /**
+         * Draw (outline with the current stroke) or fill a shape
+         * @param g the recorder
+         * @param shape the shape in user space, to be transformed by the current transform
+         * @param fill true to fill, false to draw
+         */
+        void shape(RecordingGraphics2D g, Shape shape, boolean fill);
+        
+        /**
+         * Fill the glyphs of some text
+         * @param g the recorder
+         * @param glyphs the glyphs, in user space
+         * @param x the x location of the text baseline in user space
+         * @param y the y location of the text baseline in user space
+         */
+        void glyphs(RecordingGraphics2D g, GlyphVector glyphs, float x, float y);
+        
+        /**
+         * Draw an image
+         * @param g the recorder
+         * @param image the image
+         * @param xform the transform from image space to user space
+         */
+        void image(RecordingGraphics2D g, Image image, AffineTransform xform);
+    }
+    
+    private final Graphics2D state;
+    private final Sink sink;
+    private final BufferedImage scratch;
+    private Shape recordingClip;  //the clip in recording space, kept until the clip is changed
+    private boolean recordingClipValid;
+    
+    /**
+     * Create a recorder
+     * @param sink where to send the recorded operations
+     */
+    RecordingGraphics2D(Sink sink) {
+        this.sink = sink;
+        scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        state = scratch.createGraphics();
+    }
+    
+    private RecordingGraphics2D(RecordingGraphics2D parent) {
+        sink = parent.sink;
+        scratch = parent.scratch;
+        state = (Graphics2D)parent.state.create();
+        recordingClip = parent.recordingClip;  //same clip as the parent until either changes it
+        recordingClipValid = parent.recordingClipValid;
+    }
+    
+    /**
+     * Get the clip in recording space.  Transforms don't move the clip, so the same instance is returned until the clip is changed,
+     * and a sink can compare clips by reference.
+     * @return the clip, or null if there is none
+     */
+    Shape getRecordingClip() {
+        if (!recordingClipValid) {
+            Shape clip = state.getClip();
+            recordingClip = clip == null ? null : state.getTransform().createTransformedShape(clip);
+            recordingClipValid = true;
+        }
+        return recordingClip;
+    }
+    
+    
+    
+    // ---------- Drawing, passed to the sink
+    
+    @Override
+    public void draw(Shape s) {
+        sink.shape(this, s, false);
+    }
+
+    @Override
+    public void fill(Shape s) {
+        sink.shape(this, s, true);
+    }
+    
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        draw(new Line2D.Float(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        fill(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+        Paint paint = getPaint();
+        Composite composite = getComposite();
+        setPaint(getBackground());
+        setComposite(AlphaComposite.Src);
+        fillRect(x, y, width, height);
+        setComposite(composite);
+        setPaint(paint);
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        draw(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        fill(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        draw(new Ellipse2D.Float(x, y, width, height));
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        fill(new Ellipse2D.Float(x, y, width, height));
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        draw(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        fill(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+        if (nPoints <= 0)
+            return;
+        Path2D.Float path = new Path2D.Float();
+        path.moveTo(xPoints[0], yPoints[0]);
+        for (int i=1; i<nPoints; i++)
+            path.lineTo(xPoints[i], yPoints[i]);
+        draw(path);
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        draw(new Polygon(xPoints, yPoints, nPoints));
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        fill(new Polygon(xPoints, yPoints, nPoints));
+    }
+    
+    @Override
+    public void drawString(String str, int x, int y) {
+        drawString(str, (float)x, (float)y);
+    }
+
+    @Override
+    public void drawString(String str, float x, float y) {
+        if (str.isEmpty())
+            return;
+        drawGlyphVector(getFont().createGlyphVector(getFontRenderContext(), str), x, y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+        drawString(iterator, (float)x, (float)y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+        TextLayout layout = new TextLayout(iterator, getFontRenderContext());
+        fill(layout.getOutline(AffineTransform.getTranslateInstance(x, y)));
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector g, float x, float y) {
+        sink.glyphs(this, g, x, y);
+    }
+    
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+        sink.image(this, img, xform == null ? new AffineTransform() : new AffineTransform(xform));
+        return true;
+    }
+    
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+        BufferedImage filtered = op == null ? img : op.filter(img, null);
+        drawImage(filtered, x, y, null);
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+        if (img instanceof Image)
+            drawImage((Image)img, xform, null);
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+        drawRenderedImage(img.createDefaultRendering(), xform);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        return drawImage(img, AffineTransform.getTranslateInstance(x, y), observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+        int w = img.getWidth(observer);
+        int h = img.getHeight(observer);
+        if (w <= 0 || h <= 0)
+            return false;
+        AffineTransform xform = AffineTransform.getTranslateInstance(x, y);
+        xform.scale((double)width / w, (double)height / h);
+        return drawImage(img, xform, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        int w = img.getWidth(observer);
+        int h = img.getHeight(observer);
+        fillBackground(bgcolor, x, y, w, h);
+        return drawImage(img, x, y, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+        fillBackground(bgcolor, x, y, width, height);
+        return drawImage(img, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+        if (!(img instanceof BufferedImage) || sx2 <= sx1 || sy2 <= sy1)
+            return false;
+        BufferedImage source = ((BufferedImage)img).getSubimage(sx1, sy1, sx2 - sx1, sy2 - sy1);
+        return drawImage(source, dx1, dy1, dx2 - dx1, dy2 - dy1, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, Color bgcolor, ImageObserver observer) {
+        fillBackground(bgcolor, dx1, dy1, dx2 - dx1, dy2 - dy1);
+        return drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+    
+    private void fillBackground(Color bgcolor, int x, int y, int width, int height) {
+        if (bgcolor == null || width <= 0 || height <= 0)
+            return;
+        Paint paint = getPaint();
+        setPaint(bgcolor);
+        fillRect(x, y, width, height);
+        setPaint(paint);
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+        throw new UnsupportedOperationException("Recorded graphics have no pixels to copy");
+    }
+    
+    
+    
+    // ---------- State, tracked by the scratch graphics
+    
+    @Override
+    public Graphics create() {
+        return new RecordingGraphics2D(this);
+    }
+    
+    @Override
+    public void dispose() {
+        state.dispose();
+    }
+
+    @Override
+    public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+        return state.hit(rect, s, onStroke);
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return state.getDeviceConfiguration();
+    }
+
+    @Override
+    public void setComposite(Composite comp) {
+        state.setComposite(comp);
+    }
+
+    @Override
+    public Composite getComposite() {
+        return state.getComposite();
+    }
+
+    @Override
+    public void setPaint(Paint paint) {
+        state.setPaint(paint);
+    }
+
+    @Override
+    public Paint getPaint() {
+        return state.getPaint();
+    }
+
+    @Override
+    public void setColor(Color c) {
+        state.setColor(c);
+    }
+
+    @Override
+    public Color getColor() {
+        return state.getColor();
+    }
+
+    @Override
+    public void setPaintMode() {
+        state.setPaintMode();
+    }
+
+    @Override
+    public void setXORMode(Color c1) {
+        state.setXORMode(c1);
+    }
+
+    @Override
+    public void setBackground(Color color) {
+        state.setBackground(color);
+    }
+
+    @Override
+    public Color getBackground() {
+        return state.getBackground();
+    }
+
+    @Override
+    public void setStroke(Stroke s) {
+        state.setStroke(s);
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return state.getStroke();
+    }
+
+    @Override
+    public void setFont(Font font) {
+        state.setFont(font);
+    }
+
+    @Override
+    public Font getFont() {
+        return state.getFont();
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font f) {
+        return state.getFontMetrics(f);
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        return state.getFontRenderContext();
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+        state.setRenderingHint(hintKey, hintValue);
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key hintKey) {
+        return state.getRenderingHint(hintKey);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) {
+        state.setRenderingHints(hints);
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) {
+        state.addRenderingHints(hints);
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return state.getRenderingHints();
+    }
+
+    @Override
+    public void translate(int x, int y) {
+        state.translate(x, y);
+    }
+
+    @Override
+    public void translate(double tx, double ty) {
+        state.translate(tx, ty);
+    }
+
+    @Override
+    public void rotate(double theta) {
+        state.rotate(theta);
+    }
+
+    @Override
+    public void rotate(double theta, double x, double y) {
+        state.rotate(theta, x, y);
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        state.scale(sx, sy);
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        state.shear(shx, shy);
+    }
+
+    @Override
+    public void transform(AffineTransform tx) {
+        state.transform(tx);
+    }
+
+    @Override
+    public void setTransform(AffineTransform tx) {
+        state.setTransform(tx);
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return state.getTransform();
+    }
+
+    @Override
+    public void clip(Shape s) {
+        state.clip(s);
+        recordingClipValid = false;
+    }
+
+    @Override
+    public Shape getClip() {
+        return state.getClip();
+    }
+
+    @Override
+    public void setClip(Shape clip) {
+        state.setClip(clip);
+        recordingClipValid = false;
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        state.setClip(x, y, width, height);
+        recordingClipValid = false;
+    }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) {
+        state.clipRect(x, y, width, height);
+        recordingClipValid = false;
+    }
+
+    @Override
+    public Rectangle getClipBounds() {
+        return state.getClipBounds();
+    }
+    
+    @Override
+    public boolean hitClip(int x, int y, int width, int height) {
+        Shape clip = state.getClip();
+        return clip == null || clip.intersects(new Rectangle2D.Float(x, y, width, height));
+    }
+    
+}
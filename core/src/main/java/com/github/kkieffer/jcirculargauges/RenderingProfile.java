@@ -0,0 +1,163 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.util.Map;
+
+/**
+ * A named set of rendering hints for painting a gauge, with separate hints for the static layers (face and overlay) and the dynamic
+ * layer (needles, readouts).  The static layers are usually rendered once into the cache, so they can be painted at the highest
+ * quality for little cost, while the dynamic layer is painted on every frame and benefits most from faster hints.
+ * 
+ * DEFAULT is the antialiased, quality rendering the gauges have always used, leaving the other hints at the defaults of the
+ * Graphics.  SPEED, BALANCED, and QUALITY set every hint, from fastest to best looking.  Custom profiles are made with the constructor.
+ * Profiles are immutable and can be shared by any number of gauges.
+ *
+ * @author kkieffer
+ */
+public final class RenderingProfile {
+
+    private static final Object[] LEGACY = {
+        RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON,
+        RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY
+    };
+    
+    private static final Object[] FAST = {
+        RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF,
+        RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF,
+        RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED,
+        RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE,
+        RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR,
+        RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED,
+        RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED,
+        RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF
+    };
+    
+    private static final Object[] FAST_ANTIALIASED = {  //antialiased edges and text, with the cheaper settings for the rest
+        RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON,
+        RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON,
+        RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED,
+        RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE,
+        RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR,
+        RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED,
+        RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED,
+        RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF
+    };
+    
+    private static final Object[] BEST = {
+        RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON,
+        RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON,
+        RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY,
+        RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE,
+        RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC,
+        RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY,
+        RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY,
+        RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON
+    };
+    
+    /**
+     * Antialiased, quality rendering of both layers, with the other hints left at the defaults of the Graphics.  The default profile.
+     */
+    public static final RenderingProfile DEFAULT = new RenderingProfile("DEFAULT", hints(LEGACY), hints(LEGACY));
+    
+    /**
+     * No antialiasing and the fastest setting of every hint, for both layers
+     */
+    public static final RenderingProfile SPEED = new RenderingProfile("SPEED", hints(FAST), hints(FAST));
+    
+    /**
+     * The best setting of every hint for the static layers, which are rendered once, and antialiasing with otherwise fast settings
+     * for the dynamic layer
+     */
+    public static final RenderingProfile BALANCED = new RenderingProfile("BALANCED", hints(BEST), hints(FAST_ANTIALIASED));
+    
+    /**
+     * The best setting of every hint, for both layers
+     */
+    public static final RenderingProfile QUALITY = new RenderingProfile("QUALITY", hints(BEST), hints(BEST));
+    
+    private final String name;
+    private final RenderingHints staticHints;
+    private final RenderingHints dynamicHints;
+
+    /**
+     * Create a custom profile.  The hints are copied, and hints that aren't given keep the defaults of the Graphics painted to.
+     * @param name the name of the profile, for display
+     * @param staticHints the hints for the face and overlay
+     * @param dynamicHints the hints for the dynamic layer
+     */
+    public RenderingProfile(String name, Map<?, ?> staticHints, Map<?, ?> dynamicHints) {
+        this.name = name;
+        this.staticHints = new RenderingHints(null);
+        this.staticHints.putAll(staticHints);
+        this.dynamicHints = new RenderingHints(null);
+        this.dynamicHints.putAll(dynamicHints);
+    }
+    
+    private static RenderingHints hints(Object[] pairs) {
+        RenderingHints hints = new RenderingHints(null);
+        for (int i=0; i<pairs.length; i+=2)
+            hints.put(pairs[i], pairs[i+1]);
+        return hints;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the hints for the face and overlay
+     * @return a copy of the hints
+     */
+    public RenderingHints getStaticHints() {
+        return (RenderingHints)staticHints.clone();
+    }
+
+    /**
+     * Get the hints for the dynamic layer
+     * @return a copy of the hints
+     */
+    public RenderingHints getDynamicHints() {
+        return (RenderingHints)dynamicHints.clone();
+    }
+    
+    /**
+     * Set the static layer hints of the profile on a Graphics, leaving the others unchanged
+     * @param g2d the graphics
+     */
+    public void applyStaticHints(Graphics2D g2d) {
+        g2d.addRenderingHints(staticHints);
+    }
+    
+    /**
+     * Set the dynamic layer hints of the profile on a Graphics, leaving the others unchanged
+     * @param g2d the graphics
+     */
+    public void applyDynamicHints(Graphics2D g2d) {
+        g2d.addRenderingHints(dynamicHints);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+}
@@ -0,0 +1,53 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+package com.github.kkieffer.jcirculargauges;
+
+/**
+ * The state painted by a SpeedometerRenderer: one speed, with the values derived from it.  Immutable, so a SpeedModel can share one
+ * instance with all its views.
+ *
+ * @author kkieffer
+ */
+public final class SpeedValues {
+
+    final double speed;
+    final boolean valid;  //false for negative or non-finite speeds, which have no needle
+    final String readout;
+
+    /**
+     * Create the state
+     * @param speed the speed, in the units of the speedometer
+     */
+    public SpeedValues(double speed) {
+        this.speed = speed;
+        valid = Double.isFinite(speed) && speed >= 0;
+        readout = valid ? String.valueOf((int)Math.round(speed)) : "?";
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return false for negative or non-finite speeds, which are shown with no needle and a "?" readout
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+}
@@ -0,0 +1,509 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Paints a speedometer with numeric readout, from 0 some maximum value, with 0 pointing straight down.  Major ticks with integer labels are drawn at 20 degree increments,
+ * and minor ticks are drawn every 10 degrees if the gauge is sized large enough.  Fonts scale with gauge size.  Thumbnails, the lowest
+ * level of detail, draw no labels or readout.
+ *  
+ * The speed can be set between 0 and any value, but the needle will only go just above the maximum tick value, which is just over 140 degrees right of top
+ * The units of speed can be set as well as the major tick increment.
+ * 
+ * Setting the increment value determines the range of the gauge.   
+ * 
+ * The unit label is part of the cached face.  The readout only changes when the rounded speed does, so with the image cache it is
+ * drawn from a tile rendered at the device resolution, which is redrawn only when the readout changes, and getChangedBounds gives
+ * the area a view needs to repaint between two speeds.
+ *
+ * @author kkieffer
+ */
+public class SpeedometerRenderer extends GaugeRenderer {
+    
+    private static final int NUM_MAJOR_TICKS = 14;
+    private static final String[] PARTS = {"needle", "min", "max", "peak"};  //exported parts, see GaugeExport
+    private static final int NEEDLE_PART = 0;
+    private static final int MIN_PART = 1;
+    private static final int MAX_PART = 2;
+    private static final int PEAK_PART = 3;
+    
+    private double maxSpeed;
+    private String unit;
+    private SpeedValues values = new SpeedValues(0.0);
+    private Color indicatorColor;
+    private int tickIncrement;
+    private Color peakHoldColor = Color.RED;
+    private double minMarker = Double.NaN;  //NaN for none
+    private double maxMarker = Double.NaN;
+    private double peakMarker = Double.NaN;
+    
+    //The readout at the device resolution, with the text origin at a device pixel plus the fraction it was rendered with
+    private BufferedImage readoutTile;
+    private String tileReadout;
+    private Font tileFont;
+    private Color tileColor;
+    private double tileScaleX, tileScaleY, tileFractionX, tileFractionY;
+    private int tileLeft, tileTop;  //device pixels from the tile origin to the text origin
+    
+    private static final FontRenderContext READOUT_CONTEXT = new FontRenderContext(null, true, false);  //for the readout bounds
+    
+    /**
+     * Create the speedometer renderer
+     * @param increment the major tick increment
+     * @param unit the speed unit label
+     */
+    public SpeedometerRenderer(int increment, String unit) {
+        this.unit = unit;
+        indicatorColor = Color.BLACK;
+        dialCenterDivider = 14;
+        setIncrement(increment);
+        setDetailThreshold(LevelOfDetail.LOW, 100);  //20 unit major ticks from a radius of 100
+        setDetailThreshold(LevelOfDetail.MEDIUM, 151);  //minor ticks above a radius of 150
+    }
+    
+    public final void setIncrement(int increment) {
+        maxSpeed = increment * NUM_MAJOR_TICKS;
+        this.tickIncrement = increment;
+        invalidateStaticLayers();
+    }
+    
+    public int getTickIncrement() {
+        return tickIncrement;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+        invalidateStaticLayers();
+    }
+    
+    public String getUnit() {
+        return unit;
+    }
+   
+     /**
+     * Set the colors of the gauge
+     * @param indicator the needle and labels, marks.  If null, color is black
+     * @param bezelColor the gauge color, null for default
+     * @param background the gauge background color
+     */
+    public void setColors(Color indicator, Color bezelColor, Color background) {
+        indicatorColor = indicator == null ? Color.BLACK : indicator;
+        super.setColors(bezelColor, background);
+    }
+    
+    /**
+     * Set the speed to paint
+     * @param values the speed, which may be shared with a SpeedModel
+     */
+    public void setValues(SpeedValues values) {
+        this.values = values;
+    }
+    
+    /**
+     * Set the speed to paint, in terms of the units specified
+     * @param spd the speed
+     */
+    public void setSpeed(double spd) {
+        values = new SpeedValues(spd);
+    }
+    
+    public double getSpeed() {
+        return values.speed;
+    }
+    
+    /**
+     * Set the minimum, maximum, and peak hold markers, for instance from a PeakHoldTracker
+     * @param min the minimum, or NaN for no marker
+     * @param max the maximum, or NaN for no marker
+     * @param peak the peak hold, or NaN for no marker
+     */
+    public void setMarkers(double min, double max, double peak) {
+        minMarker = min;
+        maxMarker = max;
+        peakMarker = peak;
+    }
+    
+    /**
+     * Set the color of the peak hold marker.  The minimum and maximum use the indicator color.
+     * @param color the color, null for red
+     */
+    public void setPeakHoldColor(Color color) {
+        peakHoldColor = color == null ? Color.RED : color;
+    }
+    
+    //Angle of the needle for a speed, in degrees clockwise from up
+    private double speedToAngle(double speed) {
+       double angle = -180 + (280 * speed /maxSpeed );
+       if (angle > 110)
+           angle = 110; //slightly more to indicate over
+       return angle;
+    }
+    
+    private void drawNeedle(Graphics2D g2d, double angle, double radius, double tickLen) {
+
+       g2d.rotate(Math.toRadians(angle));
+       g2d.fill(getNeedle(realInsideRadius, radius, tickLen));
+       g2d.rotate(Math.toRadians(-angle));
+
+    }
+    
+    //The needle pointing up from the center
+    private static Path2D getNeedle(double insideRadius, double radius, double tickLen) {
+        
+       double width = insideRadius/20.0;
+        
+       Path2D path = new Path2D.Double();
+       path.moveTo(-width/2+1, 0);
+       path.lineTo(-1, radius + tickLen + 3);
+       path.lineTo(1, radius + tickLen + 3);
+       path.lineTo(width/2-1, 0);
+       path.closePath();
+       return path;
+    }
+    
+    //True if a min, max, or peak has a marker
+    private static boolean hasMarker(double speed) {
+        return Double.isFinite(speed) && speed >= 0;
+    }
+    
+    //Draw a marker as a small triangle at the dial edge pointing in to the angle, and a line to the ticks if it is the peak
+    private void drawMarker(Graphics2D g2d, double angle, double radius, double tickLen, boolean line) {
+        
+        g2d.rotate(angle);
+        
+        double size = tickLen / 2;
+        Path2D path = new Path2D.Double();
+        path.moveTo(0, radius + tickLen);
+        path.lineTo(-size/2, radius + tickLen + size);
+        path.lineTo(size/2, radius + tickLen + size);
+        path.closePath();
+        g2d.fill(path);
+        
+        if (line)
+            g2d.drawLine(0, (int)(radius + tickLen), 0, (int)(radius / 2));
+        
+        g2d.rotate(-angle);
+    }
+    
+    
+    //Radius where the ticks start, negative (up) from the center
+    private int getIndicatorRadius() {
+        return getIndicatorRadius(realInsideRadius);
+    }
+    
+    private static int getIndicatorRadius(double insideRadius) {
+        return (int)(-insideRadius + insideRadius/10.0);
+    }
+    
+    /**
+     * Get the area that changes between painting two speeds on a gauge of a size: the needle at both speeds and, if the rounded
+     * readout differs, both readouts.  Views repaint only this area when the speed changes; the markers are not included.
+     * @param from the speed painted last, not null
+     * @param to the speed to paint, not null
+     * @param width the width of the gauge
+     * @param height the height of the gauge
+     * @return the area in the coordinates of the gauge, which may be empty
+     */
+    public Rectangle getChangedBounds(SpeedValues from, SpeedValues to, int width, int height) {
+        
+        int radius = Math.min(width, height) / 2;
+        double insideRadius = getInsideRadius(radius);
+        Rectangle2D area = new Rectangle2D.Double();
+        
+        if (from.valid != to.valid || Double.compare(from.speed, to.speed) != 0) {
+            addNeedleBounds(area, from, insideRadius);
+            addNeedleBounds(area, to, insideRadius);
+        }
+        
+        if (!from.readout.equals(to.readout) && chooseLevelOfDetail(radius) != LevelOfDetail.THUMBNAIL) {
+            Font font = getGaugeFont(radius);
+            font = font.deriveFont((float)font.getSize()*4);
+            addReadoutBounds(area, from.readout, font, insideRadius);
+            addReadoutBounds(area, to.readout, font, insideRadius);
+        }
+        
+        if (area.isEmpty())
+            return new Rectangle();
+        
+        Rectangle bounds = area.getBounds();
+        bounds.grow(2, 2);  //for antialiasing and rounding to the device
+        bounds.translate(width/2, height/2);
+        return bounds;
+    }
+    
+    private void addNeedleBounds(Rectangle2D area, SpeedValues values, double insideRadius) {
+        if (!values.valid)
+            return;
+        int indicatorRadius = getIndicatorRadius(insideRadius);
+        Path2D needle = getNeedle(insideRadius, indicatorRadius, (int)(insideRadius + indicatorRadius));
+        needle.transform(AffineTransform.getRotateInstance(Math.toRadians(speedToAngle(values.speed))));
+        add(area, needle.getBounds2D());
+    }
+    
+    private static void addReadoutBounds(Rectangle2D area, String readout, Font font, double insideRadius) {
+        Rectangle2D text = font.getStringBounds(readout, READOUT_CONTEXT);
+        int x = (int)(insideRadius/2);
+        int y = (int)(insideRadius/2);
+        //Right aligned at the readout origin, with the full ascent and descent of the font, and a margin for other font metrics
+        add(area, new Rectangle2D.Double(x - text.getWidth() - 4, y + text.getY(), text.getWidth() + 5, text.getHeight()));
+    }
+    
+    private static void add(Rectangle2D area, Rectangle2D r) {
+        if (area.isEmpty())
+            area.setRect(r);
+        else
+            area.add(r);
+    }
+    
+    @Override
+    protected void paintFace(Graphics2D g2d) {
+        
+        this.paintGaugeBackground(g2d);
+
+        g2d.setColor(indicatorColor);
+        
+        LevelOfDetail detail = getLevelOfDetail();
+        
+        //Paint the unit, below the readout
+        if (detail != LevelOfDetail.THUMBNAIL) {
+            Font origFont = g2d.getFont();
+            g2d.setFont(origFont.deriveFont((float)origFont.getSize()*2));
+            int fontWidth = g2d.getFontMetrics().stringWidth(unit);
+            int unitFontHeight = g2d.getFontMetrics().getHeight();
+            g2d.drawString(unit, (int)(realInsideRadius/2) - fontWidth, (int)(realInsideRadius/2) + unitFontHeight);
+            g2d.setFont(origFont);
+        }
+        
+        int indicatorRadius = getIndicatorRadius();
+        int tickLength = (int)(realInsideRadius + indicatorRadius);
+        
+        double angle = -180;
+        g2d.rotate(Math.toRadians(angle));
+
+        double speedLabel = 0;        
+        int smallTick = 10;
+        
+        int majorTickIncrement = 20;
+        if (detail.compareTo(LevelOfDetail.LOW) < 0)
+            majorTickIncrement = 40;
+        
+        
+        //Draw the speed indicators and labels
+        for (int i=(int)angle; i<=100; i+=smallTick) {
+                        
+            
+            if ((i % majorTickIncrement) == 0) {  //major tick
+
+                int lineStart = indicatorRadius + tickLength; 
+
+                g2d.setStroke(new BasicStroke(4));  //thicker line
+                Font origFont = g2d.getFont();
+                Font largeFont = origFont.deriveFont((float)origFont.getSize()*1.3f);
+                g2d.setFont(largeFont);
+                String label = String.valueOf((int)Math.round(speedLabel));
+                int fontWidth = g2d.getFontMetrics().stringWidth(label);
+                int fontHeight = g2d.getFontMetrics().getHeight();
+
+                if (detail != LevelOfDetail.THUMBNAIL) {
+                    AffineTransform a = g2d.getTransform();
+                    g2d.translate(fontWidth/2 + 8, indicatorRadius + tickLength/4);  //to desired location next to tick
+                    g2d.rotate(Math.toRadians(-angle)); //so text is upright
+                    g2d.translate(-fontWidth/2, fontHeight/2); //to left of text
+                    g2d.drawString(label, 0, 0);
+                    g2d.setTransform(a);
+                }
+                
+              
+                g2d.drawLine(0, lineStart, 0, (int)-realInsideRadius);
+                g2d.setStroke(new BasicStroke(1));  
+                g2d.setFont(origFont);
+                speedLabel += tickIncrement;
+
+            }
+            else if (detail.compareTo(LevelOfDetail.MEDIUM) >= 0) //draw minor tick, if large enough
+                g2d.drawLine(0, indicatorRadius - tickLength/2, 0, (int)-realInsideRadius);         
+           
+            
+            g2d.rotate(Math.toRadians(smallTick));
+            angle+= smallTick;
+
+        }
+        
+    }
+    
+    
+    @Override
+    protected void paintDynamic(Graphics2D g2d) {
+        
+        g2d.setColor(indicatorColor);
+        
+        int indicatorRadius = getIndicatorRadius();
+        int tickLength = (int)(realInsideRadius + indicatorRadius);
+        
+        //Markers under the needle, except in thumbnails
+        if (getLevelOfDetail() != LevelOfDetail.THUMBNAIL) {
+            if (hasMarker(minMarker))
+                drawMarker(g2d, Math.toRadians(speedToAngle(minMarker)), indicatorRadius, tickLength, false);
+            if (hasMarker(maxMarker))
+                drawMarker(g2d, Math.toRadians(speedToAngle(maxMarker)), indicatorRadius, tickLength, false);
+            g2d.setColor(peakHoldColor);
+            if (hasMarker(peakMarker))
+                drawMarker(g2d, Math.toRadians(speedToAngle(peakMarker)), indicatorRadius, tickLength, true);
+            g2d.setColor(indicatorColor);
+        }
+        
+        if (values.valid)
+            drawNeedle(g2d, speedToAngle(values.speed), indicatorRadius, tickLength);
+        
+        if (getLevelOfDetail() == LevelOfDetail.THUMBNAIL)  //too small for the readout
+            return;
+         
+        //Paint the value
+        Font origFont = g2d.getFont();
+        Font largeFont = origFont.deriveFont((float)origFont.getSize()*4);
+        g2d.translate((int)(realInsideRadius/2), (int)(realInsideRadius/2));
+        
+        if (getStaticLayerCache() == StaticLayerCache.IMAGE && isDeviceAligned(g2d.getTransform()))
+            paintReadoutTile(g2d, largeFont);
+        else {
+            g2d.setFont(largeFont);
+            int fontWidth = g2d.getFontMetrics().stringWidth(values.readout);
+            g2d.drawString(values.readout, -fontWidth, 0);
+            g2d.setFont(origFont);
+        }
+        
+    }
+    
+    //Draw the readout, right aligned at the origin, from a tile that is only rendered again when the readout changes
+    private void paintReadoutTile(Graphics2D g2d, Font font) {
+        
+        AffineTransform transform = g2d.getTransform();
+        double scaleX = transform.getScaleX();
+        double scaleY = transform.getScaleY();
+        double originX = Math.floor(transform.getTranslateX());
+        double originY = Math.floor(transform.getTranslateY());
+        double fractionX = transform.getTranslateX() - originX;
+        double fractionY = transform.getTranslateY() - originY;
+        
+        if (readoutTile == null || !values.readout.equals(tileReadout) || !font.equals(tileFont) || !indicatorColor.equals(tileColor) ||
+                tileScaleX != scaleX || tileScaleY != scaleY || tileFractionX != fractionX || tileFractionY != fractionY) {
+            
+            g2d.setFont(font);
+            FontMetrics fm = g2d.getFontMetrics();
+            int fontWidth = fm.stringWidth(values.readout);
+            
+            //Whole device pixels around the text, with a margin for antialiasing
+            tileLeft = (int)Math.ceil((fontWidth + 2) * Math.abs(scaleX)) + 1;
+            tileTop = (int)Math.ceil((fm.getAscent() + 2) * Math.abs(scaleY)) + 1;
+            int right = (int)Math.ceil(2 * Math.abs(scaleX)) + 1;
+            int bottom = (int)Math.ceil((fm.getDescent() + 2) * Math.abs(scaleY)) + 1;
+            
+            if (readoutTile != null)
+                readoutTile.flush();
+            readoutTile = new BufferedImage(tileLeft + right, tileTop + bottom, BufferedImage.TYPE_INT_ARGB_PRE);
+            
+            Graphics2D tg = readoutTile.createGraphics();
+            tg.setRenderingHints(g2d.getRenderingHints());
+            tg.setFont(font);
+            tg.setColor(indicatorColor);
+            tg.translate(tileLeft + fractionX, tileTop + fractionY);  //the text lands on the same subpixels as drawn directly
+            tg.scale(scaleX, scaleY);
+            tg.drawString(values.readout, -fontWidth, 0);
+            tg.dispose();
+            
+            tileReadout = values.readout;
+            tileFont = font;
+            tileColor = indicatorColor;
+            tileScaleX = scaleX;
+            tileScaleY = scaleY;
+            tileFractionX = fractionX;
+            tileFractionY = fractionY;
+        }
+        
+        blit(g2d, readoutTile, AffineTransform.getTranslateInstance(originX - tileLeft, originY - tileTop));
+    }
+    
+    
+    @Override
+    protected String[] getPartNames() {
+        return PARTS;
+    }
+    
+    @Override
+    protected void paintPart(Graphics2D g2d, int part) {
+        
+        int indicatorRadius = getIndicatorRadius();
+        int tickLength = (int)(realInsideRadius + indicatorRadius);
+        
+        g2d.setColor(part == PEAK_PART ? peakHoldColor : indicatorColor);
+        if (part == NEEDLE_PART)
+            drawNeedle(g2d, 0, indicatorRadius, tickLength);
+        else if (getLevelOfDetail() != LevelOfDetail.THUMBNAIL)
+            drawMarker(g2d, 0, indicatorRadius, tickLength, part == PEAK_PART);
+    }
+    
+    @Override
+    protected double getPartRotation(int part) {
+        switch (part) {
+            case NEEDLE_PART:
+                return values.valid ? Math.toRadians(speedToAngle(values.speed)) : Double.NaN;
+            case MIN_PART:
+                return hasMarker(minMarker) ? Math.toRadians(speedToAngle(minMarker)) : Double.NaN;
+            case MAX_PART:
+                return hasMarker(maxMarker) ? Math.toRadians(speedToAngle(maxMarker)) : Double.NaN;
+            default:
+                return hasMarker(peakMarker) ? Math.toRadians(speedToAngle(peakMarker)) : Double.NaN;
+        }
+    }
+    
+    @Override
+    protected int getStateValues(double[] values) {
+        values[0] = this.values.valid ? this.values.speed : Double.NaN;
+        return 1;
+    }
+    
+    
+    @Override
+    protected void paintOverlay(Graphics2D g2d) {
+           
+        //Draw Center of dial
+        g2d.setColor(indicatorColor);
+        drawDialCenter(g2d);
+
+        //Now paint the bezel
+        paintBezel(g2d);
+    }
+
+    
+    
+    
+       
+}
@@ -0,0 +1,164 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Holds the cached image of one static gauge layer, along with the key it was rendered for: the component size and the
+ * device scale of the Graphics it is blitted to.  Alternatively holds the layer as a display list, which only depends on the size.  When accelerated buffering is on, the image is also copied into a VolatileImage,
+ * which is refreshed from the image whenever its contents are lost.
+ * 
+ * Invalidation increments a version rather than clearing a flag, so an image that was being rendered on the background render
+ * thread while the layer was invalidated is not mistaken for a current one.
+ * 
+ * @author kkieffer
+ */
+final class StaticLayer {
+    
+    private BufferedImage image;
+    private int width;
+    private int height;
+    private double scaleX;
+    private double scaleY;
+    private volatile int version;
+    private int renderedVersion = -1;
+    private VolatileImage acceleratedImage;
+    private DisplayList displayList;
+    private int listWidth;
+    private int listHeight;
+    private int listVersion = -1;
+    private boolean acceleratedValid;
+    
+    /**
+     * Check if the cached image can be used
+     * @param width the component width
+     * @param height the component height
+     * @param scaleX the device scale in x
+     * @param scaleY the device scale in y
+     * @return true if the image was rendered for these parameters and has not been invalidated
+     */
+    boolean isValid(int width, int height, double scaleX, double scaleY) {
+        return renderedVersion == version && image != null && this.width == width && this.height == height && this.scaleX == scaleX && this.scaleY == scaleY;
+    }
+    
+    void invalidate() {
+        version++;
+    }
+    
+    /**
+     * Get the current version, to be passed to update() when rendering completes
+     * @return the version
+     */
+    int getVersion() {
+        return version;
+    }
+    
+    /**
+     * Get the last rendered image, which may be reused for rendering if it is the right size
+     * @return the image, or null if never rendered
+     */
+    BufferedImage getImage() {
+        return image;
+    }
+    
+    void update(BufferedImage image, int width, int height, double scaleX, double scaleY, int renderedVersion) {
+        this.image = image;
+        this.width = width;
+        this.height = height;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.renderedVersion = renderedVersion;
+        acceleratedValid = false;
+    }
+    
+    /**
+     * Get the display list, if it was recorded for the size and has not been invalidated
+     * @param width the component width
+     * @param height the component height
+     * @return the list, or null if it must be recorded
+     */
+    DisplayList getDisplayList(int width, int height) {
+        return listVersion == version && listWidth == width && listHeight == height ? displayList : null;
+    }
+    
+    void updateDisplayList(DisplayList displayList, int width, int height, int recordedVersion) {
+        this.displayList = displayList;
+        this.listWidth = width;
+        this.listHeight = height;
+        this.listVersion = recordedVersion;
+    }
+    
+    /**
+     * Get the approximate memory held by the image and display list
+     * @return the size in bytes
+     */
+    long getFootprint() {
+        long bytes = 0;
+        if (image != null)
+            bytes += 4L * image.getWidth() * image.getHeight();
+        if (displayList != null)
+            bytes += displayList.getFootprint();
+        return bytes;
+    }
+    
+    /**
+     * Release the image and display list, which are no longer being used
+     */
+    void release() {
+        image = null;
+        renderedVersion = -1;
+        displayList = null;
+        listVersion = -1;
+        flushAccelerated();
+    }
+    
+    /**
+     * Get the accelerated copy of the image
+     * @return the copy, or null if there is none
+     */
+    VolatileImage getAcceleratedImage() {
+        return acceleratedImage;
+    }
+    
+    /**
+     * Check if the accelerated copy holds the current image.  The caller must still validate it against the GraphicsConfiguration.
+     * @return true if the copy is up to date
+     */
+    boolean isAcceleratedValid() {
+        return acceleratedValid && acceleratedImage != null;
+    }
+    
+    void updateAccelerated(VolatileImage acceleratedImage, boolean valid) {
+        this.acceleratedImage = acceleratedImage;
+        this.acceleratedValid = valid;
+    }
+    
+    /**
+     * Release the accelerated copy
+     */
+    void flushAccelerated() {
+        if (acceleratedImage != null)
+            acceleratedImage.flush();
+        acceleratedImage = null;
+        acceleratedValid = false;
+    }
+    
+}
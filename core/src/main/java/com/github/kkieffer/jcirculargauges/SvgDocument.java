@@ -0,0 +1,341 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.GradientPaint;
+import java.awt.Image;
+import java.awt.LinearGradientPaint;
+import java.awt.MultipleGradientPaint;
+import java.awt.Paint;
+import java.awt.RadialGradientPaint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ * Builds an SVG document from the operations recorded by a RecordingGraphics2D.  Coordinates are in recording space, so a gauge
+ * recorded from its center has its center at the SVG origin.
+ *
+ * Shapes are written as paths with the transform multiplied in.  Outlines with a BasicStroke under a transform that doesn't scale
+ * are written as SVG strokes, all others as filled stroke outlines, as the display list does.  Text is written as glyph outlines, so
+ * the document looks the same without the gauge fonts.  Gradient paints become SVG gradients, and clips become clip paths, each
+ * distinct clip defined once.
+ *
+ * @author kkieffer
+ */
+final class SvgDocument implements RecordingGraphics2D.Sink {
+
+    private final StringBuilder defs = new StringBuilder();
+    private final StringBuilder body = new StringBuilder();
+    private final Map<String, String> clipIds = new HashMap<>();  //path data to clip path id
+    private int nextId;
+    private IOException error;  //the first image that couldn't be encoded, thrown when the document is built
+
+    /**
+     * Start a group
+     * @param id the id of the group
+     * @param clip a clip applied to the group, which doesn't move with transforms a client sets on the group, or null
+     */
+    void beginGroup(String id, Shape clip) {
+        if (clip != null)
+            body.append("<g clip-path=\"url(#").append(clipId(clip)).append(")\">");
+        body.append("<g id=\"").append(id).append("\">\n");
+    }
+
+    /**
+     * End a group
+     * @param clipped true if the group was started with a clip
+     */
+    void endGroup(boolean clipped) {
+        body.append(clipped ? "</g></g>\n" : "</g>\n");
+    }
+
+    /**
+     * Get the document
+     * @param width the width of the view box
+     * @param height the height of the view box
+     * @return the document, with the origin in the center of the view box
+     * @throws IOException if an image of the document couldn't be encoded
+     */
+    String toString(int width, int height) throws IOException {
+        if (error != null)
+            throw error;
+        StringBuilder svg = new StringBuilder(defs.length() + body.length() + 256);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"").append(width)
+           .append("\" height=\"").append(height).append("\" viewBox=\"").append(num(-width/2.0)).append(' ').append(num(-height/2.0))
+           .append(' ').append(width).append(' ').append(height).append("\">\n");
+        if (defs.length() > 0)
+            svg.append("<defs>\n").append(defs).append("</defs>\n");
+        svg.append(body).append("</svg>\n");
+        return svg.toString();
+    }
+
+
+    @Override
+    public void shape(RecordingGraphics2D g, Shape shape, boolean fill) {
+
+        AffineTransform transform = g.getTransform();
+        Stroke stroke = g.getStroke();
+        boolean rigid = (transform.getType() & (AffineTransform.TYPE_MASK_SCALE | AffineTransform.TYPE_FLIP | AffineTransform.TYPE_GENERAL_TRANSFORM)) == 0;
+
+        if (!fill && !(rigid && stroke instanceof BasicStroke)) {
+            shape = stroke.createStrokedShape(shape);
+            fill = true;
+        }
+
+        body.append("<path d=\"");
+        appendPath(shape, transform);
+        body.append('"');
+        if (fill) {
+            appendPaint(g, "fill", transform);
+        } else {
+            body.append(" fill=\"none\"");
+            appendPaint(g, "stroke", transform);
+            appendStroke((BasicStroke)stroke);
+        }
+        appendCompositeAndClip(g);
+        body.append("/>\n");
+    }
+
+    @Override
+    public void glyphs(RecordingGraphics2D g, GlyphVector glyphs, float x, float y) {
+        AffineTransform transform = g.getTransform();
+        body.append("<path d=\"");
+        appendPath(glyphs.getOutline(x, y), transform);
+        body.append('"');
+        appendPaint(g, "fill", transform);
+        appendCompositeAndClip(g);
+        body.append("/>\n");
+    }
+
+    @Override
+    public void image(RecordingGraphics2D g, Image image, AffineTransform xform) {
+
+        int width = image.getWidth(null);
+        int height = image.getHeight(null);
+        if (width <= 0 || height <= 0)
+            return;
+
+        BufferedImage bi = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        bi.createGraphics().drawImage(image, 0, 0, null);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(bi, "png", png);
+        } catch (IOException ex) {  //the sink can't throw, so the document does when it is built
+            if (error == null)
+                error = ex;
+            return;
+        }
+
+        AffineTransform t = g.getTransform();
+        t.concatenate(xform);
+        body.append("<image width=\"").append(width).append("\" height=\"").append(height).append('"');
+        appendTransform(t);
+        body.append(" xlink:href=\"data:image/png;base64,").append(Base64.getEncoder().encodeToString(png.toByteArray())).append('"');
+        appendCompositeAndClip(g);
+        body.append("/>\n");
+    }
+
+
+    private void appendPath(Shape shape, AffineTransform transform) {
+        appendPath(body, shape, transform);
+    }
+
+    private static void appendPath(StringBuilder sb, Shape shape, AffineTransform transform) {
+        float[] c = new float[6];
+        for (PathIterator it = shape.getPathIterator(transform); !it.isDone(); it.next()) {
+            switch (it.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    sb.append('M').append(num(c[0])).append(' ').append(num(c[1]));
+                    break;
+                case PathIterator.SEG_LINETO:
+                    sb.append('L').append(num(c[0])).append(' ').append(num(c[1]));
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    sb.append('Q').append(num(c[0])).append(' ').append(num(c[1])).append(' ').append(num(c[2])).append(' ').append(num(c[3]));
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    sb.append('C').append(num(c[0])).append(' ').append(num(c[1])).append(' ').append(num(c[2])).append(' ').append(num(c[3]))
+                      .append(' ').append(num(c[4])).append(' ').append(num(c[5]));
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    sb.append('Z');
+                    break;
+            }
+        }
+    }
+
+    //Set the attribute to the paint, a color or gradient, which is in the user space of the transform
+    private void appendPaint(RecordingGraphics2D g, String attribute, AffineTransform transform) {
+        Paint paint = g.getPaint();
+        if (paint instanceof Color) {
+            Color c = (Color)paint;
+            body.append(' ').append(attribute).append("=\"").append(hex(c)).append('"');
+            if (c.getAlpha() < 255)
+                body.append(' ').append(attribute).append("-opacity=\"").append(num(c.getAlpha() / 255.0)).append('"');
+        }
+        else
+            body.append(' ').append(attribute).append("=\"url(#").append(gradientId(paint, transform)).append(")\"");
+    }
+
+    private void appendStroke(BasicStroke stroke) {
+        body.append(" stroke-width=\"").append(num(stroke.getLineWidth())).append('"');
+        if (stroke.getEndCap() != BasicStroke.CAP_BUTT)
+            body.append(" stroke-linecap=\"").append(stroke.getEndCap() == BasicStroke.CAP_ROUND ? "round" : "square").append('"');
+        if (stroke.getLineJoin() != BasicStroke.JOIN_MITER)
+            body.append(" stroke-linejoin=\"").append(stroke.getLineJoin() == BasicStroke.JOIN_ROUND ? "round" : "bevel").append('"');
+        else if (stroke.getMiterLimit() != 4)
+            body.append(" stroke-miterlimit=\"").append(num(stroke.getMiterLimit())).append('"');
+        float[] dash = stroke.getDashArray();
+        if (dash != null) {
+            body.append(" stroke-dasharray=\"");
+            for (int i=0; i<dash.length; i++)
+                body.append(i == 0 ? "" : " ").append(num(dash[i]));
+            body.append('"');
+            if (stroke.getDashPhase() != 0)
+                body.append(" stroke-dashoffset=\"").append(num(stroke.getDashPhase())).append('"');
+        }
+    }
+
+    private void appendCompositeAndClip(RecordingGraphics2D g) {
+        Composite composite = g.getComposite();
+        if (composite instanceof AlphaComposite && ((AlphaComposite)composite).getAlpha() < 1)
+            body.append(" opacity=\"").append(num(((AlphaComposite)composite).getAlpha())).append('"');
+        Shape clip = g.getRecordingClip();
+        if (clip != null)
+            body.append(" clip-path=\"url(#").append(clipId(clip)).append(")\"");
+    }
+
+    private void appendTransform(AffineTransform t) {
+        if (!t.isIdentity())
+            body.append(" transform=\"matrix(").append(num(t.getScaleX())).append(' ').append(num(t.getShearY())).append(' ')
+                .append(num(t.getShearX())).append(' ').append(num(t.getScaleY())).append(' ').append(num(t.getTranslateX())).append(' ')
+                .append(num(t.getTranslateY())).append(")\"");
+    }
+
+    //Define the clip path once, identified by its path data
+    private String clipId(Shape clip) {
+        StringBuilder d = new StringBuilder();
+        appendPath(d, clip, null);
+        String id = clipIds.get(d.toString());
+        if (id == null) {
+            id = "clip" + nextId++;
+            clipIds.put(d.toString(), id);
+            defs.append("<clipPath id=\"").append(id).append("\"><path d=\"").append(d).append("\"/></clipPath>\n");
+        }
+        return id;
+    }
+
+    //Define a gradient for the paint in the user space of the transform.  Paints that aren't gradients are approximated by a gray.
+    private String gradientId(Paint paint, AffineTransform transform) {
+
+        String id = "paint" + nextId++;
+
+        StringBuilder t = new StringBuilder();
+        if (!transform.isIdentity())
+            t.append(" gradientTransform=\"matrix(").append(num(transform.getScaleX())).append(' ').append(num(transform.getShearY())).append(' ')
+             .append(num(transform.getShearX())).append(' ').append(num(transform.getScaleY())).append(' ').append(num(transform.getTranslateX()))
+             .append(' ').append(num(transform.getTranslateY())).append(")\"");
+
+        if (paint instanceof RadialGradientPaint) {
+            RadialGradientPaint r = (RadialGradientPaint)paint;
+            Point2D c = r.getCenterPoint();
+            Point2D f = r.getFocusPoint();
+            defs.append("<radialGradient id=\"").append(id).append("\" gradientUnits=\"userSpaceOnUse\" cx=\"").append(num(c.getX())).append("\" cy=\"")
+                .append(num(c.getY())).append("\" r=\"").append(num(r.getRadius())).append("\" fx=\"").append(num(f.getX())).append("\" fy=\"")
+                .append(num(f.getY())).append('"').append(t).append(spread(r)).append(">\n");
+            appendStops(r.getFractions(), r.getColors());
+            defs.append("</radialGradient>\n");
+        }
+        else if (paint instanceof LinearGradientPaint) {
+            LinearGradientPaint l = (LinearGradientPaint)paint;
+            appendLinearGradient(id, l.getStartPoint(), l.getEndPoint(), t, spread(l), l.getFractions(), l.getColors());
+        }
+        else if (paint instanceof GradientPaint) {
+            GradientPaint gp = (GradientPaint)paint;
+            appendLinearGradient(id, gp.getPoint1(), gp.getPoint2(), t, gp.isCyclic() ? " spreadMethod=\"reflect\"" : "",
+                                 new float[]{0, 1}, new Color[]{gp.getColor1(), gp.getColor2()});
+        }
+        else
+            appendLinearGradient(id, new Point2D.Double(0, 0), new Point2D.Double(1, 0), t, "", new float[]{0}, new Color[]{Color.GRAY});
+
+        return id;
+    }
+
+    private void appendLinearGradient(String id, Point2D p1, Point2D p2, StringBuilder transform, String spread, float[] fractions, Color[] colors) {
+        defs.append("<linearGradient id=\"").append(id).append("\" gradientUnits=\"userSpaceOnUse\" x1=\"").append(num(p1.getX())).append("\" y1=\"")
+            .append(num(p1.getY())).append("\" x2=\"").append(num(p2.getX())).append("\" y2=\"").append(num(p2.getY())).append('"')
+            .append(transform).append(spread).append(">\n");
+        appendStops(fractions, colors);
+        defs.append("</linearGradient>\n");
+    }
+
+    private void appendStops(float[] fractions, Color[] colors) {
+        for (int i=0; i<fractions.length; i++) {
+            defs.append("<stop offset=\"").append(num(fractions[i])).append("\" stop-color=\"").append(hex(colors[i])).append('"');
+            if (colors[i].getAlpha() < 255)
+                defs.append(" stop-opacity=\"").append(num(colors[i].getAlpha() / 255.0)).append('"');
+            defs.append("/>\n");
+        }
+    }
+
+    private static String spread(MultipleGradientPaint paint) {
+        switch (paint.getCycleMethod()) {
+            case REFLECT:
+                return " spreadMethod=\"reflect\"";
+            case REPEAT:
+                return " spreadMethod=\"repeat\"";
+            default:
+                return "";
+        }
+    }
+
+    private static String hex(Color c) {
+        return String.format("#%02x%02x%02x", c.getRed(), c.getGreen(), c.getBlue());
+    }
+
+    //A number with at most two decimals and no trailing zeros
+    private static String num(double v) {
+        long hundredths = Math.round(v * 100);
+        if (hundredths % 100 == 0)
+            return String.valueOf(hundredths / 100);
+        String s = String.valueOf(Math.abs(hundredths));
+        while (s.length() < 3)
+            s = "0" + s;
+        String fraction = s.substring(s.length() - 2);
+        if (fraction.endsWith("0"))
+            fraction = fraction.substring(0, 1);
+        return (hundredths < 0 ? "-" : "") + s.substring(0, s.length() - 2) + "." + fraction;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import com.github.kkieffer.accessorygauges.SegmentGaugeRenderer;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Paints each renderer of the core module into a PNG, with its state set explicitly and no Swing component, the way a server or a
+ * non-Swing toolkit would use them.  Running with -verbose:class shows that no javax.swing class is loaded.  Runs headless, from the
+ * core directory:
+ *
+ *   java -Djava.awt.headless=true -cp target/classes:target/test-classes com.github.kkieffer.jcirculargauges.HeadlessRenderDemo [directory]
+ *
+ * @author kkieffer
+ */
+public class HeadlessRenderDemo {
+
+    private static final int SIZE = 300;
+
+    public static void main(String[] args) throws IOException {
+
+        File dir = new File(args.length > 0 ? args[0] : "headless-render");
+        dir.mkdirs();
+
+        CompassRenderer compass = new CompassRenderer(false);
+        compass.setBearingAndCourse(37.5, 80);
+        write(dir, "compass", compass);
+
+        SpeedometerRenderer speedometer = new SpeedometerRenderer(10, "kt");
+        speedometer.setSpeed(72);
+        speedometer.setMarkers(12, 95, 88);
+        write(dir, "speedometer", speedometer);
+
+        ArtificialHorizonRenderer horizon = new ArtificialHorizonRenderer();
+        horizon.setAttitude(-15, 8);
+        write(dir, "horizon", horizon);
+
+        SegmentGaugeRenderer segments = new SegmentGaugeRenderer(true, 8, new BasicStroke(1), Color.BLACK, Color.WHITE, 4);
+        for (int i=0; i<5; i++) {
+            segments.changeSegmentColor(i, i < 3 ? Color.GREEN : Color.YELLOW);
+            segments.changeLabel(i, String.valueOf(i + 1));
+        }
+        BufferedImage image = new BufferedImage(SIZE, 40, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            segments.paint(g2d, image.getWidth(), image.getHeight());
+        } finally {
+            g2d.dispose();
+        }
+        ImageIO.write(image, "png", new File(dir, "segments.png"));
+        System.out.println("segments: " + image.getWidth() + "x" + image.getHeight());
+    }
+
+    //Paint the renderer twice, so the second paint blits the cached face and overlay, and save the result
+    private static void write(File dir, String name, GaugeRenderer renderer) throws IOException {
+
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        for (int i=0; i<2; i++) {
+            Graphics2D g2d = image.createGraphics();
+            try {
+                g2d.setBackground(new Color(0, 0, 0, 0));
+                g2d.clearRect(0, 0, SIZE, SIZE);
+                renderer.paint(g2d, SIZE, SIZE);
+            } finally {
+                g2d.dispose();
+            }
+        }
+        ImageIO.write(image, "png", new File(dir, name + ".png"));
+        System.out.println(name + ": " + SIZE + "x" + SIZE + ", level " + renderer.getLevelOfDetail() + ", " + renderer.getStaticLayerFootprint() + " bytes cached");
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the sample rate of a PeakHoldTracker fed by several producer threads at once, and checks that the min, max, and sample
+ * count match what was produced.
+ *
+ * Run: java -cp target/classes:target/test-classes com.github.kkieffer.jcirculargauges.PeakHoldBenchmark
+ *
+ * @author kkieffer
+ */
+public class PeakHoldBenchmark {
+
+    private static final int SAMPLES_PER_THREAD = 10000000;
+
+    public static void main(String[] args) throws InterruptedException {
+
+        for (int threads = 1; threads <= Math.max(2, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+            run(threads);  //warmup
+            run(threads);
+        }
+    }
+
+    private static void run(int threads) throws InterruptedException {
+
+        final PeakHoldTracker tracker = new PeakHoldTracker(1000, 10);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] producers = new Thread[threads];
+
+        for (int t=0; t<threads; t++) {
+            final int seed = t;
+            producers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    //A noisy speed from 0 to 130, with each thread producing the extremes once
+                    for (int i=0; i<SAMPLES_PER_THREAD; i++)
+                        tracker.sample(65 + 60 * Math.sin((i + seed) * 0.001));
+                    tracker.sample(-seed);
+                    tracker.sample(130 + seed);
+                }
+            });
+            producers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread p : producers)
+            p.join();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        long expected = (long)threads * (SAMPLES_PER_THREAD + 2);
+        boolean ok = tracker.getMin() == -(threads - 1) && tracker.getMax() == 130 + threads - 1 && tracker.getSampleCount() == expected;
+
+        System.out.printf("%2d threads: %6.1f million samples/s, min %.1f, max %.1f, peak %.1f %s%n", threads, expected / seconds / 1e6,
+                           tracker.getMin(), tracker.getMax(), tracker.getPeak(), ok ? "" : " MISMATCH");
+    }
+
+}
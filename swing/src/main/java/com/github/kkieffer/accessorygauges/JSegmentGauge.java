@@ -0,0 +1,171 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+package com.github.kkieffer.accessorygauges;
+
+import com.github.kkieffer.jcirculargauges.GaugeFrameStats;
+import com.github.kkieffer.jcirculargauges.RenderingProfile;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import javax.swing.JComponent;
+
+
+/**
+ * A JSegmentGauge shows bars which may be colored, and optionally labelled, to show a level. The gauge is either horizontal or vertical.  Indicies start
+ * start on the left for horizontal and bottom for vertical.  The segments are painted by a SegmentGaugeRenderer.
+ * 
+ * While GaugeFrameStats.setOverlayEnabled() is on, the paint time, frame rate, and coalesced updates of the gauge are shown in
+ * its top left corner.
+ * 
+ * @author kkieffer
+ */
+public class JSegmentGauge extends JComponent {
+
+    private final SegmentGaugeRenderer renderer;
+    private final GaugeFrameStats frameStats = new GaugeFrameStats();
+
+    /**
+     * 
+     * @param isHorizontal true for a horizontal segments, false for vertical
+     * @param numSegments number of segments in the meter
+     * @param stroke attributes of the segment line border outline.  Use null to remove border 
+     * @param strokeColor the color of the segment line border outline.  Use null to remove border
+     * @param labelColor color of the segment label
+     * @param gap the number of pixels between each segment
+     */
+    public JSegmentGauge(boolean isHorizontal, int numSegments, BasicStroke stroke, Color strokeColor, Color labelColor, int gap) {
+        this(new SegmentGaugeRenderer(isHorizontal, numSegments, stroke, strokeColor, labelColor, gap));
+    }
+    
+    /**
+     * Create the gauge with a renderer, which may be a subclass
+     * @param renderer the renderer that paints the segments
+     */
+    protected JSegmentGauge(SegmentGaugeRenderer renderer) {
+        this.renderer = renderer;
+    }
+    
+    protected SegmentGaugeRenderer getRenderer() {
+        return renderer;
+    }
+    
+    
+    @Override
+    public Dimension getPreferredSize() {
+        
+        Dimension size = renderer.getPreferredSize();
+        Insets insets = this.getInsets();
+        size.height += insets.top + insets.bottom;
+        return size;
+                
+    }
+    
+    /**
+     * Get the number of segments in the meter
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return renderer.getSegmentCount();
+    }
+    
+    /**
+     * Change the color of the specified segment index
+     * @param index the segment index, which must be within the valid range
+     * @param c the new Color
+     */
+    public void changeSegmentColor(int index, Color c) {
+        renderer.changeSegmentColor(index, c);
+        repaint();
+    }
+    
+    
+    public void changeLabel(int index, String label) {
+        renderer.changeLabel(index, label);
+        repaint();
+    }
+    
+    /**
+     * Set the color of all segments to the same value
+     * @param c the color to set
+     */
+    public void setAllSegmentColors(Color c) {
+        renderer.setAllSegmentColors(c);
+        repaint();
+    }
+    
+    /**
+     * Clear all labels
+     */
+    public void clearAllLabels() {
+        renderer.clearAllLabels();
+        repaint();
+    }
+    
+    /**
+     * Set the rendering hints.  Only the dynamic layer hints of the profile are used.  The default is RenderingProfile.DEFAULT.
+     * @param profile the profile, null for the default
+     */
+    public void setRenderingProfile(RenderingProfile profile) {
+        renderer.setRenderingProfile(profile);
+        repaint();
+    }
+    
+    public RenderingProfile getRenderingProfile() {
+        return renderer.getRenderingProfile();
+    }
+    
+    /**
+     * Get the paint statistics shown by the overlay, which are only collected while GaugeFrameStats.isOverlayEnabled()
+     * @return the statistics
+     */
+    public GaugeFrameStats getFrameStats() {
+        return frameStats;
+    }
+    
+    
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        if (GaugeFrameStats.isOverlayEnabled())
+            frameStats.updateRequested();
+        super.repaint(tm, x, y, width, height);
+    }
+    
+    @Override
+    public void paint(Graphics g) {
+        
+        boolean stats = GaugeFrameStats.isOverlayEnabled();
+        long start = stats ? System.nanoTime() : 0;
+        
+        Dimension size = this.getSize();
+        Insets insets = this.getInsets();
+        
+        size.width -= insets.left + insets.right;
+        size.height -= insets.top + insets.bottom;
+        
+        renderer.paint((Graphics2D)g, size.width, size.height);
+        
+        if (stats) {
+            frameStats.endFrame(start, GaugeFrameStats.CacheStatus.NONE);
+            frameStats.paintOverlay((Graphics2D)g, this);
+        }
+    }
+    
+}
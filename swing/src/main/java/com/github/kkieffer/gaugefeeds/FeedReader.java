@@ -0,0 +1,42 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import java.io.IOException;
+
+/**
+ * Reads samples from one source, such as a socket to a monitored asset, and posts them to a GaugeFeed.  Run by a GaugeFeedExecutor,
+ * which calls read() repeatedly, from one thread at a time.
+ *
+ * @author kkieffer
+ */
+public interface FeedReader {
+
+    /**
+     * Wait for the next samples from the source and post them to the feed.  With virtual threads the read can block as long as it
+     * needs; on a platform thread pool, it holds a pool thread while it blocks, so readers should wait with a timeout shorter than
+     * the update period of the gauges, or return at once when nothing is available.
+     * @param feed the feed to post to
+     * @return true to read again, false when the source has ended
+     * @throws IOException if the source fails, which stops reading it
+     * @throws InterruptedException if interrupted while waiting, which stops reading it
+     */
+    boolean read(GaugeFeed feed) throws IOException, InterruptedException;
+
+}
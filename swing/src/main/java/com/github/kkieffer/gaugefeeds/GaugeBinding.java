@@ -0,0 +1,35 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+/**
+ * Applies the latest sample for a gauge ID to a gauge.  Bindings are called on the Swing event dispatch thread.
+ *
+ * @author kkieffer
+ */
+public interface GaugeBinding {
+
+    /**
+     * Apply a sample to the gauge.  The array is reused, so the binding must not keep it.
+     * @param values the sample values
+     * @param count the number of values in the sample
+     */
+    void update(double[] values, int count);
+
+}
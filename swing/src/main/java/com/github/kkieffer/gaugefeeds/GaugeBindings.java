@@ -0,0 +1,100 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import com.github.kkieffer.jcirculargauges.JArtificialHorizonGauge;
+import com.github.kkieffer.jcirculargauges.JCompass;
+import com.github.kkieffer.jcirculargauges.JSpeedometer;
+import java.awt.Color;
+
+/**
+ * Bindings that apply samples to each of the gauge types, for use with any of the gauge data sources.
+ *
+ * @author kkieffer
+ */
+public final class GaugeBindings {
+
+    private GaugeBindings() {
+    }
+
+    /**
+     * The first value is the bearing, the second, if present, is the course.
+     * @param compass the compass to update
+     * @return the binding
+     */
+    public static GaugeBinding forCompass(final JCompass compass) {
+        return new GaugeBinding() {
+            @Override
+            public void update(double[] values, int count) {
+                compass.setBearing(values[0]);
+                if (count > 1)
+                    compass.setCourse(values[1]);
+            }
+        };
+    }
+
+    /**
+     * The first value is the speed.
+     * @param speedometer the speedometer to update
+     * @return the binding
+     */
+    public static GaugeBinding forSpeedometer(final JSpeedometer speedometer) {
+        return new GaugeBinding() {
+            @Override
+            public void update(double[] values, int count) {
+                speedometer.setSpeed(values[0]);
+            }
+        };
+    }
+
+    /**
+     * The first value is the roll and the second is the pitch, both in degrees.
+     * @param horizon the artificial horizon to update
+     * @return the binding
+     */
+    public static GaugeBinding forHorizon(final JArtificialHorizonGauge horizon) {
+        return new GaugeBinding() {
+            @Override
+            public void update(double[] values, int count) {
+                horizon.setAttitude(values[0], count > 1 ? values[1] : 0.0);
+            }
+        };
+    }
+
+    /**
+     * Use a segment gauge as a level meter.  The first value is the level, from 0.0 (no segments lit) to 1.0 (all segments lit).
+     * @param segments the segment gauge to update
+     * @param litColor the color of lit segments
+     * @param unlitColor the color of the remaining segments
+     * @return the binding
+     */
+    public static GaugeBinding forLevel(final JSegmentGauge segments, final Color litColor, final Color unlitColor) {
+        return new GaugeBinding() {
+            @Override
+            public void update(double[] values, int count) {
+                int n = segments.getSegmentCount();
+                int lit = (int)Math.round(Math.max(0.0, Math.min(1.0, values[0])) * n);
+                for (int i=0; i<n; i++)
+                    segments.changeSegmentColor(i, i < lit ? litColor : unlitColor);
+            }
+        };
+    }
+
+}
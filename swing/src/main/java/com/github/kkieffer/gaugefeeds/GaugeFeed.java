@@ -0,0 +1,250 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import com.github.kkieffer.jcirculargauges.JArtificialHorizonGauge;
+import com.github.kkieffer.jcirculargauges.GaugeTransaction;
+import com.github.kkieffer.jcirculargauges.JCompass;
+import com.github.kkieffer.jcirculargauges.JSpeedometer;
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * Routes samples, identified by a gauge ID, to the gauges bound to them.  Samples can be posted from any thread at any rate.  Only
+ * the latest sample for each ID is kept, and the gauges are updated in one batch on the event dispatch thread, so a burst of samples
+ * costs one repaint per gauge.  The batch is applied as one GaugeTransaction frame, so the gauge models are notified in the same
+ * event rather than in one more event each.  Posting doesn't allocate: samples are copied into a fixed slot per ID.
+ *
+ * Gauge IDs range from zero up to the capacity given when the feed is created.  Samples for IDs that aren't bound are counted and
+ * dropped.
+ *
+ * @author kkieffer
+ */
+public class GaugeFeed {
+
+    public static final int MAX_VALUES = 8;  //most values in one sample
+
+    private static final class Slot {
+        private final double[] values = new double[MAX_VALUES];  //latest sample, guarded by the slot
+        private int count;
+        private boolean pending;
+        private final double[] delivered = new double[MAX_VALUES];  //copy handed to the binding, only used on the EDT
+        private volatile GaugeBinding binding;
+    }
+
+    private final Slot[] slots;
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private final AtomicLong postedSamples = new AtomicLong();
+    private final AtomicLong deliveredSamples = new AtomicLong();
+    private final AtomicLong unboundSamples = new AtomicLong();
+
+    private final Runnable deliver = new Runnable() {
+        @Override
+        public void run() {
+            GaugeTransaction.applyNow(deliverPending);
+        }
+    };
+    
+    private final Runnable deliverPending = new Runnable() {
+        @Override
+        public void run() {
+            deliverPending();
+        }
+    };
+
+    /**
+     * Create a feed
+     * @param capacity the number of gauge IDs, which run from 0 to capacity-1
+     */
+    public GaugeFeed(int capacity) {
+        slots = new Slot[capacity];
+        for (int i=0; i<capacity; i++)
+            slots[i] = new Slot();
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Bind a gauge ID.  Replaces any existing binding for the ID.
+     * @param id the gauge ID
+     * @param binding applies samples to the gauge, null to unbind
+     */
+    public void bind(int id, GaugeBinding binding) {
+        slots[id].binding = binding;
+    }
+
+    /**
+     * Bind a compass, see GaugeBindings.forCompass()
+     * @param id the gauge ID
+     * @param compass the compass to update
+     */
+    public void bind(int id, JCompass compass) {
+        bind(id, GaugeBindings.forCompass(compass));
+    }
+
+    /**
+     * Bind a speedometer, see GaugeBindings.forSpeedometer()
+     * @param id the gauge ID
+     * @param speedometer the speedometer to update
+     */
+    public void bind(int id, JSpeedometer speedometer) {
+        bind(id, GaugeBindings.forSpeedometer(speedometer));
+    }
+
+    /**
+     * Bind an artificial horizon, see GaugeBindings.forHorizon()
+     * @param id the gauge ID
+     * @param horizon the artificial horizon to update
+     */
+    public void bind(int id, JArtificialHorizonGauge horizon) {
+        bind(id, GaugeBindings.forHorizon(horizon));
+    }
+
+    /**
+     * Bind a segment gauge as a level meter, see GaugeBindings.forLevel()
+     * @param id the gauge ID
+     * @param segments the segment gauge to update
+     * @param litColor the color of lit segments
+     * @param unlitColor the color of the remaining segments
+     */
+    public void bind(int id, JSegmentGauge segments, Color litColor, Color unlitColor) {
+        bind(id, GaugeBindings.forLevel(segments, litColor, unlitColor));
+    }
+
+
+    /**
+     * Post a sample.  Values beyond MAX_VALUES are ignored.
+     * @param id the gauge ID, which must be less than the capacity
+     * @param values the sample values, copied before returning
+     * @param count the number of values
+     */
+    public void post(int id, double[] values, int count) {
+        Slot slot = slots[id];
+        if (!isBound(slot))
+            return;
+
+        count = Math.min(count, MAX_VALUES);
+        synchronized (slot) {
+            System.arraycopy(values, 0, slot.values, 0, count);
+            slot.count = count;
+            slot.pending = true;
+        }
+        scheduleDelivery();
+    }
+
+    /**
+     * Post a sample read from a buffer.  The values are read as doubles starting at the buffer position, which is advanced past them.
+     * Values beyond MAX_VALUES are skipped.
+     * @param id the gauge ID, which must be less than the capacity
+     * @param buffer the buffer holding the values
+     * @param count the number of values
+     */
+    public void post(int id, ByteBuffer buffer, int count) {
+        Slot slot = slots[id];
+        if (!isBound(slot)) {
+            buffer.position(buffer.position() + count * 8);
+            return;
+        }
+
+        int kept = Math.min(count, MAX_VALUES);
+        synchronized (slot) {
+            for (int i=0; i<kept; i++)
+                slot.values[i] = buffer.getDouble();
+            slot.count = kept;
+            slot.pending = true;
+        }
+        buffer.position(buffer.position() + (count - kept) * 8);
+        scheduleDelivery();
+    }
+
+    private boolean isBound(Slot slot) {
+        postedSamples.incrementAndGet();
+        if (slot.binding == null) {
+            unboundSamples.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    //Only one delivery is queued at a time; samples posted before it runs are coalesced into it
+    private void scheduleDelivery() {
+        if (deliveryScheduled.compareAndSet(false, true))
+            SwingUtilities.invokeLater(deliver);
+    }
+
+    private void deliverPending() {
+
+        deliveryScheduled.set(false);  //samples posted from here on schedule another delivery
+
+        RuntimeException failure = null;
+        for (Slot slot : slots) {
+            int count;
+            synchronized (slot) {
+                if (!slot.pending)
+                    continue;
+                count = slot.count;
+                System.arraycopy(slot.values, 0, slot.delivered, 0, count);
+                slot.pending = false;
+            }
+
+            GaugeBinding binding = slot.binding;
+            if (binding != null) {
+                try {
+                    binding.update(slot.delivered, count);
+                    deliveredSamples.incrementAndGet();
+                } catch (RuntimeException ex) {  //a bad binding doesn't hold back the other gauges
+                    if (failure == null)
+                        failure = ex;
+                    else
+                        failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * @return the number of samples posted, including unbound ones
+     */
+    public long getPostedCount() {
+        return postedSamples.get();
+    }
+
+    /**
+     * @return the number of samples applied to gauges.  This is less than the number posted when samples are coalesced.
+     */
+    public long getDeliveredCount() {
+        return deliveredSamples.get();
+    }
+
+    /**
+     * @return the number of samples dropped because their ID was not bound
+     */
+    public long getUnboundCount() {
+        return unboundSamples.get();
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many FeedReaders, such as one blocking reader per monitored asset, posting to one GaugeFeed.  The feed keeps only the latest
+ * sample of each gauge and delivers them in one event, so any number of readers never floods the event dispatch thread.
+ *
+ * When the JVM supports virtual threads (Java 21 and later), each reader gets its own virtual thread and loops on its source, so
+ * thousands of blocking readers cost little more than their buffers.  Otherwise the readers share a bounded pool of daemon platform
+ * threads: each read is a task, and a reader that wants to read again goes to the back of the queue, so the readers take turns.
+ *
+ * @author kkieffer
+ */
+public class GaugeFeedExecutor {
+
+    private final GaugeFeed feed;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicInteger activeReaders = new AtomicInteger();
+
+    /**
+     * A reader submitted to the executor
+     */
+    public final class Reading implements Runnable {
+
+        private final FeedReader reader;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Exception error;  //why the reader stopped, if it failed
+
+        private Reading(FeedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Stop reading after the current read returns.  To stop a read blocked on its source, also close the source.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return true once the reader has stopped, because it was cancelled, its source ended or failed, or the executor shut down
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return the exception the reader failed with, or null if it hasn't failed
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        @Override
+        public void run() {
+            try {
+                do {
+                    if (cancelled || !reader.read(feed)) {
+                        finish();
+                        return;
+                    }
+                    reads.incrementAndGet();
+                } while (virtual);
+                executor.execute(this);  //take turns with the other readers on the pool
+            } catch (InterruptedException | RejectedExecutionException e) {
+                finish();  //shut down
+            } catch (IOException | RuntimeException e) {
+                error = e;
+                failures.incrementAndGet();
+                finish();
+            }
+        }
+
+        private void finish() {
+            done = true;
+            activeReaders.decrementAndGet();
+        }
+    }
+
+
+    /**
+     * Create an executor using virtual threads if the JVM supports them, otherwise a platform thread pool
+     * @param feed the feed the readers post to
+     * @param platformThreads the size of the platform thread pool, when virtual threads are not supported
+     */
+    public GaugeFeedExecutor(GaugeFeed feed, int platformThreads) {
+        this(feed, platformThreads, true);
+    }
+
+    /**
+     * Create an executor
+     * @param feed the feed the readers post to
+     * @param platformThreads the size of the platform thread pool, when virtual threads are not used
+     * @param useVirtualThreads true to use virtual threads if the JVM supports them, false to always use the platform thread pool
+     */
+    public GaugeFeedExecutor(GaugeFeed feed, int platformThreads, boolean useVirtualThreads) {
+        this.feed = feed;
+        ExecutorService virtualExecutor = useVirtualThreads ? createVirtualExecutor() : null;
+        virtual = virtualExecutor != null;
+        executor = virtual ? virtualExecutor : createPlatformExecutor(platformThreads);
+    }
+
+    //Executors.newVirtualThreadPerTaskExecutor(), or null if the JVM doesn't have it or it is a disabled preview
+    private static ExecutorService createVirtualExecutor() {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService createPlatformExecutor(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Gauge Feed Reader " + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        pool.prestartAllCoreThreads();  //otherwise each reader that takes its turn starts another thread until the pool is full
+        return pool;
+    }
+
+    /**
+     * @return true if each reader runs on its own virtual thread, false if the readers share a platform thread pool
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public GaugeFeed getFeed() {
+        return feed;
+    }
+
+    /**
+     * Start reading from a source
+     * @param reader the reader, which posts to the feed of the executor
+     * @return the reading, to cancel it
+     * @throws RejectedExecutionException if the executor is shut down
+     */
+    public Reading submit(FeedReader reader) {
+        Reading reading = new Reading(reader);
+        activeReaders.incrementAndGet();
+        try {
+            executor.execute(reading);
+        } catch (RejectedExecutionException e) {
+            activeReaders.decrementAndGet();
+            throw e;
+        }
+        return reading;
+    }
+
+    /**
+     * Stop all the readers, interrupting reads that are waiting.  Reads blocked on a source that can't be interrupted stop when
+     * the source is closed.
+     */
+    public void shutdown() {
+        for (Runnable waiting : executor.shutdownNow())  //readers waiting for their turn on the pool
+            ((Reading)waiting).finish();
+    }
+
+    /**
+     * Wait for the readers to stop after shutdown
+     * @param timeout the longest time to wait
+     * @param unit the unit of the timeout
+     * @return true if all stopped, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * @return the number of reads that returned true
+     */
+    public long getReadCount() {
+        return reads.get();
+    }
+
+    /**
+     * @return the number of readers stopped by an exception other than an interruption
+     */
+    public long getFailedCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of readers that have not stopped
+     */
+    public int getActiveReaderCount() {
+        return activeReaders.get();
+    }
+
+}
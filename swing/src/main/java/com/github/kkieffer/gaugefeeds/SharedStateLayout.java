@@ -0,0 +1,119 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The layout of the shared state file, in native byte order so a native writer can use plain structs:
+ * <pre>
+ *   header, 64 bytes:
+ *     int   magic, 0x47534D31
+ *     int   slot count
+ *     int   values per slot
+ *     int   slot size in bytes
+ *     (reserved)
+ *   slots, each at 64 + index * slot size, padded to a multiple of 64 bytes so slots don't share cache lines:
+ *     long      sequence, odd while the writer is updating the slot
+ *     double[]  values
+ * </pre>
+ * Writers make the sequence odd, store the values, then make it even again.  Readers retry until they see the same even sequence
+ * before and after reading the values.
+ *
+ * @author kkieffer
+ */
+final class SharedStateLayout {
+
+    static final int MAGIC = 0x47534D31;
+    static final int HEADER_SIZE = 64;
+    static final int CACHE_LINE = 64;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SLOTS_OFFSET = 4;
+    private static final int VALUES_OFFSET = 8;
+    private static final int SLOT_SIZE_OFFSET = 12;
+
+    private static volatile int fence;  //written then read to order the plain accesses of the mapped buffer around it
+
+    final int slotCount;
+    final int valuesPerSlot;
+    final int slotSize;
+
+    SharedStateLayout(int slotCount, int valuesPerSlot) {
+        this.slotCount = slotCount;
+        this.valuesPerSlot = valuesPerSlot;
+        slotSize = ((8 + valuesPerSlot * 8 + CACHE_LINE - 1) / CACHE_LINE) * CACHE_LINE;
+    }
+
+    //Read the layout from the header of a mapped file
+    static SharedStateLayout read(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.nativeOrder());
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC)
+            throw new IOException("Not a shared gauge state file");
+
+        SharedStateLayout layout = new SharedStateLayout(buffer.getInt(SLOTS_OFFSET), buffer.getInt(VALUES_OFFSET));
+        if (layout.slotSize != buffer.getInt(SLOT_SIZE_OFFSET) || layout.getFileSize() > buffer.capacity())
+            throw new IOException("Shared gauge state file is truncated or has a bad header");
+        return layout;
+    }
+
+    //Write the header, magic last so readers never see a partial header
+    void write(ByteBuffer buffer) {
+        buffer.order(ByteOrder.nativeOrder());
+        buffer.putInt(SLOTS_OFFSET, slotCount);
+        buffer.putInt(VALUES_OFFSET, valuesPerSlot);
+        buffer.putInt(SLOT_SIZE_OFFSET, slotSize);
+        storeFence();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    long getFileSize() {
+        return HEADER_SIZE + (long)slotCount * slotSize;
+    }
+
+    int sequenceOffset(int slot) {
+        if (slot < 0 || slot >= slotCount)
+            throw new IndexOutOfBoundsException("Slot " + slot + " of " + slotCount);
+        return HEADER_SIZE + slot * slotSize;
+    }
+
+    int valueOffset(int slot, int index) {
+        return sequenceOffset(slot) + 8 + index * 8;
+    }
+
+    //Keep the stores before the fence from being reordered with the stores after it, by the compiler or the processor
+    static void storeFence() {
+        fullFence();
+    }
+
+    //Keep the loads before the fence from being reordered with the loads after it, by the compiler or the processor
+    static void loadFence() {
+        fullFence();
+    }
+
+    //A volatile write, which earlier accesses can't move after, then a volatile read, which later accesses can't move before.  The
+    //two are volatile accesses of the same thread, which are never reordered with each other.
+    private static void fullFence() {
+        fence = 0;
+        int read = fence;
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.Timer;
+
+/**
+ * Reads gauge values from a memory-mapped shared state file written by another process, such as a native data acquisition process
+ * or a SharedStateWriter.  Bound gauges are polled on a Swing timer, which should run at the display rate: each poll only checks the
+ * sequence counter of each slot, and reads and applies the values if they changed.  There is no system call or copy through the
+ * kernel per update, and updates between polls are coalesced.
+ *
+ * Reads are retried while the writer is updating a slot, so a gauge never sees a mix of old and new values.
+ *
+ * @author kkieffer
+ */
+public class SharedStateSource {
+
+    private static final int MAX_READ_ATTEMPTS = 1000;  //before giving up on a slot the writer is constantly updating
+
+    private final SharedStateLayout layout;
+    private final MappedByteBuffer buffer;
+    private final GaugeBinding[] bindings;
+    private final long[] lastSequence;
+    private final double[] values;  //read buffer, only used on the EDT when polling
+    private final AtomicLong retries = new AtomicLong();
+    private Timer timer;
+
+    /**
+     * Map an existing shared state file
+     * @param path the file, created by the writer
+     * @throws IOException if the file can't be mapped or isn't a shared state file
+     */
+    public SharedStateSource(File path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());  //stays mapped after closing
+        }
+        layout = SharedStateLayout.read(buffer);
+        bindings = new GaugeBinding[layout.slotCount];
+        lastSequence = new long[layout.slotCount];
+        values = new double[layout.valuesPerSlot];
+    }
+
+    public int getSlotCount() {
+        return layout.slotCount;
+    }
+
+    public int getValuesPerSlot() {
+        return layout.valuesPerSlot;
+    }
+
+    /**
+     * Bind a slot to a gauge.  Call on the event dispatch thread.
+     * @param slot the slot index
+     * @param binding applies the slot values to the gauge, null to unbind
+     */
+    public void bind(int slot, GaugeBinding binding) {
+        bindings[slot] = binding;
+        lastSequence[slot] = 0;  //apply the current values on the next poll, once the slot has been written
+    }
+
+    /**
+     * Start polling the bound slots
+     * @param periodMillis the polling period, typically the repaint period of the gauges
+     */
+    public void start(int periodMillis) {
+        stop();
+        timer = new Timer(periodMillis, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                poll();
+            }
+        });
+        timer.setCoalesce(true);
+        timer.start();
+    }
+
+    public void stop() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+
+    /**
+     * Apply the values of each bound slot that changed since the last poll.  Called by the timer, or directly on the event
+     * dispatch thread to poll on another clock.
+     */
+    public void poll() {
+        for (int slot=0; slot<bindings.length; slot++) {
+            GaugeBinding binding = bindings[slot];
+            if (binding == null || getSequence(slot) == lastSequence[slot])
+                continue;
+
+            long seq = read(slot, values);
+            if (seq > 0) {
+                lastSequence[slot] = seq;
+                binding.update(values, layout.valuesPerSlot);
+            }
+        }
+    }
+
+    /**
+     * Get the sequence counter of a slot, which is odd while it is being written, and increases by two for each write
+     * @param slot the slot index
+     * @return the sequence counter
+     */
+    public long getSequence(int slot) {
+        return buffer.getLong(layout.sequenceOffset(slot));
+    }
+
+    /**
+     * Read a consistent copy of the values of a slot.  Safe to call from any thread, with a separate array per thread.
+     * @param slot the slot index
+     * @param dest receives the values, at least the values per slot long
+     * @return the sequence counter of the copy, or -1 if the writer updated the slot during every attempt
+     */
+    public long read(int slot, double[] dest) {
+        int seqOffset = layout.sequenceOffset(slot);
+
+        for (int attempt=0; attempt<MAX_READ_ATTEMPTS; attempt++) {
+            long before = buffer.getLong(seqOffset);
+            SharedStateLayout.loadFence();
+            if ((before & 1) == 0) {
+                for (int i=0; i<layout.valuesPerSlot; i++)
+                    dest[i] = buffer.getDouble(layout.valueOffset(slot, i));
+                SharedStateLayout.loadFence();
+                if (buffer.getLong(seqOffset) == before)
+                    return before;
+            }
+            retries.incrementAndGet();
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of reads retried because the writer was updating the slot
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes gauge values into a memory-mapped shared state file, to be read by a SharedStateSource in another process.  Each slot holds
+ * the values of one gauge and is guarded by a sequence counter, so updates are a few stores with no system call.  Only one thread or
+ * process may write a given slot.  See SharedStateLayout for the file layout, for writers in other languages.
+ *
+ * @author kkieffer
+ */
+public class SharedStateWriter {
+
+    private final SharedStateLayout layout;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Create the shared state file, or open an existing one in place.  An existing file is never truncated or extended, since readers
+     * that have it mapped would fault, so its slots keep their last values and sequence counters.  An empty file is sized as if new.
+     * @param path the file, typically on a memory backed file system such as /dev/shm
+     * @param slotCount the number of slots
+     * @param valuesPerSlot the number of values in each slot
+     * @throws IOException if the file can't be created or mapped, or an existing file has a different size or layout
+     */
+    public SharedStateWriter(File path, int slotCount, int valuesPerSlot) throws IOException {
+        layout = new SharedStateLayout(slotCount, valuesPerSlot);
+        file = new RandomAccessFile(path, "rw");
+        try {
+            long length = file.length();
+            boolean created = length == 0;
+            if (created)
+                file.setLength(layout.getFileSize());
+            else if (length != layout.getFileSize())
+                throw new IOException("Shared gauge state file " + path + " is " + length + " bytes, expected " + layout.getFileSize());
+            
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, layout.getFileSize());
+            if (created)
+                layout.write(buffer);
+            else {
+                SharedStateLayout existing = SharedStateLayout.read(buffer);
+                if (existing.slotCount != slotCount || existing.valuesPerSlot != valuesPerSlot)
+                    throw new IOException("Shared gauge state file " + path + " has " + existing.slotCount + " slots of " + existing.valuesPerSlot + " values");
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        
+        //A previous writer may have stopped in the middle of an update
+        for (int slot=0; slot<slotCount; slot++) {
+            int seqOffset = layout.sequenceOffset(slot);
+            long seq = buffer.getLong(seqOffset);
+            if ((seq & 1) != 0)
+                buffer.putLong(seqOffset, seq + 1);
+        }
+    }
+
+    public int getSlotCount() {
+        return layout.slotCount;
+    }
+
+    public int getValuesPerSlot() {
+        return layout.valuesPerSlot;
+    }
+
+    /**
+     * Update a slot.  Values not given keep their previous values.
+     * @param slot the slot index
+     * @param values the values
+     * @param count the number of values, at most the values per slot
+     */
+    public void write(int slot, double[] values, int count) {
+        if (count > layout.valuesPerSlot)
+            throw new IllegalArgumentException("Slots hold " + layout.valuesPerSlot + " values");
+        
+        int seqOffset = layout.sequenceOffset(slot);
+        long seq = buffer.getLong(seqOffset);
+
+        buffer.putLong(seqOffset, seq + 1);  //odd, update in progress
+        SharedStateLayout.storeFence();
+        for (int i=0; i<count; i++)
+            buffer.putDouble(layout.valueOffset(slot, i), values[i]);
+        SharedStateLayout.storeFence();
+        buffer.putLong(seqOffset, seq + 2);  //even, update complete
+    }
+
+    /**
+     * Close the file.  The mapping stays valid until the writer is garbage collected, so don't write after closing.
+     * @throws IOException if the file can't be closed
+     */
+    public void close() throws IOException {
+        file.close();
+    }
+
+}
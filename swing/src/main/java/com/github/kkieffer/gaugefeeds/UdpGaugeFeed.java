@@ -0,0 +1,188 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receives gauge samples over UDP and posts them to a GaugeFeed.  Datagrams are read on a daemon thread into one reused direct
+ * buffer and decoded in place, so receiving doesn't allocate.  An unconnected channel allocates the sender address on each receive,
+ * so connect to the sender when it is known.
+ *
+ * Each datagram holds one or more samples, big-endian, in this layout:
+ * <pre>
+ *   unsigned short  gauge ID
+ *   unsigned byte   value count (n)
+ *   byte            reserved, zero
+ *   double[n]       values
+ * </pre>
+ * A datagram with a bad ID or count is dropped from that sample on, and counted as malformed.  A receive that fails is counted as a
+ * receive error and receiving goes on; it only stops when the channel is closed.
+ *
+ * @author kkieffer
+ */
+public class UdpGaugeFeed implements Runnable {
+
+    public static final int HEADER_SIZE = 4;  //bytes before the values of each sample
+    private static final int MAX_DATAGRAM = 65507;  //largest UDP payload over IPv4
+
+    private final GaugeFeed feed;
+    private final DatagramChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+    private Thread thread;
+    private final AtomicLong datagrams = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final AtomicLong receiveErrors = new AtomicLong();
+    private volatile boolean closed;
+    private volatile IOException error;  //why receiving stopped, null if closed by close() or still receiving
+
+    /**
+     * Open the channel.  Call start() to begin receiving.
+     * @param feed the feed to post samples to
+     * @param local the local address to bind to
+     * @throws IOException if the channel can't be opened or bound
+     */
+    public UdpGaugeFeed(GaugeFeed feed, SocketAddress local) throws IOException {
+        this.feed = feed;
+        channel = DatagramChannel.open();
+        channel.bind(local);
+    }
+
+    /**
+     * Only accept datagrams from one sender, which avoids the allocation of the sender address on each receive
+     * @param sender the sender address
+     * @throws IOException if the channel can't be connected
+     */
+    public void connect(SocketAddress sender) throws IOException {
+        channel.connect(sender);
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return channel.getLocalAddress();
+    }
+
+    /**
+     * Start the receiving thread
+     */
+    public synchronized void start() {
+        if (thread != null)
+            return;
+        thread = new Thread(this, "UDP Gauge Feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop receiving and close the channel
+     * @throws IOException if the channel can't be closed
+     */
+    public void close() throws IOException {
+        closed = true;
+        channel.close();  //unblocks the receiving thread
+    }
+
+    @Override
+    public void run() {
+        while (!closed) {
+            buffer.clear();
+            try {
+                if (channel.isConnected())
+                    channel.read(buffer);
+                else
+                    channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                if (!closed)
+                    error = e;  //closed by an interrupt or another thread, not by close()
+                return;
+            } catch (IOException e) {  //for instance an ICMP port unreachable on a connected channel, try the next datagram
+                receiveErrors.incrementAndGet();
+                continue;
+            }
+            buffer.flip();
+            datagrams.incrementAndGet();
+            decode(buffer);
+        }
+    }
+
+    private void decode(ByteBuffer buffer) {
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int id = buffer.getShort() & 0xFFFF;
+            int count = buffer.get() & 0xFF;
+            buffer.get();  //reserved
+
+            if (id >= feed.getCapacity() || count == 0 || buffer.remaining() < count * 8) {
+                malformed.incrementAndGet();
+                return;
+            }
+            feed.post(id, buffer, count);
+        }
+        if (buffer.hasRemaining())
+            malformed.incrementAndGet();
+    }
+
+    /**
+     * Encode a sample into a buffer, for senders
+     * @param buffer the buffer, which must be big-endian, and have HEADER_SIZE + 8 * count bytes remaining
+     * @param id the gauge ID, from 0 to 65535
+     * @param values the sample values
+     * @param count the number of values, from 1 to 255
+     */
+    public static void putSample(ByteBuffer buffer, int id, double[] values, int count) {
+        buffer.putShort((short)id);
+        buffer.put((byte)count);
+        buffer.put((byte)0);
+        for (int i=0; i<count; i++)
+            buffer.putDouble(values[i]);
+    }
+
+    /**
+     * @return the number of datagrams received
+     */
+    public long getDatagramCount() {
+        return datagrams.get();
+    }
+
+    /**
+     * @return the number of datagrams with a bad sample
+     */
+    public long getMalformedCount() {
+        return malformed.get();
+    }
+
+    /**
+     * @return the number of receives that failed, after which receiving went on
+     */
+    public long getReceiveErrorCount() {
+        return receiveErrors.get();
+    }
+
+    /**
+     * Get the reason receiving stopped, other than close()
+     * @return the exception that closed the channel, or null if still receiving or closed by close()
+     */
+    public IOException getError() {
+        return error;
+    }
+
+}
@@ -0,0 +1,474 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugestream;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Streams the frames of a gauge, or any other component, to an OutputStream as multipart/x-mixed-replace, the format browsers show
+ * as a live image (MJPEG when the frames are JPEGs).  Works headless, for remote monitoring of gauges that are never shown.
+ *
+ * Frames pass through a pipeline:
+ * <ol>
+ * <li>capture: at a fixed rate, the component is painted on the event dispatch thread into a pooled image</li>
+ * <li>compare: a frame whose pixels are identical to the previous frame is skipped</li>
+ * <li>encode: frames are encoded to PNG or JPEG on a pool of worker threads, several at once</li>
+ * <li>write: encoded frames are written in capture order by a writer thread</li>
+ * </ol>
+ * The images and encoding buffers are pooled and reused, which bounds the frames in flight.  When all are in use, because encoding
+ * or the output can't keep up, captures are dropped until one is free.  Each stage is timed, and the latency from capture to
+ * written is measured, see getMetrics().
+ *
+ * The encoder stops when stop() is called or when writing fails, for instance when an HTTP client disconnects.
+ *
+ * @author kkieffer
+ */
+public class FrameStreamEncoder {
+
+    public enum Format {
+        PNG("png", "image/png"),
+        MJPEG("jpeg", "image/jpeg");
+
+        private final String imageFormat;
+        private final String contentType;
+
+        private Format(String imageFormat, String contentType) {
+            this.imageFormat = imageFormat;
+            this.contentType = contentType;
+        }
+    }
+
+    public enum Stage {
+        CAPTURE, COMPARE, ENCODE, WRITE,
+        LATENCY  //from the start of capture until written
+    }
+
+    private static final String BOUNDARY = "gaugeframe";
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final JComponent component;
+    private final Format format;
+    private final long periodNanos;
+    private final int workers;
+    private final OutputStream out;
+
+    private final ArrayBlockingQueue<Frame> pool;
+    private final LinkedBlockingQueue<Future<Frame>> encoded = new LinkedBlockingQueue<>();  //in capture order
+    private final EnumMap<Stage, StageMetrics> metrics = new EnumMap<>(Stage.class);
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService encoders;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile IOException error;
+    private volatile Throwable lastFailure;  //of a frame that couldn't be painted or encoded
+    private volatile float jpegQuality = 0.8f;
+
+    private int[] previous;  //pixels of the last frame that wasn't skipped, used by the capture thread
+    private Frame capturing;  //handed to the event dispatch thread by the capture thread
+
+    //A pooled image and the buffer it is encoded into
+    private final class Frame implements Callable<Frame> {
+        private BufferedImage image;
+        private int[] pixels;
+        private boolean painted;
+        private boolean failed;
+        private long captured;  //nanos
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        @Override
+        public Frame call() {
+            long start = System.nanoTime();
+            data.reset();
+            failed = false;
+            try {
+                encode(this);
+            } catch (IOException | RuntimeException ex) {
+                frameFailed(ex);
+                failed = true;
+            }
+            metrics.get(Stage.ENCODE).record(System.nanoTime() - start);
+            return this;
+        }
+    }
+
+    //The image writer of one encoder thread
+    private static final class Encoder {
+        private final ImageWriter writer;
+        private final ImageWriteParam param;
+
+        private Encoder(Format format) {
+            writer = ImageIO.getImageWritersByFormatName(format.imageFormat).next();
+            param = writer.getDefaultWriteParam();
+            if (format == Format.MJPEG)
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        }
+    }
+
+    private final ThreadLocal<Encoder> threadEncoder = new ThreadLocal<Encoder>() {
+        @Override
+        protected Encoder initialValue() {
+            return new Encoder(format);
+        }
+    };
+
+    private final Runnable paintFrame = new Runnable() {
+        @Override
+        public void run() {
+            paint(capturing);
+        }
+    };
+
+    private final Runnable captureFrame = new Runnable() {
+        @Override
+        public void run() {
+            capture();
+        }
+    };
+
+    /**
+     * Create an encoder.  Call start() to begin streaming.
+     * @param component the gauge to capture, at its current size.  A gauge that isn't shown must be given a size with setSize().
+     * @param format the image format of the frames
+     * @param framesPerSecond the capture rate
+     * @param workers the number of encoder threads
+     * @param out the stream to write to, which is not closed by the encoder
+     */
+    public FrameStreamEncoder(JComponent component, Format format, double framesPerSecond, int workers, OutputStream out) {
+        this.component = component;
+        this.format = format;
+        this.periodNanos = (long)(1e9 / framesPerSecond);
+        this.workers = Math.max(1, workers);
+        this.out = out;
+
+        pool = new ArrayBlockingQueue<>(this.workers + 2);  //a frame encoding on each worker, one writing, one capturing
+        for (int i=0; i<this.workers + 2; i++)
+            pool.add(new Frame());
+
+        for (Stage s : Stage.values())
+            metrics.put(s, new StageMetrics(s.name().toLowerCase()));
+    }
+
+    /**
+     * @return the content type of the stream, for instance for an HTTP response header
+     */
+    public String getContentType() {
+        return "multipart/x-mixed-replace; boundary=" + BOUNDARY;
+    }
+
+    /**
+     * Set the JPEG quality of MJPEG frames
+     * @param quality from 0 to 1, the default is 0.8
+     */
+    public void setJpegQuality(float quality) {
+        jpegQuality = quality;
+    }
+
+    /**
+     * Start capturing and writing frames
+     */
+    public synchronized void start() {
+        if (scheduler != null)
+            throw new IllegalStateException("Encoder can only be started once");
+        running = true;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("Frame Capture"));
+        encoders = Executors.newFixedThreadPool(workers, threadFactory("Frame Encoder"));
+        writer = threadFactory("Frame Writer").newThread(new Runnable() {
+            @Override
+            public void run() {
+                writeFrames();
+            }
+        });
+        writer.start();
+        for (StageMetrics m : metrics.values())
+            m.reset();
+        scheduler.scheduleAtFixedRate(captureFrame, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop capturing.  Frames already captured are still written, then the writer stops.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (scheduler != null)
+            scheduler.shutdown();  //the writer shuts down the encoders once the last capture is queued
+    }
+
+    /**
+     * Wait until the encoder has stopped and written its last frame
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the error that stopped writing, or null
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Get the metrics of a stage
+     * @param stage the stage
+     * @return its metrics
+     */
+    public StageMetrics getMetrics(Stage stage) {
+        return metrics.get(stage);
+    }
+
+    /**
+     * @return the number of frames not encoded because they were identical to the previous frame
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * @return the number of captures dropped because all pooled frames were in use
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of frames not written because painting or encoding them failed
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return the exception of the last frame that failed to paint or encode, or null if none
+     */
+    public Throwable getLastFailure() {
+        return lastFailure;
+    }
+
+    private void frameFailed(Throwable cause) {
+        lastFailure = cause;
+        failed.incrementAndGet();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    //Capture, compare and queue for encoding, on the capture thread
+    private void capture() {
+
+        if (!running)
+            return;
+
+        Frame frame = pool.poll();
+        if (frame == null) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        long start = System.nanoTime();
+        frame.captured = start;
+        capturing = frame;
+        try {
+            SwingUtilities.invokeAndWait(paintFrame);
+        } catch (InterruptedException ex) {
+            pool.add(frame);
+            return;
+        } catch (InvocationTargetException ex) {
+            frameFailed(ex.getCause());
+            frame.painted = false;
+        }
+        if (!frame.painted) {  //not sized yet
+            pool.add(frame);
+            return;
+        }
+        metrics.get(Stage.CAPTURE).record(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        boolean same = previous != null && Arrays.equals(previous, frame.pixels);
+        if (!same) {
+            if (previous == null || previous.length != frame.pixels.length)
+                previous = new int[frame.pixels.length];
+            System.arraycopy(frame.pixels, 0, previous, 0, previous.length);
+        }
+        metrics.get(Stage.COMPARE).record(System.nanoTime() - start);
+
+        if (same) {
+            skipped.incrementAndGet();
+            pool.add(frame);
+        }
+        else {
+            try {
+                encoded.add(encoders.submit(frame));
+            } catch (RejectedExecutionException ex) {  //the writer stopped
+                pool.add(frame);
+            }
+        }
+    }
+
+    //Paint the component into the frame's image, on the event dispatch thread
+    private void paint(Frame frame) {
+
+        int width = component.getWidth();
+        int height = component.getHeight();
+        frame.painted = width > 0 && height > 0;
+        if (!frame.painted)
+            return;
+
+        if (frame.image == null || frame.image.getWidth() != width || frame.image.getHeight() != height) {
+            frame.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);  //no alpha, for JPEG
+            frame.pixels = ((DataBufferInt)frame.image.getRaster().getDataBuffer()).getData();
+            previous = null;  //a new size is never the same as the previous frame
+        }
+
+        Graphics2D g = frame.image.createGraphics();
+        try {
+            Color background = component.getBackground();
+            g.setColor(background == null ? Color.WHITE : background);
+            g.fillRect(0, 0, width, height);
+            component.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    //Encode the frame's image into its buffer, on an encoder thread
+    private void encode(Frame frame) throws IOException {
+
+        Encoder encoder = threadEncoder.get();
+        if (format == Format.MJPEG)
+            encoder.param.setCompressionQuality(jpegQuality);
+
+        ImageOutputStream ios = new MemoryCacheImageOutputStream(frame.data);
+        try {
+            encoder.writer.setOutput(ios);
+            encoder.writer.write(null, new IIOImage(frame.image, null, null), encoder.param);
+        } finally {
+            ios.close();  //flushes to the buffer
+            encoder.writer.setOutput(null);
+        }
+    }
+
+    //Write the encoded frames in capture order, on the writer thread, until stopped and all captured frames are written
+    private void writeFrames() {
+
+        try {
+            while (true) {
+                Future<Frame> next = encoded.poll(100, TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    if (!running && scheduler.isTerminated() && encoded.isEmpty())
+                        break;
+                    continue;
+                }
+
+                Frame frame;
+                try {
+                    frame = next.get();
+                } catch (ExecutionException ex) {  //only errors, encoding exceptions mark the frame as failed
+                    frameFailed(ex.getCause());
+                    continue;
+                }
+
+                try {
+                    if (!frame.failed && error == null) {
+                        long start = System.nanoTime();
+                        writePart(frame);
+                        long end = System.nanoTime();
+                        metrics.get(Stage.WRITE).record(end - start);
+                        metrics.get(Stage.LATENCY).record(end - frame.captured);
+                    }
+                } catch (IOException ex) {
+                    error = ex;
+                    stop();
+                } finally {
+                    pool.add(frame);
+                }
+            }
+        } catch (InterruptedException ex) {
+            stop();
+        } finally {
+            encoders.shutdown();
+            stopped.countDown();
+        }
+    }
+
+    private void writePart(Frame frame) throws IOException {
+        byte[] header = ("--" + BOUNDARY + "\r\nContent-Type: " + format.contentType + "\r\nContent-Length: " + frame.data.size() + "\r\n\r\n")
+                            .getBytes(StandardCharsets.US_ASCII);
+        out.write(header);
+        frame.data.writeTo(out);
+        out.write(CRLF);
+        out.flush();
+        bytesWritten.addAndGet(header.length + frame.data.size() + CRLF.length);
+    }
+
+    private static ThreadFactory threadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugestream;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times the frames passing through one stage of a FrameStreamEncoder.  Updated by the stage's threads and read from any
+ * thread.
+ *
+ * @author kkieffer
+ */
+public final class StageMetrics {
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private volatile long startNanos = System.nanoTime();
+
+    StageMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()))
+            if (maxNanos.compareAndSet(max, nanos))
+                break;
+    }
+
+    /**
+     * Clear the counts and restart the throughput measurement
+     */
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        startNanos = System.nanoTime();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the mean time of a frame in the stage, in milliseconds, or 0 if none
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * @return frames per second through the stage, since created or reset
+     */
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : count.sum() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s %7d frames %7.1f/s  mean %7.3f ms  max %7.3f ms", name, getCount(), getThroughput(), getMeanMillis(), getMaxMillis());
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The roll and pitch shown by one or more JArtificialHorizonGauge views.
+ *
+ * @author kkieffer
+ */
+public class AttitudeModel extends GaugeModel {
+
+    //One update of the model, with the values derived from it
+    private final AtomicReference<AttitudeValues> values = new AtomicReference<>(new AttitudeValues(0.0, 0.0));
+
+    /**
+     * Set the roll and pitch, in degrees
+     * @param roll positive value roll to right / starboard
+     * @param pitch positive value is pitch up
+     */
+    public void setAttitude(double roll, double pitch) {
+        values.set(new AttitudeValues(roll, pitch));
+        fireStateChanged();
+    }
+
+    public double getRoll() {
+        return values.get().roll;
+    }
+
+    public double getPitch() {
+        return values.get().pitch;
+    }
+
+    AttitudeValues getValues() {
+        return values.get();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The bearing and course shown by one or more JCompass views.
+ *
+ * @author kkieffer
+ */
+public class CompassModel extends GaugeModel {
+
+    //One update of the model, with the values derived from it
+    private final AtomicReference<CompassValues> values = new AtomicReference<>(new CompassValues(0.0, 0.0));
+
+    /**
+     * Set the bearing, in degrees
+     * @param b the bearing, from 0-360.  Values outside this range will be modulus 360.
+     */
+    public void setBearing(double b) {
+        CompassValues v;
+        do {
+            v = values.get();
+        } while (!values.compareAndSet(v, new CompassValues(b, v.course)));
+        fireStateChanged();
+    }
+
+    /**
+     * Set the course, in degrees
+     * @param c the course, from 0-360.  Values outside this range will be modulus 360.
+     */
+    public void setCourse(double c) {
+        CompassValues v;
+        do {
+            v = values.get();
+        } while (!values.compareAndSet(v, new CompassValues(v.bearing, c)));
+        fireStateChanged();
+    }
+
+    /**
+     * Set the bearing and course together, so views never show one without the other
+     * @param b the bearing, in degrees
+     * @param c the course, in degrees
+     */
+    public void setBearingAndCourse(double b, double c) {
+        values.set(new CompassValues(b, c));
+        fireStateChanged();
+    }
+
+    public double getBearing() {
+        return values.get().bearing;
+    }
+
+    public double getCourse() {
+        return values.get().course;
+    }
+
+    CompassValues getValues() {
+        return values.get();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Component;
+
+/**
+ * Supplies the component that paints each cell of a JGaugeGrid, like a JTable cell renderer.  The component is only used to paint,
+ * so one instance (typically gauges with setCellRenderer(true), configured with the models of the item) can paint every cell.
+ *
+ * @author kkieffer
+ * @param <T> the type of the grid items
+ */
+public interface GaugeCellRenderer<T> {
+
+    /**
+     * Configure the renderer component for an item
+     * @param grid the grid being painted
+     * @param item the item of the cell
+     * @param index the index of the item
+     * @return the component to paint the cell with
+     */
+    Component getGaugeCellRendererComponent(JGaugeGrid<T> grid, T item, int index);
+
+    /**
+     * Get the models shown in the cell of an item.  The grid listens to them while the cell is visible, and repaints the cell when
+     * they change.
+     * @param item the item
+     * @return the models of the item
+     */
+    GaugeModel[] getModels(T item);
+
+}
@@ -0,0 +1,100 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Exports gauges for thin clients, such as web viewers, that draw the artwork of a gauge once and then move its parts as the state
+ * changes, instead of downloading a new image on every update.
+ *
+ * The artwork is exported as SVG once per configuration, recorded from the same paint methods that paint the gauge on screen.  The
+ * document is centered on the dial and has these groups, drawn in order:
+ * <ul>
+ * <li>face: the static artwork under the needles, such as the background and tick marks</li>
+ * <li>one group per moving part of the gauge (see GaugeRenderer.getPartNames()), painted at rest, such as a needle pointing up or
+ * the compass card with north up</li>
+ * <li>overlay: the static artwork over the needles, such as the bezel</li>
+ * </ul>
+ * Readouts are not part of the artwork; clients draw them from the state values.
+ *
+ * On each update, the state is encoded in a few bytes, big-endian:
+ * <pre>
+ *   unsigned byte   part count (n)
+ *   n times:
+ *     float         rotation of the part in degrees, clockwise, or NaN if the part is hidden
+ *     float         offset of the part along its rotated y axis, positive is down
+ *   unsigned byte   value count (m)
+ *   float[m]        state values, such as the speed, for readouts
+ * </pre>
+ * A client moves each part group with the SVG transform "rotate(rotation) translate(0 offset)".
+ *
+ * @author kkieffer
+ */
+public final class GaugeExport {
+
+    public static final int MAX_VALUES = GaugeRenderer.MAX_STATE_VALUES;  //most state values of any gauge
+
+    private GaugeExport() {
+    }
+
+    /**
+     * Export the artwork of the gauge as SVG, at its current size.  A gauge that isn't shown must be given a size with setSize().
+     * @param gauge the gauge
+     * @return the SVG document
+     * @throws IOException if an image in the artwork couldn't be encoded as PNG
+     */
+    public static String toSvg(JCircularGauge gauge) throws IOException {
+        SvgDocument svg = new SvgDocument();
+        gauge.exportLayers(svg);
+        return svg.toString(gauge.getWidth(), gauge.getHeight());
+    }
+
+    /**
+     * Get the names of the moving parts of a gauge, which are the ids of their SVG groups, in the order of the encoded state
+     * @param gauge the gauge
+     * @return the part names
+     */
+    public static String[] getPartNames(JCircularGauge gauge) {
+        return gauge.getPartNames().clone();
+    }
+
+    /**
+     * Get the most bytes the encoded state of a gauge can take
+     * @param gauge the gauge
+     * @return the size in bytes
+     */
+    public static int getStateSize(JCircularGauge gauge) {
+        return 2 + 8 * gauge.getPartNames().length + 4 * MAX_VALUES;
+    }
+
+    /**
+     * Encode the current state of the gauge, after exporting its SVG at the same size
+     * @param gauge the gauge
+     * @param buffer the buffer to write to, at its position, with at least getStateSize() bytes remaining
+     * @return the number of bytes written
+     */
+    public static int encodeState(JCircularGauge gauge, ByteBuffer buffer) {
+        int start = buffer.position();
+        gauge.encodeState(buffer);
+        return buffer.position() - start;
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Window;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JComponent;
+
+/**
+ * Paint statistics of one gauge, shown in an overlay in its top left corner to find the costly gauges of a live dashboard without
+ * a profiler.  The overlay has three lines: the average and maximum paint time, in milliseconds, of the last 30 frames; the frames
+ * painted per second and the updates requested per frame (updates above one were coalesced into the same paint); and whether the
+ * static layers of the last frame were taken from the cache (hit), rendered into it (miss), or aren't cached (none).  Values too
+ * wide for the overlay are shown as 99.99 ms, 999.9 frames per second, or 99.9 updates per frame; the getters return the actual values.
+ *
+ * The overlay of every gauge is turned on and off by one global switch, which starts on if the system property
+ * jcirculargauges.statsOverlay is true.  Statistics are only collected while the switch is on, so a gauge costs nothing extra when
+ * it is off.  While on, partial repaints of a gauge also repaint its overlay, so they may cover more of the gauge.  Gauges used
+ * as cells of a JGaugeGrid don't show the overlay, since one renderer paints every cell.
+ *
+ * A gauge rendering in the background records each frame when it is first displayed, with the time the render thread took to compose
+ * it, since blitting it on the event dispatch thread costs little.  The gauges record their frames on the event dispatch thread,
+ * where the statistics should be read.
+ *
+ * @author kkieffer
+ */
+public final class GaugeFrameStats {
+
+    /**
+     * How the static layers were painted in a frame
+     */
+    public enum CacheStatus {
+        NONE,   //the gauge doesn't cache its static layers
+        HIT,    //the static layers were taken from the cache
+        MISS    //a static layer was rendered or recorded into the cache
+    }
+
+    private static final int WINDOW = 30;  //frames the statistics are computed over
+    private static final int OVERLAY_COLUMNS = 20;  //characters in the longest overlay line, with the values clamped below
+    private static final double MAX_SHOWN_MILLIS = 99.99;  //largest values that fit their overlay fields
+    private static final double MAX_SHOWN_FPS = 999.9;
+    private static final double MAX_SHOWN_UPDATES = 99.9;
+    private static final int OVERLAY_LINES = 3;
+    private static final int OVERLAY_MARGIN = 2;
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 10);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+
+    private static volatile boolean overlayEnabled = Boolean.getBoolean("jcirculargauges.statsOverlay");
+
+    private final long[] frameStarts = new long[WINDOW];  //rings of the last frames, indexed by frame count modulo the window
+    private final long[] paintNanos = new long[WINDOW];
+    private final int[] frameUpdates = new int[WINDOW];
+    private long frameCount;
+    private CacheStatus cacheStatus = CacheStatus.NONE;
+    private final AtomicInteger pendingUpdates = new AtomicInteger();  //updates requested since the last frame, from any thread
+    private volatile Rectangle overlayBounds;  //null until the overlay is first painted
+
+    /**
+     * Turn the overlay of every gauge on or off, and repaint all windows
+     * @param enable true to collect statistics and show the overlay
+     */
+    public static void setOverlayEnabled(boolean enable) {
+        if (overlayEnabled == enable)
+            return;
+        overlayEnabled = enable;
+        for (Window w : Window.getWindows())
+            w.repaint();
+    }
+
+    public static boolean isOverlayEnabled() {
+        return overlayEnabled;
+    }
+
+
+    /**
+     * Count an update that requests a repaint.  Called by the gauge, from any thread, while the overlay is enabled.
+     */
+    public void updateRequested() {
+        pendingUpdates.incrementAndGet();
+    }
+
+    /**
+     * Record a painted frame.  Called by the gauge on the event dispatch thread at the end of its paint.
+     * @param start the System.nanoTime() when the paint started
+     * @param status how the static layers were painted
+     */
+    public void endFrame(long start, CacheStatus status) {
+        recordFrame(start, System.nanoTime() - start, status);
+    }
+
+    /**
+     * Record a frame painted earlier, such as one composed by the render thread.  Called by the gauge on the event dispatch thread
+     * when the frame is displayed.
+     * @param start the System.nanoTime() when the paint started
+     * @param nanos how long the paint took
+     * @param status how the static layers were painted
+     */
+    public void recordFrame(long start, long nanos, CacheStatus status) {
+        int slot = (int)(frameCount % WINDOW);
+        frameStarts[slot] = start;
+        paintNanos[slot] = nanos;
+        frameUpdates[slot] = pendingUpdates.getAndSet(0);
+        cacheStatus = status;
+        frameCount++;
+    }
+
+    /**
+     * @return the number of frames recorded while the overlay was enabled
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the average paint time of the last frames, in milliseconds
+     */
+    public double getAveragePaintMillis() {
+        int frames = getWindowFrames();
+        if (frames == 0)
+            return 0;
+        long total = 0;
+        for (int i=0; i<frames; i++)
+            total += paintNanos[i];
+        return total / 1e6 / frames;
+    }
+
+    /**
+     * @return the longest paint time of the last frames, in milliseconds
+     */
+    public double getMaxPaintMillis() {
+        long max = 0;
+        for (int i=0; i<getWindowFrames(); i++)
+            max = Math.max(max, paintNanos[i]);
+        return max / 1e6;
+    }
+
+    /**
+     * @return the frames painted per second over the last frames, zero until two are painted
+     */
+    public double getFramesPerSecond() {
+        int frames = getWindowFrames();
+        if (frames < 2)
+            return 0;
+        long newest = frameStarts[(int)((frameCount - 1) % WINDOW)];
+        long oldest = frameStarts[(int)((frameCount - frames) % WINDOW)];
+        return newest > oldest ? (frames - 1) * 1e9 / (newest - oldest) : 0;
+    }
+
+    /**
+     * @return the average updates requested per frame over the last frames.  Above one, updates were coalesced into one paint.
+     */
+    public double getUpdatesPerFrame() {
+        int frames = getWindowFrames();
+        if (frames == 0)
+            return 0;
+        long total = 0;
+        for (int i=0; i<frames; i++)
+            total += frameUpdates[i];
+        return (double)total / frames;
+    }
+
+    /**
+     * @return how the static layers of the last frame were painted
+     */
+    public CacheStatus getCacheStatus() {
+        return cacheStatus;
+    }
+
+    private int getWindowFrames() {
+        return (int)Math.min(frameCount, WINDOW);
+    }
+
+
+    /**
+     * Get the area the overlay is painted in, so partial repaints can include it
+     * @return the bounds in the coordinates of the gauge, or null if the overlay hasn't been painted yet
+     */
+    public Rectangle getOverlayBounds() {
+        return overlayBounds;
+    }
+
+    /**
+     * Paint the overlay in the top left corner of the gauge.  Called by the gauge after painting a frame.
+     * @param g2d the graphics the gauge was painted on, with the transform of the gauge
+     * @param gauge the gauge
+     */
+    public void paintOverlay(Graphics2D g2d, JComponent gauge) {
+
+        FontMetrics fm = gauge.getFontMetrics(OVERLAY_FONT);
+        Rectangle bounds = overlayBounds;
+        if (bounds == null) {
+            bounds = new Rectangle(OVERLAY_MARGIN, OVERLAY_MARGIN, fm.charWidth('0') * OVERLAY_COLUMNS + 2 * OVERLAY_MARGIN, fm.getHeight() * OVERLAY_LINES + 2 * OVERLAY_MARGIN);
+            overlayBounds = bounds;
+        }
+
+        //Clamped so the lines never grow past the bounds, which would leave stale text after partial repaints
+        String[] lines = {String.format("paint %5.2f/%5.2f ms", Math.min(getAveragePaintMillis(), MAX_SHOWN_MILLIS), Math.min(getMaxPaintMillis(), MAX_SHOWN_MILLIS)),
+                          String.format("fps %5.1f upd %4.1f", Math.min(getFramesPerSecond(), MAX_SHOWN_FPS), Math.min(getUpdatesPerFrame(), MAX_SHOWN_UPDATES)),
+                          "cache " + cacheStatus.name().toLowerCase()};
+
+        Graphics2D og = (Graphics2D)g2d.create();
+        try {
+            og.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            og.setColor(OVERLAY_BACKGROUND);
+            og.fill(bounds);
+            og.setColor(Color.WHITE);
+            og.setFont(OVERLAY_FONT);
+            int y = bounds.y + OVERLAY_MARGIN + fm.getAscent();
+            for (String line : lines) {
+                og.drawString(line, bounds.x + OVERLAY_MARGIN, y);
+                y += fm.getHeight();
+            }
+        } finally {
+            og.dispose();
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * The data shown by a gauge, which can be shared by any number of gauge views, like Swing's BoundedRangeModel.  For instance, the
+ * same speed can drive the speedometer on a main panel and a thumbnail on an overview panel with one update.
+ *
+ * Models can be updated from any thread.  Each model keeps its values in an immutable snapshot, replaced on each update, so readers
+ * always see a consistent set of values, and values derived from them are computed once per update rather than once per view.
+ * Change listeners are notified on the event dispatch thread, and all updates made before a notification runs are coalesced into it,
+ * so a burst of updates costs one notification and one repaint per view.  A GaugeTransaction updates many models in one event, and
+ * notifies all their listeners in it.
+ *
+ * @author kkieffer
+ */
+public abstract class GaugeModel {
+
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean notificationPending = new AtomicBoolean();
+    private final ChangeEvent changeEvent = new ChangeEvent(this);
+
+    private final Runnable notifier = new Runnable() {
+        @Override
+        public void run() {
+            notificationPending.set(false);  //updates from here on schedule another notification
+            notifyListeners();
+        }
+    };
+    
+    //Models updated on the event dispatch thread while a batch is applied, only used on the event dispatch thread
+    private static Set<GaugeModel> batchedModels;
+
+    /**
+     * Add a listener, notified on the event dispatch thread after the model changes
+     * @param l the listener
+     */
+    public void addChangeListener(ChangeListener l) {
+        listeners.add(l);
+    }
+
+    public void removeChangeListener(ChangeListener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * Schedule a notification of the listeners, unless one is already pending.  Subclasses call this after each update.
+     */
+    protected void fireStateChanged() {
+        if (listeners.isEmpty())
+            return;  //nothing is showing the model, such as the models of hidden cells in a JGaugeGrid
+        if (batchedModels != null && SwingUtilities.isEventDispatchThread()) {
+            batchedModels.add(this);  //notified when the batch ends
+            return;
+        }
+        if (notificationPending.compareAndSet(false, true))
+            SwingUtilities.invokeLater(notifier);
+    }
+    
+    private void notifyListeners() {
+        for (ChangeListener l : listeners)
+            l.stateChanged(changeEvent);
+    }
+    
+    /**
+     * Run updates as one batch on the event dispatch thread.  The listeners of each model updated are notified once, after all the
+     * updates have run, rather than in a later event for each model.  If the updates throw, the models they updated are still
+     * notified, then the exception is thrown.
+     * @param updates the updates, which must be run on the event dispatch thread
+     */
+    static void applyBatch(Runnable updates) {
+        
+        if (batchedModels != null) {  //already in a batch
+            updates.run();
+            return;
+        }
+        
+        batchedModels = new LinkedHashSet<>();
+        try {
+            updates.run();
+        } finally {
+            Set<GaugeModel> updated = batchedModels;
+            batchedModels = null;
+            for (GaugeModel model : updated)
+                model.notifyListeners();
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The shared daemon thread that composes frames for gauges using background rendering.  Gauges are queued at most once
+ * (see JCircularGauge.requestFrame()), so a burst of updates results in a single frame with the latest state.  A gauge that
+ * fails to render is passed to the uncaught exception handler of the thread, which keeps rendering the other gauges.
+ * 
+ * @author kkieffer
+ */
+final class GaugeRenderThread extends Thread {
+    
+    private static GaugeRenderThread instance;
+    
+    private final LinkedBlockingQueue<JCircularGauge> queue = new LinkedBlockingQueue<>();
+    
+    private GaugeRenderThread() {
+        super("Gauge Render Thread");
+        setDaemon(true);
+    }
+    
+    /**
+     * Queue the gauge to have a frame rendered
+     * @param gauge the gauge, which must not already be queued
+     */
+    static synchronized void submit(JCircularGauge gauge) {
+        if (instance == null) {
+            instance = new GaugeRenderThread();
+            instance.start();
+        }
+        instance.queue.add(gauge);
+    }
+    
+    @Override
+    public void run() {
+        
+        while (true) {
+            
+            JCircularGauge gauge;
+            try {
+                gauge = queue.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            
+            try {
+                gauge.renderBackgroundFrame();
+            } catch (RuntimeException ex) {  //don't let one bad gauge stop rendering of the others
+                getUncaughtExceptionHandler().uncaughtException(this, ex);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,328 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import java.awt.Color;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * Updates many gauges as one frame.  Begin a frame, stage updates to any number of compasses, speedometers, artificial horizons, and
+ * segment gauges, then commit.  The updates of a frame are applied together in one event on the event dispatch thread, where the
+ * listeners of the updated models are notified once each, so all the gauges repaint in the same paint pass and no view shows part
+ * of a frame.  A telemetry frame of 40 values costs one event, rather than one per value or per gauge.
+ *
+ * Frames are staged by one thread at a time, which can be any thread.  Frames committed before the event dispatch thread applies
+ * them are merged, the latest update of each value replacing earlier ones, so a producer faster than the display costs one event
+ * per paint rather than a growing queue.
+ *
+ * An update that throws, such as a segment index out of range, doesn't discard the rest of its frame: the other updates are applied
+ * and every updated model is notified, then the exception is thrown on the event dispatch thread.
+ *
+ * @author kkieffer
+ */
+public class GaugeTransaction {
+
+    private static final int BEARING = 0;
+    private static final int COURSE = 1;
+    private static final int SPEED = 2;
+    private static final int ATTITUDE = 3;
+    private static final int SEGMENT_COLOR = 4;
+    private static final int ALL_SEGMENT_COLORS = 5;
+    private static final int LABEL = 6;
+    private static final int ALL_LABELS = 7;
+
+    //The value an update sets, so a later update of the same value replaces it
+    private static final class Key {
+        private final Object gauge;
+        private final int property;
+        private final int index;
+
+        private Key(Object gauge, int property, int index) {
+            this.gauge = gauge;
+            this.property = property;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key)o;
+            return gauge == k.gauge && property == k.property && index == k.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(gauge) * 31 + property) * 31 + index;
+        }
+    }
+
+    private Map<Key, Runnable> staged;  //the frame begun, null if none, only used by the staging thread
+    private Map<Key, Runnable> committed = new LinkedHashMap<>();  //frames not yet applied, guarded by this
+    private boolean applyScheduled;  //guarded by this
+    private final AtomicLong committedFrames = new AtomicLong();
+    private final AtomicLong appliedEvents = new AtomicLong();
+
+    private final Runnable apply = new Runnable() {
+        @Override
+        public void run() {
+            final Map<Key, Runnable> updates;
+            synchronized (GaugeTransaction.this) {
+                updates = committed;
+                committed = new LinkedHashMap<>();
+                applyScheduled = false;  //frames committed from here on schedule another event
+            }
+            try {
+                GaugeModel.applyBatch(new Runnable() {
+                    @Override
+                    public void run() {
+                        RuntimeException failure = null;
+                        for (Runnable update : updates.values()) {
+                            try {
+                                update.run();
+                            } catch (RuntimeException ex) {  //such as an index out of range, the rest of the frame still applies
+                                if (failure == null)
+                                    failure = ex;
+                                else
+                                    failure.addSuppressed(ex);
+                            }
+                        }
+                        if (failure != null)
+                            throw failure;
+                    }
+                });
+            } finally {
+                appliedEvents.incrementAndGet();
+            }
+        }
+    };
+
+
+    /**
+     * Begin a frame.  Updates staged until the frame is committed are applied together.
+     * @throws IllegalStateException if a frame is already begun
+     */
+    public void begin() {
+        if (staged != null)
+            throw new IllegalStateException("A frame is already begun");
+        staged = new LinkedHashMap<>();
+    }
+
+    /**
+     * Apply the updates staged since the frame began together, in one event on the event dispatch thread.  Returns without waiting.
+     * @throws IllegalStateException if no frame is begun
+     */
+    public void commit() {
+        Map<Key, Runnable> frame = stagedFrame();
+        staged = null;
+        committedFrames.incrementAndGet();
+        if (frame.isEmpty())
+            return;
+
+        boolean schedule;
+        synchronized (this) {
+            for (Map.Entry<Key, Runnable> update : frame.entrySet())
+                replace(committed, update.getKey(), update.getValue());
+            schedule = !applyScheduled;
+            applyScheduled = true;
+        }
+        if (schedule)
+            SwingUtilities.invokeLater(apply);
+    }
+
+    /**
+     * Discard the updates staged since the frame began, and end the frame
+     * @throws IllegalStateException if no frame is begun
+     */
+    public void rollback() {
+        stagedFrame();
+        staged = null;
+    }
+
+    /**
+     * @return true if a frame is begun and not yet committed or rolled back
+     */
+    public boolean isFrameBegun() {
+        return staged != null;
+    }
+
+    private Map<Key, Runnable> stagedFrame() {
+        if (staged == null)
+            throw new IllegalStateException("No frame is begun");
+        return staged;
+    }
+
+    private void stage(Object gauge, int property, int index, Runnable update) {
+        replace(stagedFrame(), new Key(gauge, property, index), update);
+    }
+
+    //The latest update goes last, so it follows any update of all the segments that it overrides
+    private static void replace(Map<Key, Runnable> updates, Key key, Runnable update) {
+        updates.remove(key);
+        updates.put(key, update);
+    }
+
+
+    /**
+     * Stage the bearing of a compass
+     * @param compass the compass
+     * @param bearing the bearing, in degrees
+     */
+    public void setBearing(final JCompass compass, final double bearing) {
+        stage(compass, BEARING, 0, new Runnable() {
+            @Override
+            public void run() {
+                compass.setBearing(bearing);
+            }
+        });
+    }
+
+    /**
+     * Stage the course of a compass
+     * @param compass the compass
+     * @param course the course, in degrees
+     */
+    public void setCourse(final JCompass compass, final double course) {
+        stage(compass, COURSE, 0, new Runnable() {
+            @Override
+            public void run() {
+                compass.setCourse(course);
+            }
+        });
+    }
+
+    /**
+     * Stage the speed of a speedometer
+     * @param speedometer the speedometer
+     * @param speed the speed, in the units of the speedometer
+     */
+    public void setSpeed(final JSpeedometer speedometer, final double speed) {
+        stage(speedometer, SPEED, 0, new Runnable() {
+            @Override
+            public void run() {
+                speedometer.setSpeed(speed);
+            }
+        });
+    }
+
+    /**
+     * Stage the attitude of an artificial horizon
+     * @param horizon the artificial horizon
+     * @param roll the roll, in degrees
+     * @param pitch the pitch, in degrees
+     */
+    public void setAttitude(final JArtificialHorizonGauge horizon, final double roll, final double pitch) {
+        stage(horizon, ATTITUDE, 0, new Runnable() {
+            @Override
+            public void run() {
+                horizon.setAttitude(roll, pitch);
+            }
+        });
+    }
+
+    /**
+     * Stage the color of a segment
+     * @param segments the segment gauge
+     * @param index the segment index, which must be within the valid range when the frame is applied
+     * @param c the new color
+     */
+    public void changeSegmentColor(final JSegmentGauge segments, final int index, final Color c) {
+        stage(segments, SEGMENT_COLOR, index, new Runnable() {
+            @Override
+            public void run() {
+                segments.changeSegmentColor(index, c);
+            }
+        });
+    }
+
+    /**
+     * Stage the color of all the segments
+     * @param segments the segment gauge
+     * @param c the color
+     */
+    public void setAllSegmentColors(final JSegmentGauge segments, final Color c) {
+        stage(segments, ALL_SEGMENT_COLORS, 0, new Runnable() {
+            @Override
+            public void run() {
+                segments.setAllSegmentColors(c);
+            }
+        });
+    }
+
+    /**
+     * Stage the label of a segment
+     * @param segments the segment gauge
+     * @param index the segment index, which must be within the valid range when the frame is applied
+     * @param label the label
+     */
+    public void changeLabel(final JSegmentGauge segments, final int index, final String label) {
+        stage(segments, LABEL, index, new Runnable() {
+            @Override
+            public void run() {
+                segments.changeLabel(index, label);
+            }
+        });
+    }
+
+    /**
+     * Stage clearing all the labels of a segment gauge
+     * @param segments the segment gauge
+     */
+    public void clearAllLabels(final JSegmentGauge segments) {
+        stage(segments, ALL_LABELS, 0, new Runnable() {
+            @Override
+            public void run() {
+                segments.clearAllLabels();
+            }
+        });
+    }
+
+
+    /**
+     * Run updates already on the event dispatch thread as one frame: the listeners of each model they update are notified once,
+     * after all of them have run, in this event.  For sources that apply many updates in one event, such as a GaugeFeed delivery.
+     * @param updates the updates
+     * @throws IllegalStateException if not called on the event dispatch thread
+     */
+    public static void applyNow(Runnable updates) {
+        if (!SwingUtilities.isEventDispatchThread())
+            throw new IllegalStateException("Not on the event dispatch thread");
+        GaugeModel.applyBatch(updates);
+    }
+
+
+    /**
+     * @return the number of frames committed
+     */
+    public long getCommittedCount() {
+        return committedFrames.get();
+    }
+
+    /**
+     * @return the number of events that applied frames.  This is less than the number committed when frames are merged.
+     */
+    public long getAppliedCount() {
+        return appliedEvents.get();
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+Copyright (C) 2018 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Color;
+
+/**
+ * This is an artifical horizon gauge, also known as an attitude gauge / gyro horizon.  These are typically seen in aircraft.
+ * They display land with a horizon and sky, visually depicting the vehicle's pitch and roll.  The horizon moves up and down
+ * to indicate pitch and rotates to indicate roll.  The gauge is painted by an ArtificialHorizonRenderer; see it for the effect of
+ * the pitch sensitivity.
+ * 
+ * The bezel, ground, and sky colors can be customized.  The default is silver, brown, and blue.
+ * 
+ * @author kkieffer
+ */
+public class JArtificialHorizonGauge extends JCircularGauge {
+    
+    private final ArtificialHorizonRenderer renderer;
+    private AttitudeModel model;
+
+    /**
+     * Create the JArtificialHorizon gauge with default parameters
+     */
+    public JArtificialHorizonGauge() {
+        this(new ArtificialHorizonRenderer());
+    }
+    
+    /**
+     * Create the JArtificialHorizon gauge with default parameters
+     * @param pitchSensitivity the pitch sensitivity, where 1.0 corresponds to 45 degrees pitch at half the radius of the gauge
+     */
+    public JArtificialHorizonGauge(double pitchSensitivity) {
+        this(new ArtificialHorizonRenderer(pitchSensitivity));
+    }
+    
+    /**
+     * Create the JArtificialHorizon gauge with a renderer, which may be a subclass
+     * @param renderer the renderer, which is only used by this gauge
+     */
+    protected JArtificialHorizonGauge(ArtificialHorizonRenderer renderer) {
+        super(renderer);
+        this.renderer = renderer;
+        model = new AttitudeModel();
+        replaceModel(null, model);
+    }
+    
+    /**
+     * Share a model with other views.  The attitude setter of the gauge updates its model.
+     * @param model the model, which must not be null
+     */
+    public void setModel(AttitudeModel model) {
+        replaceModel(this.model, model);
+        this.model = model;
+    }
+    
+    public AttitudeModel getModel() {
+        return model;
+    }
+    
+    @Override
+    protected GaugeModel getGaugeModel() {
+        return model;
+    }
+    
+    
+    /**
+     * Customize the gauge colors
+     * @param indicatorColor colors of ticks and labels
+     * @param bezelColor the gauge color, null for default
+     * @param groundColor the ground color, null for default
+     * @param skyColor the sky color, null for default
+     */
+    public final void setColors(Color indicatorColor, Color bezelColor, Color groundColor, Color skyColor) {
+        synchronized (getRenderLock()) {
+            renderer.setColors(indicatorColor, bezelColor, groundColor, skyColor);
+        }
+        repaint();
+    }
+   
+ 
+    /**
+     * Update the pitch and roll values, in degrees
+     * @param roll positive value roll to right / starboard
+     * @param pitch positive value is pitch up
+     */
+    public final void setAttitude(double roll, double pitch) {
+        model.setAttitude(roll, pitch);
+    }
+    
+    
+    @Override
+    protected void snapshotState() {
+        renderer.setValues(model.getValues());
+    }
+    
+}
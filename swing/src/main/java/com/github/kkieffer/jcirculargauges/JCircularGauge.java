@@ -0,0 +1,637 @@
+/*
+Copyright (C) 2018 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import com.github.kkieffer.jcirculargauges.GaugeRenderer.LevelOfDetail;
+import com.github.kkieffer.jcirculargauges.GaugeRenderer.StaticLayerCache;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Base class for the circular gauge components.  The gauge is painted by a GaugeRenderer, from the core module, which has no
+ * dependency on Swing; see it for the layers, static layer caching, and levels of detail.  The component listens to its model,
+ * copies the model state into the renderer at the start of each frame, and paints the renderer at the size of the component.
+ * 
+ * Optionally, accelerated buffering keeps the static layers and the composed frame in VolatileImages, so blits are done by the
+ * graphics pipeline (for instance XRender on Linux) rather than the CPU.  If volatile images are not accelerated, or are not
+ * available (headless), the gauge silently paints with BufferedImages instead.
+ * 
+ * Optionally, background rendering composes each frame on a shared render thread, so paint() on the EDT only blits the latest
+ * finished frame.  Frames are triple buffered: the render thread publishes a finished frame with an atomic swap, and a frame
+ * that is replaced before the EDT displays it is dropped.  At the start of each frame, snapshotState() is called so subclasses
+ * can copy their values (which setters may change from any thread) into the renderer, keeping the frame consistent.
+ *
+ * While GaugeFrameStats.setOverlayEnabled() is on, the paint time, frame rate, coalesced updates, and static layer cache status
+ * of the gauge are shown in its top left corner.
+ *
+ * @author kkieffer
+ */
+public class JCircularGauge extends JComponent {
+    
+    private static final int MAX_VOLATILE_ATTEMPTS = 3;  //times to retry a frame when the volatile image contents are lost
+    
+    private final GaugeRenderer renderer;
+    private VolatileImage frameBuffer;
+    
+    private final Object renderLock = new Object();  //held while composing a frame, which may be on the render thread
+    private volatile boolean backgroundRendering;
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    private final AtomicReference<Frame> readyFrame = new AtomicReference<>();  //latest finished frame, not yet displayed
+    private final AtomicReference<Frame> spareFrame = new AtomicReference<>();  //returned by the EDT for reuse
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private Frame frontFrame;  //displayed frame, only accessed on the EDT
+    private Frame backFrame;  //frame being rendered, only accessed on the render thread
+    private volatile double deviceScaleX = 1.0;  //scale of the last Graphics painted to, used by the render thread
+    private volatile double deviceScaleY = 1.0;
+    private final GaugeFrameStats frameStats = new GaugeFrameStats();
+    private GaugeFrameStats.CacheStatus lastCacheStatus = GaugeFrameStats.CacheStatus.NONE;  //of the last frame composed, guarded by renderLock
+    
+    /**
+     * A frame composed by the render thread, with the size and scale it was rendered for
+     */
+    private static final class Frame {
+        private BufferedImage image;
+        private int width;
+        private int height;
+        private double scaleX;
+        private double scaleY;
+        private long renderStart;  //System.nanoTime() when composing started
+        private long renderNanos;
+        private GaugeFrameStats.CacheStatus cacheStatus;
+        
+        private boolean matches(int width, int height, double scaleX, double scaleY) {
+            return this.width == width && this.height == height && this.scaleX == scaleX && this.scaleY == scaleY;
+        }
+    }
+    
+    private boolean cellRenderer;
+    private final ChangeListener modelListener = new ChangeListener() {  //repaints when the model changes
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            modelChanged();
+        }
+    };
+    
+    /**
+     * Create the gauge with a renderer that paints only the background and bezel
+     */
+    public JCircularGauge() {
+        this(new GaugeRenderer());
+    }
+    
+    /**
+     * Create the gauge with a renderer
+     * @param renderer the renderer, which is only used by this gauge
+     */
+    protected JCircularGauge(GaugeRenderer renderer) {
+        this.renderer = renderer;
+    }
+    
+    /**
+     * Get the renderer.  Its state must only be changed in snapshotState(), or while holding the render lock.
+     * @return the renderer
+     */
+    protected GaugeRenderer getRenderer() {
+        return renderer;
+    }
+    
+    /**
+     * Get the lock held while a frame is composed, which may be on the render thread.  Subclass setters that change the renderer
+     * must hold it, so the change can't land in the middle of a frame.  snapshotState() is called with it held.
+     * @return the lock
+     */
+    protected final Object getRenderLock() {
+        return renderLock;
+    }
+    
+    /**
+     * Stop listening to the old model and repaint on changes to the new one.  Subclasses call this when their model is replaced.
+     * @param oldModel the previous model, null if none
+     * @param newModel the new model
+     */
+    protected void replaceModel(GaugeModel oldModel, GaugeModel newModel) {
+        if (cellRenderer)
+            return;  //the grid listens to the models of visible cells
+        if (oldModel != null)
+            oldModel.removeChangeListener(modelListener);
+        newModel.addChangeListener(modelListener);
+        repaint();
+    }
+    
+    /**
+     * Use the gauge only to paint the cells of a JGaugeGrid.  A cell renderer doesn't listen to its model or repaint itself, so its
+     * model can be replaced for each cell it paints at no cost.
+     * @param cellRenderer true to use the gauge as a cell renderer
+     */
+    public void setCellRenderer(boolean cellRenderer) {
+        if (this.cellRenderer == cellRenderer)
+            return;
+        GaugeModel model = getGaugeModel();
+        if (cellRenderer && model != null)
+            model.removeChangeListener(modelListener);
+        this.cellRenderer = cellRenderer;
+        if (!cellRenderer && model != null)
+            replaceModel(null, model);
+    }
+    
+    public boolean isCellRenderer() {
+        return cellRenderer;
+    }
+    
+    /**
+     * Get the model of the gauge, for subclasses that have one
+     * @return the model, null if none
+     */
+    protected GaugeModel getGaugeModel() {
+        return null;
+    }
+    
+    /**
+     * Called on the event dispatch thread when the model changes.  Repaints the whole gauge; subclasses can repaint only the area
+     * that changes.
+     */
+    protected void modelChanged() {
+        repaint();
+    }
+    
+    protected void setBezelGradients(float[] d) {
+        synchronized (renderLock) {
+            renderer.setBezelGradients(d);
+        }
+        repaint();
+    }
+    
+    /**
+     * Customize the gauge colors
+     * @param bezelColor the gauge color, null for default
+     * @param background the gauge background color
+     */
+    public final void setColors(Color bezelColor, Color background) {
+        synchronized (renderLock) {
+            renderer.setColors(bezelColor, background);
+        }
+        repaint();
+    }
+    
+    /**
+     * Set how the face and overlay are cached.  The default is IMAGE.
+     * @param cache the caching mode, null for NONE
+     */
+    public void setStaticLayerCache(StaticLayerCache cache) {
+        synchronized (renderLock) {  //free whatever the previous mode held
+            renderer.setStaticLayerCache(cache);
+        }
+        repaint();
+    }
+    
+    public StaticLayerCache getStaticLayerCache() {
+        return renderer.getStaticLayerCache();
+    }
+    
+    /**
+     * Set the rendering hints for the static layers and the dynamic layer.  The default is RenderingProfile.DEFAULT.
+     * @param profile the profile, null for the default
+     */
+    public void setRenderingProfile(RenderingProfile profile) {
+        synchronized (renderLock) {
+            renderer.setRenderingProfile(profile);
+        }
+        repaint();
+    }
+    
+    public RenderingProfile getRenderingProfile() {
+        return renderer.getRenderingProfile();
+    }
+    
+    /**
+     * Set a cache directory that the face and overlay images are loaded from when they were rendered before, by this or an earlier
+     * run, and saved to when they are rendered.  Only used with the IMAGE static layer cache.  The default is none.
+     * @param cache the cache, which can be shared by any number of gauges, or null for none
+     */
+    public void setAssetCache(GaugeAssetCache cache) {
+        synchronized (renderLock) {
+            renderer.setAssetCache(cache);
+        }
+    }
+    
+    public GaugeAssetCache getAssetCache() {
+        return renderer.getAssetCache();
+    }
+    
+    /**
+     * Set the smallest outside radius, in pixels, at which a level of detail is used.  The level for a radius is the highest
+     * one whose threshold is at or below it.  The defaults are 0 (MINIMAL), 75 (LOW), 150 (MEDIUM), 200 (HIGH), and 251 (FULL), so
+     * THUMBNAIL is only used once the MINIMAL threshold is raised.  The speedometer uses 100 (LOW) and 151 (MEDIUM).
+     * @param level the level, which can't be THUMBNAIL since it is used for all radii below the MINIMAL threshold
+     * @param minRadius the smallest radius
+     */
+    public void setDetailThreshold(LevelOfDetail level, int minRadius) {
+        synchronized (renderLock) {
+            renderer.setDetailThreshold(level, minRadius);
+        }
+        repaint();
+    }
+    
+    public int getDetailThreshold(LevelOfDetail level) {
+        return renderer.getDetailThreshold(level);
+    }
+    
+    /**
+     * Set a paint time budget.  The level of detail is lowered when the average paint time is over the budget, and raised (up to
+     * the level for the radius) when it is under half the budget.  Frames that render static layers into the cache are not counted.
+     * @param millis the budget in milliseconds, zero for none (the default), in which case the level depends only on the radius
+     */
+    public void setDetailBudget(double millis) {
+        synchronized (renderLock) {
+            renderer.setDetailBudget(millis);
+        }
+        repaint();
+    }
+    
+    public double getDetailBudget() {
+        return renderer.getDetailBudget();
+    }
+    
+    /**
+     * Get the level of detail for the frame being painted, or the last one painted
+     * @return the level of detail
+     */
+    public LevelOfDetail getLevelOfDetail() {
+        return renderer.getLevelOfDetail();
+    }
+    
+    /**
+     * Get the approximate memory held by the cached face and overlay, in the current caching mode
+     * @return the size in bytes, or zero if nothing is cached yet
+     */
+    public long getStaticLayerFootprint() {
+        synchronized (renderLock) {
+            return renderer.getStaticLayerFootprint();
+        }
+    }
+    
+    /**
+     * Enable or disable accelerated buffering. The default is disabled.  When enabled, the cached static layers and the composed
+     * frame are held in VolatileImages if the graphics pipeline accelerates them, otherwise the gauge paints as if disabled.
+     * @param enable true to use accelerated buffering when available
+     */
+    public void setAcceleratedBuffering(boolean enable) {
+        synchronized (renderLock) {
+            renderer.setAcceleratedBuffering(enable);
+        }
+        if (!enable) {
+            if (frameBuffer != null)
+                frameBuffer.flush();
+            frameBuffer = null;
+        }
+        repaint();
+    }
+    
+    public boolean isAcceleratedBuffering() {
+        return renderer.isAcceleratedBuffering();
+    }
+    
+    /**
+     * Check if the gauge is actually painting with accelerated volatile images
+     * @return true if accelerated buffering is on and the pipeline supports it
+     */
+    public boolean isAcceleratedBufferingActive() {
+        return getAcceleratedConfiguration() != null && frameBuffer != null;
+    }
+    
+    /**
+     * Enable or disable background rendering.  The default is disabled.  When enabled, frames are composed on a shared render thread
+     * and paint() only blits the latest finished frame.  Accelerated buffering is not used while background rendering.  May be called
+     * from any thread; the displayed frame is released on the event dispatch thread.
+     * @param enable true to render frames in the background
+     */
+    public void setBackgroundRendering(boolean enable) {
+        backgroundRendering = enable;
+        if (!enable) {
+            readyFrame.set(null);
+            spareFrame.set(null);
+            if (SwingUtilities.isEventDispatchThread())
+                frontFrame = null;
+            else
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!backgroundRendering)  //not enabled again in the meantime
+                            frontFrame = null;
+                    }
+                });
+        }
+        repaint();
+    }
+    
+    public boolean isBackgroundRendering() {
+        return backgroundRendering;
+    }
+    
+    /**
+     * Get the number of frames rendered in the background that were replaced by a newer frame before they were displayed
+     * @return the count of dropped frames
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrames.get();
+    }
+    
+    /**
+     * Get the paint statistics shown by the overlay, which are only collected while GaugeFrameStats.isOverlayEnabled()
+     * @return the statistics
+     */
+    public GaugeFrameStats getFrameStats() {
+        return frameStats;
+    }
+    
+    /**
+     * Called at the start of every frame, before any layer is painted, possibly on the render thread.  Subclasses should copy
+     * their current values into the renderer, so the whole frame is painted from the same state.
+     */
+    protected void snapshotState() {
+    }
+    
+    
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        if (cellRenderer)
+            return;  //the grid repaints its cells
+        Rectangle overlay = null;
+        if (GaugeFrameStats.isOverlayEnabled()) {
+            frameStats.updateRequested();
+            overlay = frameStats.getOverlayBounds();
+        }
+        if (backgroundRendering)
+            requestFrame();  //repaints once the frame is ready
+        else {
+            super.repaint(tm, x, y, width, height);
+            if (overlay != null)
+                super.repaint(tm, overlay.x, overlay.y, overlay.width, overlay.height);  //keep the statistics current
+        }
+    }
+    
+    //Queue this gauge on the render thread, unless it is already queued
+    private void requestFrame() {
+        if (frameRequested.compareAndSet(false, true))
+            GaugeRenderThread.submit(this);
+    }
+    
+    
+    /**
+     * Compose a frame with the current state and publish it for the EDT.  Called on the render thread.
+     */
+    void renderBackgroundFrame() {
+        
+        frameRequested.set(false);  //updates from here on request another frame
+        
+        if (!backgroundRendering)
+            return;
+        
+        int width = getWidth();
+        int height = getHeight();
+        double scaleX = deviceScaleX;
+        double scaleY = deviceScaleY;
+        if (width <= 0 || height <= 0)
+            return;
+        
+        Frame frame = backFrame;
+        if (frame == null)
+            frame = spareFrame.getAndSet(null);
+        if (frame == null)
+            frame = new Frame();
+        
+        int pixelWidth = GaugeRenderer.devicePixels(width, scaleX);
+        int pixelHeight = GaugeRenderer.devicePixels(height, scaleY);
+        if (frame.image == null || frame.image.getWidth() != pixelWidth || frame.image.getHeight() != pixelHeight)
+            frame.image = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        
+        Graphics2D fg = frame.image.createGraphics();
+        try {
+            fg.setComposite(AlphaComposite.Clear);
+            fg.fillRect(0, 0, pixelWidth, pixelHeight);
+            fg.setComposite(AlphaComposite.SrcOver);
+            fg.scale(scaleX, scaleY);
+            frame.renderStart = System.nanoTime();
+            frame.cacheStatus = paintLayers(fg);
+            frame.renderNanos = System.nanoTime() - frame.renderStart;
+        } finally {
+            fg.dispose();
+        }
+        frame.width = width;
+        frame.height = height;
+        frame.scaleX = scaleX;
+        frame.scaleY = scaleY;
+        
+        //Publish, and reuse the previous ready frame if the EDT never took it
+        backFrame = readyFrame.getAndSet(frame);
+        if (backFrame != null)
+            droppedFrames.incrementAndGet();
+        
+        super.repaint(0, 0, 0, width, height);
+    }
+    
+    
+    //Blit the latest frame from the render thread, requesting a new one if it doesn't match the component.  Returns the frame if it
+    //is displayed for the first time, otherwise null.
+    private Frame paintBackgroundFrame(Graphics2D g2d) {
+        
+        AffineTransform deviceTransform = g2d.getTransform();
+        deviceScaleX = deviceTransform.getScaleX();
+        deviceScaleY = deviceTransform.getScaleY();
+        
+        Frame frame = readyFrame.getAndSet(null);
+        if (frame != null) {
+            if (frontFrame != null)
+                spareFrame.set(frontFrame);
+            frontFrame = frame;
+        }
+        
+        if (frontFrame == null || !frontFrame.matches(getWidth(), getHeight(), deviceScaleX, deviceScaleY))
+            requestFrame();
+        
+        if (frontFrame != null)
+            GaugeRenderer.blit(g2d, frontFrame.image, deviceTransform);
+        return frame;
+    }
+    
+    /**
+     * Discard the cached face and overlay so they are re-rendered on the next paint, and repaint.  Call this whenever a setting
+     * of the renderer that is drawn in its face or overlay changes.
+     */
+    protected void invalidateStaticLayers() {
+        synchronized (renderLock) {
+            renderer.invalidateStaticLayers();
+        }
+        repaint();
+    }
+    
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(300, 300);
+    }
+    
+    
+    /**
+     * Get the names of the moving parts of the renderer, see GaugeExport
+     * @return the part names
+     */
+    String[] getPartNames() {
+        return renderer.getPartNames();
+    }
+    
+    /**
+     * Record the face, the parts at rest, and the overlay into SVG groups, at the current size of the gauge
+     * @param svg the document
+     */
+    void exportLayers(SvgDocument svg) {
+        synchronized (renderLock) {
+            snapshotState();
+            renderer.exportLayers(svg, getWidth(), getHeight());
+        }
+    }
+    
+    /**
+     * Write the pose of each part and the state values for the current state, in the layout described by GaugeExport
+     * @param buffer the buffer to write to
+     */
+    void encodeState(ByteBuffer buffer) {
+        synchronized (renderLock) {
+            snapshotState();
+            renderer.encodeState(buffer);
+        }
+    }
+    
+    
+    @Override
+    public void paint(Graphics g) {
+        
+        Graphics2D g2d = (Graphics2D)g;
+        
+        boolean stats = !cellRenderer && GaugeFrameStats.isOverlayEnabled();
+        
+        if (backgroundRendering && GaugeRenderer.isDeviceAligned(g2d.getTransform())) {
+            Frame shown = paintBackgroundFrame(g2d);
+            if (stats && shown != null)  //the cost is composing the frame on the render thread, not the blit
+                frameStats.recordFrame(shown.renderStart, shown.renderNanos, shown.cacheStatus);
+        } else {
+            long start = System.nanoTime();
+            paintComposed(g2d);
+            if (stats) {
+                GaugeFrameStats.CacheStatus status;
+                synchronized (renderLock) {
+                    status = lastCacheStatus;
+                }
+                frameStats.endFrame(start, status);
+            }
+        }
+        
+        if (stats)
+            frameStats.paintOverlay(g2d, this);
+    }
+    
+    
+    //Compose the frame in the frame buffer or directly on the graphics
+    private void paintComposed(Graphics2D g2d) {
+        GraphicsConfiguration gc = getAcceleratedConfiguration();
+        if (gc == null || !GaugeRenderer.isDeviceAligned(g2d.getTransform()) || !paintToFrameBuffer(g2d, gc))
+            paintLayers(g2d);
+    }
+    
+    
+    //Paint the face, dynamic content, and overlay with the current state.  Returns how the static layers were painted.
+    private GaugeFrameStats.CacheStatus paintLayers(Graphics2D g2d) {
+        synchronized (renderLock) {
+            snapshotState();
+            renderer.setGraphicsConfiguration(backgroundRendering ? null : getGraphicsConfiguration());
+            renderer.paint(g2d, getWidth(), getHeight());
+            
+            if (renderer.getStaticLayerCache() == StaticLayerCache.NONE)
+                lastCacheStatus = GaugeFrameStats.CacheStatus.NONE;
+            else
+                lastCacheStatus = renderer.isFrameCacheMiss() ? GaugeFrameStats.CacheStatus.MISS : GaugeFrameStats.CacheStatus.HIT;
+            return lastCacheStatus;
+        }
+    }
+    
+    
+    //Compose the frame in the volatile frame buffer and blit it.  Returns false if the frame buffer can't be used.
+    private boolean paintToFrameBuffer(Graphics2D g2d, GraphicsConfiguration gc) {
+        
+        AffineTransform deviceTransform = g2d.getTransform();
+        Dimension size = getSize();
+        int width = GaugeRenderer.devicePixels(size.width, deviceTransform.getScaleX());
+        int height = GaugeRenderer.devicePixels(size.height, deviceTransform.getScaleY());
+        
+        for (int attempt = 0; attempt < MAX_VOLATILE_ATTEMPTS; attempt++) {
+            
+            if (frameBuffer == null || frameBuffer.getWidth() != width || frameBuffer.getHeight() != height || frameBuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (frameBuffer != null)
+                    frameBuffer.flush();
+                frameBuffer = renderer.createAcceleratedImage(gc, width, height);
+                if (frameBuffer == null)
+                    return false;
+            }
+            
+            Graphics2D fg = frameBuffer.createGraphics();
+            try {
+                fg.setComposite(AlphaComposite.Clear);
+                fg.fillRect(0, 0, width, height);
+                fg.setComposite(AlphaComposite.SrcOver);
+                fg.scale(deviceTransform.getScaleX(), deviceTransform.getScaleY());
+                paintLayers(fg);
+            } finally {
+                fg.dispose();
+            }
+            
+            if (frameBuffer.contentsLost())
+                continue;
+            
+            GaugeRenderer.blit(g2d, frameBuffer, deviceTransform);
+            
+            if (!frameBuffer.contentsLost())
+                return true;
+        }
+        return false;
+    }
+    
+    
+    //Get the graphics configuration to create volatile images with, or null if accelerated buffering is off or unavailable
+    private GraphicsConfiguration getAcceleratedConfiguration() {
+        if (backgroundRendering || !renderer.canAccelerate())
+            return null;
+        return getGraphicsConfiguration();
+    }
+    
+}
@@ -0,0 +1,235 @@
+/*
+Copyright (C) 2018 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import javax.swing.SwingUtilities;
+
+/**
+ * This is a typical compass gauge with numeric readout, from 0 to 360 degrees, with 0 = N, 90 = E, etc.  The gauge is painted by a
+ * CompassRenderer; see it for the card layout.
+ * 
+ * The primary needle is to show bearing of the vehicle, an optional secondary needle shows the desired course.
+ * 
+ * An optional trail shows the recent bearings as a fading arc around the card, newest outermost.
+ * 
+ * The compass can be configured to be north up, where N is always at the top and the primary needle moves.  If not set for north up, the compass rotates
+ * while the bearing needle always points up.  Regardless of the setting, the course needle always points to the set course.
+ * 
+ * When north up without a trail, only the needles that moved and the readout are repainted when the bearing or course changes.
+
+ * @author kkieffer
+ */
+public class JCompass extends JCircularGauge {
+    
+    private final CompassRenderer renderer;
+    private CompassModel model;
+    private int trailLength;
+    private long trailMaxAge;
+    private Color trailColor;
+    private volatile CompassValues requestedValues;  //the values the last model change repainted for, null to paint the model's
+    
+    /**
+     * Create the JCompass gauge 
+     * @param northUp true to always have north up, otherwise, gauge rotates and bearing is always up
+     */
+    public JCompass(boolean northUp) {
+        this(new CompassRenderer(northUp));
+    }
+    
+    /**
+     * Create the JCompass gauge with a renderer, which may be a subclass
+     * @param renderer the renderer, which is only used by this gauge
+     */
+    protected JCompass(CompassRenderer renderer) {
+        super(renderer);
+        this.renderer = renderer;
+        model = new CompassModel();
+        replaceModel(null, model);
+    }
+    
+    @Override
+    protected CompassRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Share a model with other views.  The bearing and course setters of the compass update its model.
+     * @param model the model, which must not be null
+     */
+    public void setModel(CompassModel model) {
+        replaceModel(this.model, model);
+        this.model = model;
+        requestedValues = null;
+        synchronized (getRenderLock()) {
+            renderer.clearBearingTrail();
+        }
+    }
+    
+    public CompassModel getModel() {
+        return model;
+    }
+    
+    @Override
+    protected GaugeModel getGaugeModel() {
+        return model;
+    }
+
+    
+    public boolean isNorthUp() {
+        return renderer.isNorthUp();
+    }
+    
+    
+    public void setNorthUp(boolean northUp) {
+        synchronized (getRenderLock()) {
+            renderer.setNorthUp(northUp);
+        }
+        repaint();
+    }
+    
+    /**
+     * Set the colors of the gauge
+     * @param indicator the needle and labels, marks.  If null, color is black
+     * @param courseNeedle color of the course needle. If null, color is red
+     * @param bezelColor the gauge color, null for default
+     * @param background the gauge background color
+     */
+     public void setColors(Color indicator, Color courseNeedle, Color bezelColor, Color background) {
+        synchronized (getRenderLock()) {
+            renderer.setColors(indicator, courseNeedle, bezelColor, background);
+        }
+        repaint();
+    }
+    
+    /**
+     * Set the direction in degrees of the bearing needle
+     * @param b the bearing, from 0-360.  Values outside this range will be modulus 360.
+     */
+    public final void setBearing(double b) {
+        model.setBearing(b);
+    }
+    
+    /**
+     * Set the direction in degrees of the course needle
+     * @param c the course, from 0-360.  Values outside this range will be modulus 360.
+     */
+    public final void setCourse(double c) {
+        model.setCourse(c);
+    }
+    
+    /**
+     * Get the bearing in radians
+     * @return 
+     */
+    protected double getBearing() {
+        return model.getValues().bearingRadians;
+    }
+    
+    /**
+     * Get the course in radians
+     * @return 
+     */
+    protected double getCourse() {
+        return model.getValues().courseRadians;
+    }
+    
+    
+    /**
+     * Show or hide the course needle.  The default is to show.
+     * @param show 
+     */
+    public void showCourseNeedle(boolean show) {
+        synchronized (getRenderLock()) {
+            renderer.showCourseNeedle(show);
+        }
+        repaint();
+    }
+    
+
+    /**
+     * Show a trail of the recent bearings, or remove it.  Each bearing shown by the compass is added, so the trail covers the last
+     * length repaints with a new bearing.  Its memory is fixed by the length.  Not drawn in thumbnails or in cell renderer mode.
+     * @param length the number of bearings in the trail, or 0 to remove the trail
+     * @param maxAgeMillis parts of the trail older than this fade out at the next repaint, or 0 to keep them
+     * @param color color of the trail, if null, the indicator color
+     */
+    public void setBearingTrail(int length, long maxAgeMillis, Color color) {
+        trailLength = length;
+        trailMaxAge = maxAgeMillis;
+        trailColor = color;
+        applyBearingTrail();
+        repaint();
+    }
+    
+    /**
+     * Clear the bearings of the trail, if shown
+     */
+    public void clearBearingTrail() {
+        synchronized (getRenderLock()) {
+            renderer.clearBearingTrail();
+        }
+        repaint();
+    }
+    
+    //A cell renderer paints many models, so it has no trail
+    private void applyBearingTrail() {
+        synchronized (getRenderLock()) {
+            renderer.setBearingTrail(isCellRenderer() ? 0 : trailLength, trailMaxAge, trailColor);
+        }
+    }
+    
+    @Override
+    public void setCellRenderer(boolean cellRenderer) {
+        requestedValues = null;  //cells paint the model, and a listener added again starts with a full repaint
+        super.setCellRenderer(cellRenderer);
+        applyBearingTrail();
+    }
+    
+    
+    @Override
+    protected void modelChanged() {
+        
+        CompassValues values = model.getValues();
+        CompassValues from = requestedValues;
+        requestedValues = values;
+        
+        if (from == null) {
+            repaint();
+            return;
+        }
+        
+        Rectangle changed;
+        synchronized (getRenderLock()) {  //may fill caches of the renderer that a frame also uses
+            changed = renderer.getChangedBounds(from, values, getWidth(), getHeight());
+        }
+        if (!changed.isEmpty())
+            repaint(changed);
+    }
+    
+    @Override
+    protected void snapshotState() {
+        //Repaints of a requested area paint the values it was computed for.  Newer values have a notification pending, which
+        //repaints for them.  Other paints, such as into images off the event dispatch thread, paint the latest values.
+        CompassValues values = requestedValues;
+        renderer.setValues(values != null && SwingUtilities.isEventDispatchThread() ? values : model.getValues());
+    }
+    
+}
@@ -0,0 +1,275 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.CellRendererPane;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * A grid of gauge cells, one per item, meant to be placed in a JScrollPane.  Like a JTable, the cells aren't components: a cell
+ * renderer supplies a component, typically gauges in cell renderer mode, which is configured with the models of each visible item and
+ * painted in its cell.  Only the models of the visible cells are listened to, so updates to hidden items don't notify or repaint,
+ * and memory and painting time scale with the size of the viewport rather than the number of items.
+ *
+ * Cells are laid out left to right, in as many columns as fit the width of the grid, and all have the same size.  Call on the event
+ * dispatch thread; the models of the items can be updated from any thread.  The listeners are removed when the grid is removed from
+ * its container, so a discarded grid isn't kept reachable by the models.
+ *
+ * @author kkieffer
+ * @param <T> the type of the items
+ */
+public class JGaugeGrid<T> extends JComponent implements Scrollable {
+
+    private static final int DEFAULT_COLUMNS = 8;  //preferred width when not in a viewport
+    private static final int DEFAULT_ROWS = 4;  //preferred viewport height
+
+    private final GaugeCellRenderer<T> renderer;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final CellRendererPane rendererPane = new CellRendererPane();
+    private List<T> items = Collections.emptyList();
+
+    private CellListener[] attached = new CellListener[0];  //listeners of the visible cells, starting at attachedFirst
+    private int attachedFirst;
+    private JViewport viewport;  //the viewport the grid is in while displayable, null for none
+    
+    //Follows the visible cells as the viewport scrolls or resizes
+    private final ChangeListener viewportListener = new ChangeListener() {
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            attachVisibleCells();
+        }
+    };
+
+    //Repaints a visible cell when one of its models changes
+    private static final class CellListener implements ChangeListener {
+        private final JGaugeGrid<?> grid;
+        private final int index;
+        private final GaugeModel[] models;
+
+        private CellListener(JGaugeGrid<?> grid, int index, GaugeModel[] models) {
+            this.grid = grid;
+            this.index = index;
+            this.models = models;
+            for (GaugeModel m : models)
+                m.addChangeListener(this);
+        }
+
+        private void detach() {
+            for (GaugeModel m : models)
+                m.removeChangeListener(this);
+        }
+
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            grid.repaint(grid.getCellBounds(index));
+        }
+    }
+
+    /**
+     * Create an empty grid
+     * @param renderer supplies the component that paints each cell
+     * @param cellWidth the width of each cell
+     * @param cellHeight the height of each cell
+     */
+    public JGaugeGrid(GaugeCellRenderer<T> renderer, int cellWidth, int cellHeight) {
+        this.renderer = renderer;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        add(rendererPane);
+        setOpaque(true);
+    }
+
+    /**
+     * Set the items, one per cell.  The list is not copied, so call again after changing it.
+     * @param items the items
+     */
+    public void setItems(List<T> items) {
+        attachCells(0, -1);
+        this.items = items;
+        revalidate();
+        repaint();
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getColumnCount() {
+        return Math.max(1, getWidth() / cellWidth);
+    }
+
+    public int getRowCount() {
+        int columns = getColumnCount();
+        return (items.size() + columns - 1) / columns;
+    }
+
+    /**
+     * Get the bounds of the cell of an item
+     * @param index the item index
+     * @return the bounds, in the coordinates of the grid
+     */
+    public Rectangle getCellBounds(int index) {
+        int columns = getColumnCount();
+        return new Rectangle((index % columns) * cellWidth, (index / columns) * cellHeight, cellWidth, cellHeight);
+    }
+
+    /**
+     * @return the number of cells whose models are being listened to, which is the number of visible cells
+     */
+    public int getAttachedCount() {
+        return attached.length;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet())
+            return super.getPreferredSize();
+
+        Container parent = getParent();
+        int width = parent instanceof JViewport ? parent.getWidth() : cellWidth * Math.min(DEFAULT_COLUMNS, Math.max(1, items.size()));
+        int columns = Math.max(1, width / cellWidth);
+        int rows = (items.size() + columns - 1) / columns;
+        return new Dimension(columns * cellWidth, rows * cellHeight);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+
+        Rectangle visible = attachVisibleCells();
+        int columns = getColumnCount();
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = visible;
+
+        int firstRow = clip.y / cellHeight;
+        int lastRow = (clip.y + clip.height - 1) / cellHeight;
+        int firstColumn = clip.x / cellWidth;
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width - 1) / cellWidth);
+
+        for (int row=firstRow; row<=lastRow; row++) {
+            for (int column=firstColumn; column<=lastColumn; column++) {
+                int index = row * columns + column;
+                if (index >= items.size())
+                    break;
+                Component c = renderer.getGaugeCellRendererComponent(this, items.get(index), index);
+                rendererPane.paintComponent(g, c, this, column * cellWidth, row * cellHeight, cellWidth, cellHeight, true);
+            }
+        }
+        rendererPane.removeAll();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        Container parent = getParent();
+        if (parent instanceof JViewport) {
+            viewport = (JViewport)parent;
+            viewport.addChangeListener(viewportListener);
+        }
+    }
+    
+    @Override
+    public void removeNotify() {
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+            viewport = null;
+        }
+        attachCells(0, -1);  //stop listening, so the models don't keep the grid reachable or repaint it
+        super.removeNotify();
+    }
+
+    //Listen to the models of the visible cells only, returning the visible rectangle
+    private Rectangle attachVisibleCells() {
+        Rectangle visible = getVisibleRect();
+        int columns = getColumnCount();
+        int first = (visible.y / cellHeight) * columns;
+        int last = Math.min(items.size() - 1, ((visible.y + visible.height - 1) / cellHeight + 1) * columns - 1);
+        attachCells(first, visible.isEmpty() ? first - 1 : last);
+        return visible;
+    }
+
+    //Listen to the models of the cells from first to last, reusing the listeners of cells that were already attached
+    private void attachCells(int first, int last) {
+
+        int count = Math.max(0, last - first + 1);
+        if (first == attachedFirst && count == attached.length)
+            return;
+
+        CellListener[] cells = new CellListener[count];
+        for (int i=0; i<attached.length; i++) {
+            int index = attachedFirst + i;
+            if (index >= first && index <= last)
+                cells[index - first] = attached[i];
+            else
+                attached[i].detach();
+        }
+        for (int i=0; i<count; i++)
+            if (cells[i] == null)
+                cells[i] = new CellListener(this, first + i, renderer.getModels(items.get(first + i)));
+
+        attached = cells;
+        attachedFirst = first;
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension size = getPreferredSize();
+        return new Dimension(size.width, Math.min(size.height, DEFAULT_ROWS * cellHeight));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? cellHeight / 4 : cellWidth / 4;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? Math.max(cellHeight, visibleRect.height - cellHeight) : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import javax.swing.SwingUtilities;
+
+/**
+ * This is a speedometer gauge with numeric readout, from 0 some maximum value, with 0 pointing straight down.  The gauge is painted by
+ * a SpeedometerRenderer; see it for the dial layout.
+ *  
+ * The speed can be set between 0 and any value, but the needle will only go just above the maximum tick value, which is just over 140 degrees right of top
+ * The units of speed can be set as well as the major tick increment.
+ * 
+ * Setting the increment value determines the range of the gauge.   
+ * 
+ * When the speed changes, only the needle and, if the rounded speed changed, the readout are repainted, unless peak hold markers
+ * are shown.
+ *
+ * @author kkieffer
+ */
+public class JSpeedometer extends JCircularGauge {
+    
+    private final SpeedometerRenderer renderer;
+    private SpeedModel model;
+    private volatile PeakHoldTracker peakHold;
+    private volatile SpeedValues requestedValues;  //the speed the last model change repainted for, null to paint the model's
+    
+    /**
+     * Create the JSpeedometer gauge 
+     * @param increment the major tick increment
+     * @param unit the speed unit label
+     */
+    public JSpeedometer(int increment, String unit) {
+        this(new SpeedometerRenderer(increment, unit));
+    }
+    
+    /**
+     * Create the JSpeedometer gauge with a renderer, which may be a subclass
+     * @param renderer the renderer, which is only used by this gauge
+     */
+    protected JSpeedometer(SpeedometerRenderer renderer) {
+        super(renderer);
+        this.renderer = renderer;
+        model = new SpeedModel();
+        replaceModel(null, model);
+    }
+    
+    @Override
+    protected SpeedometerRenderer getRenderer() {
+        return renderer;
+    }
+    
+    /**
+     * Share a model with other views.  The speed setter of the speedometer updates its model.
+     * @param model the model, which must not be null
+     */
+    public void setModel(SpeedModel model) {
+        replaceModel(this.model, model);
+        this.model = model;
+        requestedValues = null;
+    }
+    
+    @Override
+    public void setCellRenderer(boolean cellRenderer) {
+        requestedValues = null;  //cells paint the model, and a listener added again starts with a full repaint
+        super.setCellRenderer(cellRenderer);
+    }
+    
+    public SpeedModel getModel() {
+        return model;
+    }
+    
+    @Override
+    protected GaugeModel getGaugeModel() {
+        return model;
+    }
+    
+    public final void setIncrement(int increment) {
+        synchronized (getRenderLock()) {
+            renderer.setIncrement(increment);
+        }
+        repaint();
+    }
+    
+    public int getTickIncrement() {
+        return renderer.getTickIncrement();
+    }
+
+    public void setUnit(String unit) {
+        synchronized (getRenderLock()) {
+            renderer.setUnit(unit);
+        }
+        repaint();
+    }
+    
+    public String getUnit() {
+        return renderer.getUnit();
+    }
+   
+     /**
+     * Set the colors of the gauge
+     * @param indicator the needle and labels, marks.  If null, color is black
+     * @param bezelColor the gauge color, null for default
+     * @param background the gauge background color
+     */
+    public void setColors(Color indicator, Color bezelColor, Color background) {
+        synchronized (getRenderLock()) {
+            renderer.setColors(indicator, bezelColor, background);
+        }
+        repaint();
+    }
+    
+    /**
+     * Set the current speed in terms of the units specified
+     */
+    public final void setSpeed(double spd) {
+        model.setSpeed(spd);
+    }
+    
+    
+
+    /**
+     * Show peak hold, minimum, and maximum markers from a tracker.  The tracker is usually fed by the producer of the speed, at any
+     * rate; the markers are read each time the gauge paints.
+     * @param tracker the tracker, null to remove the markers
+     * @param color the color of the peak hold marker, null for red.  The minimum and maximum use the indicator color.
+     */
+    public void setPeakHold(PeakHoldTracker tracker, Color color) {
+        peakHold = tracker;
+        synchronized (getRenderLock()) {
+            renderer.setPeakHoldColor(color);
+        }
+        repaint();
+    }
+    
+    public PeakHoldTracker getPeakHold() {
+        return peakHold;
+    }
+    
+    
+    @Override
+    protected void modelChanged() {
+        
+        SpeedValues values = model.getValues();
+        SpeedValues from = requestedValues;
+        requestedValues = values;
+        
+        //The markers can move anywhere on the dial
+        if (from == null || peakHold != null) {
+            repaint();
+            return;
+        }
+        
+        Rectangle changed;
+        synchronized (getRenderLock()) {  //may fill caches of the renderer that a frame also uses
+            changed = renderer.getChangedBounds(from, values, getWidth(), getHeight());
+        }
+        if (!changed.isEmpty())
+            repaint(changed);
+    }
+    
+    @Override
+    protected void snapshotState() {
+        //Repaints of a requested area paint the speed it was computed for.  A newer speed has a notification pending, which repaints
+        //for it.  Other paints, such as into images off the event dispatch thread, paint the latest speed.
+        SpeedValues values = requestedValues;
+        renderer.setValues(values != null && SwingUtilities.isEventDispatchThread() ? values : model.getValues());
+        
+        PeakHoldTracker tracker = peakHold;
+        if (tracker == null)
+            renderer.setMarkers(Double.NaN, Double.NaN, Double.NaN);
+        else
+            renderer.setMarkers(tracker.getMin(), tracker.getMax(), tracker.getPeak());
+    }
+    
+}
@@ -0,0 +1,50 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The speed shown by one or more JSpeedometer views.
+ *
+ * @author kkieffer
+ */
+public class SpeedModel extends GaugeModel {
+
+    //One update of the model, with the values derived from it
+    private final AtomicReference<SpeedValues> values = new AtomicReference<>(new SpeedValues(0.0));
+
+    /**
+     * Set the speed, in the units of the views
+     * @param speed the speed
+     */
+    public void setSpeed(double speed) {
+        values.set(new SpeedValues(speed));
+        fireStateChanged();
+    }
+
+    public double getSpeed() {
+        return values.get().speed;
+    }
+
+    SpeedValues getValues() {
+        return values.get();
+    }
+
+}
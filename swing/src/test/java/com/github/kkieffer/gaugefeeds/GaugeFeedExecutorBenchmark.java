@@ -0,0 +1,189 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import com.github.kkieffer.jcirculargauges.JSpeedometer;
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures how a GaugeFeedExecutor scales from 10 to 10,000 feeds, each a simulated blocking reader for one asset that waits for its
+ * next sample at a fixed period and posts it to a speedometer.  Runs each count with virtual threads, when the JVM supports them,
+ * and with the bounded platform thread pool, and reports:
+ * <ul>
+ * <li>the samples posted, as a percentage of those the sources produced</li>
+ * <li>the lag from when a sample was due to when it was posted, mean and 99th percentile</li>
+ * <li>the events posted to the event dispatch thread per second, and the samples applied to gauges per second</li>
+ * <li>the peak number of platform threads</li>
+ * </ul>
+ * Runs headless.  Configure with system properties:
+ *
+ *   java -Djava.awt.headless=true -Dfeeds=10,100,1000,10000 -Dperiod=100 -Dthreads=16 -Dseconds=3 \
+ *        -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.gaugefeeds.GaugeFeedExecutorBenchmark
+ *
+ * where period is the milliseconds between samples of each feed, and threads is the size of the platform thread pool.
+ *
+ * @author kkieffer
+ */
+public class GaugeFeedExecutorBenchmark {
+
+    private static final String FEEDS = System.getProperty("feeds", "10,100,1000,10000");
+    private static final long PERIOD_NANOS = Long.getLong("period", 100) * 1000000;
+    private static final int THREADS = Integer.getInteger("threads", 16);
+    private static final int SECONDS = Integer.getInteger("seconds", 3);
+    private static final int MAX_LAGS = 1 << 22;
+
+    private static final long[] lags = new long[MAX_LAGS];
+    private static final AtomicLong lagCount = new AtomicLong();
+
+    //Counts the events posted
+    private static final class CountingEventQueue extends EventQueue {
+        private final AtomicLong posted = new AtomicLong();
+
+        @Override
+        public void postEvent(AWTEvent event) {
+            posted.incrementAndGet();
+            super.postEvent(event);
+        }
+    }
+
+    //A source that blocks until its next sample is due, like a socket to an asset reporting at a fixed period
+    private static final class SimulatedReader implements FeedReader {
+        private final int id;
+        private final long end;
+        private long due;
+        private final double[] values = new double[1];
+
+        private SimulatedReader(int id, long start, long end) {
+            this.id = id;
+            this.end = end;
+            due = start;
+        }
+
+        @Override
+        public boolean read(GaugeFeed feed) throws InterruptedException {
+            long wait = due - System.nanoTime();
+            if (wait > 0)
+                TimeUnit.NANOSECONDS.sleep(wait);
+            if (due >= end)
+                return false;
+            long now = System.nanoTime();
+            values[0] = (now / 1000000) % 140;
+            feed.post(id, values, 1);
+
+            long i = lagCount.getAndIncrement();
+            if (i < MAX_LAGS)
+                lags[(int)i] = now - due;
+            due += PERIOD_NANOS;
+            return true;
+        }
+    }
+
+
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+
+        String[] counts = FEEDS.split(",");
+        int maxFeeds = 0;
+        for (String c : counts)
+            maxFeeds = Math.max(maxFeeds, Integer.parseInt(c.trim()));
+
+        JSpeedometer[] gauges = new JSpeedometer[maxFeeds];
+        for (int i=0; i<maxFeeds; i++)
+            gauges[i] = new JSpeedometer(10, "kt");
+
+        final CountingEventQueue queue = new CountingEventQueue();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+            }
+        });
+
+        boolean virtualSupported = new GaugeFeedExecutor(new GaugeFeed(1), 1).isVirtual();
+        if (!virtualSupported)
+            System.out.println("Virtual threads: not supported by this JVM (Java " + System.getProperty("java.version") + "), only the platform pool is measured");
+
+        System.out.printf("%-10s %8s %10s %10s %10s %12s %12s %12s %8s%n", "Executor", "Feeds", "Samples", "Posted%", "Lag(ms)", "Lag p99(ms)", "Events/s", "Applied/s", "Threads");
+
+        for (String c : counts) {
+            int feeds = Integer.parseInt(c.trim());
+            if (virtualSupported)
+                run(feeds, gauges, queue, true);
+            run(feeds, gauges, queue, false);
+        }
+
+        System.exit(0);  //the pushed event queue keeps the event dispatch thread alive
+    }
+
+    private static void run(int feeds, JSpeedometer[] gauges, CountingEventQueue queue, boolean virtual) throws InterruptedException, InvocationTargetException {
+
+        GaugeFeed feed = new GaugeFeed(feeds);
+        for (int i=0; i<feeds; i++)
+            feed.bind(i, gauges[i]);
+
+        GaugeFeedExecutor executor = new GaugeFeedExecutor(feed, THREADS, virtual);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        lagCount.set(0);
+
+        //Stagger the first samples over a period, as independent assets would be
+        Random random = new Random(feeds);
+        long start = System.nanoTime() + 100000000;
+        long end = start + SECONDS * 1000000000L;
+        for (int i=0; i<feeds; i++)
+            executor.submit(new SimulatedReader(i, start + (long)(random.nextDouble() * PERIOD_NANOS), end));
+
+        long eventsStart = queue.posted.get();
+        long deliveriesStart = feed.getDeliveredCount();
+        while (executor.getActiveReaderCount() > 0 && System.nanoTime() < end + 5000000000L)
+            Thread.sleep(10);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        SwingUtilities.invokeAndWait(new Runnable() {  //the last delivery
+            @Override
+            public void run() {
+            }
+        });
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long expected = feeds * (SECONDS * 1000000000L / PERIOD_NANOS);
+        int n = (int)Math.min(lagCount.get(), MAX_LAGS);
+        long[] sorted = Arrays.copyOf(lags, n);
+        Arrays.sort(sorted);
+        double mean = 0;
+        for (long l : sorted)
+            mean += l;
+        mean = n == 0 ? 0 : mean / n / 1e6;
+        double p99 = n == 0 ? 0 : sorted[Math.min(n - 1, (int)(n * 0.99))] / 1e6;
+
+        System.out.printf("%-10s %8d %10d %9.1f%% %10.2f %12.2f %12.0f %12.0f %8d%n", virtual ? "virtual" : "pool " + THREADS, feeds, feed.getPostedCount(),
+                          100.0 * feed.getPostedCount() / expected, mean, p99, (queue.posted.get() - eventsStart) / elapsed,
+                          (feed.getDeliveredCount() - deliveriesStart) / elapsed, threads.getPeakThreadCount());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Two-process test of the shared state source.  The harness starts a second JVM that writes every slot at 10 kHz, while this
+ * one reads them in a loop, checking each copy for torn values and measuring the latency from write to read.  Each write stores a counter n in
+ * every value but the last as n, n+1, n+2..., and the System.nanoTime() of the write in the last value (nanoTime uses the same
+ * monotonic clock in both processes).
+ *
+ *   java -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.gaugefeeds.SharedStateHarness [file]
+ *
+ * @author kkieffer
+ */
+public class SharedStateHarness {
+
+    private static final int SLOTS = 4;
+    private static final int VALUES = 6;
+    private static final long RUN_NANOS = 5000000000L;
+    private static final int MAX_LATENCY_SAMPLES = 1000000;
+    private static final long WRITE_PERIOD_NANOS = 100000;  //the writer updates all slots at 10 kHz
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        if (args.length == 2 && args[0].equals("writer")) {
+            runWriter(new File(args[1]));
+            return;
+        }
+
+        File path = args.length > 0 ? new File(args[0]) : File.createTempFile("gaugestate", ".shm", new File("/dev/shm").isDirectory() ? new File("/dev/shm") : null);
+        path.deleteOnExit();
+
+        //Create the file here so the reader can map it before the writer starts
+        new SharedStateWriter(path, SLOTS, VALUES).close();
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process writer = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), SharedStateHarness.class.getName(), "writer", path.getPath())
+                .inheritIO().start();
+
+        SharedStateSource source = new SharedStateSource(path);
+        double[] values = new double[VALUES];
+        long[] latencies = new long[MAX_LATENCY_SAMPLES];
+        long[] lastSeen = new long[SLOTS];
+        int latencyCount = 0;
+        long reads = 0, fresh = 0, torn = 0, failed = 0;
+
+        //Wait for the writer to start
+        while (source.getSequence(0) == 0)
+            Thread.sleep(1);
+
+        long end = System.nanoTime() + RUN_NANOS;
+        while (System.nanoTime() < end) {
+            for (int slot=0; slot<SLOTS; slot++) {
+                long seq = source.read(slot, values);
+                long now = System.nanoTime();
+                reads++;
+                if (seq < 0) {
+                    failed++;
+                    continue;
+                }
+                for (int i=1; i<VALUES-1; i++)
+                    if (values[i] != values[0] + i) {
+                        torn++;
+                        break;
+                    }
+                if (seq != lastSeen[slot]) {
+                    lastSeen[slot] = seq;
+                    fresh++;
+                    if (latencyCount < latencies.length)
+                        latencies[latencyCount++] = now - (long)values[VALUES-1];
+                }
+            }
+        }
+
+        writer.destroy();
+        writer.waitFor();
+
+        Arrays.sort(latencies, 0, latencyCount);
+        System.out.printf("Reads %,d, new values %,d, torn %d, failed %d, retries %,d%n", reads, fresh, torn, failed, source.getRetryCount());
+        if (latencyCount > 0)
+            System.out.printf("Write to read latency: median %,d ns, 99%% %,d ns, max %,d ns%n", latencies[latencyCount/2],
+                    latencies[(int)(latencyCount * 0.99)], latencies[latencyCount-1]);
+
+        System.exit(torn == 0 ? 0 : 1);
+    }
+
+    private static void runWriter(File path) throws IOException {
+
+        SharedStateWriter writer = new SharedStateWriter(path, SLOTS, VALUES);
+        double[] values = new double[VALUES];
+        long n = 0;
+        long next = System.nanoTime();
+        while (true) {
+            next += WRITE_PERIOD_NANOS;
+            while (System.nanoTime() < next)
+                LockSupport.parkNanos(next - System.nanoTime());
+            
+            for (int slot=0; slot<SLOTS; slot++) {
+                n++;
+                for (int i=0; i<VALUES-1; i++)
+                    values[i] = n + i;
+                values[VALUES-1] = System.nanoTime();
+                writer.write(slot, values, VALUES);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugefeeds;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import com.github.kkieffer.jcirculargauges.JArtificialHorizonGauge;
+import com.github.kkieffer.jcirculargauges.JCompass;
+import com.github.kkieffer.jcirculargauges.JSpeedometer;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends samples over loopback to a UdpGaugeFeed bound to one gauge of each type, and reports the throughput in samples per second.
+ * A checking binding verifies that every sample it is handed decodes correctly.  Runs headless:
+ *
+ *   java -Djava.awt.headless=true -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.gaugefeeds.UdpGaugeFeedBenchmark
+ *
+ * @author kkieffer
+ */
+public class UdpGaugeFeedBenchmark {
+
+    private static final int SAMPLES = 500000;
+    private static final int GAUGES = 5;
+    private static final long SETTLE_MILLIS = 500;  //time with no new datagrams before the receiver is considered done
+    private static final long POLL_MILLIS = 10;
+
+    private static volatile long badSamples;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        GaugeFeed feed = new GaugeFeed(GAUGES);
+        feed.bind(0, new JCompass(false));
+        feed.bind(1, new JSpeedometer(10, "knots"));
+        feed.bind(2, new JArtificialHorizonGauge());
+        feed.bind(3, new JSegmentGauge(true, 12, new BasicStroke(1), Color.BLACK, Color.WHITE, 2), Color.GREEN, Color.DARK_GRAY);
+        feed.bind(4, new GaugeBinding() {
+            @Override
+            public void update(double[] values, int count) {
+                if (count != 2 || values[1] != values[0] * 2)  //sender writes n, 2n
+                    badSamples++;
+            }
+        });
+
+        UdpGaugeFeed receiver = new UdpGaugeFeed(feed, new InetSocketAddress("127.0.0.1", 0));
+        DatagramChannel sender = DatagramChannel.open();
+        sender.bind(new InetSocketAddress("127.0.0.1", 0));
+        sender.connect(receiver.getLocalAddress());
+        receiver.connect(sender.getLocalAddress());
+        receiver.start();
+
+        ByteBuffer datagram = ByteBuffer.allocateDirect(UdpGaugeFeed.HEADER_SIZE + 2 * 8);
+        double[] values = new double[2];
+
+        long start = System.nanoTime();
+        for (int i=0; i<SAMPLES; i++) {
+            values[0] = i;
+            values[1] = i * 2;
+            datagram.clear();
+            UdpGaugeFeed.putSample(datagram, i % GAUGES, values, 2);
+            datagram.flip();
+            sender.write(datagram);
+        }
+        long sent = System.nanoTime();
+
+        //Wait for the receiver to drain the socket
+        long received = 0;
+        long last = sent;
+        for (long idle=0; idle < SETTLE_MILLIS; idle += POLL_MILLIS) {
+            Thread.sleep(POLL_MILLIS);
+            if (receiver.getDatagramCount() != received) {
+                received = receiver.getDatagramCount();
+                last = System.nanoTime();
+                idle = 0;
+            }
+        }
+
+        double seconds = (last - start) / 1e9;
+        System.out.printf("Sent      %,10d samples in %6.3f s  (%,.0f samples/s)%n", SAMPLES, (sent - start) / 1e9, SAMPLES / ((sent - start) / 1e9));
+        System.out.printf("Received  %,10d samples in %6.3f s  (%,.0f samples/s)%n", feed.getPostedCount(), seconds, feed.getPostedCount() / seconds);
+        System.out.printf("Lost      %,10d samples (socket buffer overflow)%n", SAMPLES - feed.getPostedCount());
+        System.out.printf("Delivered %,10d gauge updates after coalescing%n", feed.getDeliveredCount());
+        System.out.printf("Malformed %,10d datagrams, bad samples %d%n", receiver.getMalformedCount(), badSamples);
+
+        receiver.close();
+        sender.close();
+        System.exit(badSamples == 0 && receiver.getMalformedCount() == 0 ? 0 : 1);
+    }
+
+}
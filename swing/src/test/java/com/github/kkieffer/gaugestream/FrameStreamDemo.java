@@ -0,0 +1,167 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.gaugestream;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import com.github.kkieffer.jcirculargauges.JSpeedometer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.BasicStroke;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.Executors;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Serves a live speedometer and segment gauge over HTTP from a headless process, as a stand-in for a remote monitoring server.  Open
+ * http://localhost:8090/gauges.mjpg (or gauges.png for a PNG stream) in a browser.  Each client gets its own encoder.
+ *
+ * Given a number of seconds, the demo instead reads each stream from itself for that long, then prints the metrics of each stage
+ * and exits:
+ *
+ *   java -Djava.awt.headless=true -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.gaugestream.FrameStreamDemo 10
+ *
+ * @author kkieffer
+ */
+public class FrameStreamDemo {
+
+    private static final int PORT = 8090;
+    private static final double FRAMES_PER_SECOND = 30;
+    private static final int WORKERS = 2;
+
+    private static volatile FrameStreamEncoder lastEncoder;
+
+    //Streams the panel to each client until it disconnects
+    private static class StreamHandler implements HttpHandler {
+        private final JPanel panel;
+        private final FrameStreamEncoder.Format format;
+
+        private StreamHandler(JPanel panel, FrameStreamEncoder.Format format) {
+            this.panel = panel;
+            this.format = format;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            OutputStream out = exchange.getResponseBody();
+            FrameStreamEncoder encoder = new FrameStreamEncoder(panel, format, FRAMES_PER_SECOND, WORKERS, out);
+            exchange.getResponseHeaders().set("Content-Type", encoder.getContentType());
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);  //chunked, until the client disconnects
+
+            lastEncoder = encoder;
+            encoder.start();
+            try {
+                encoder.awaitStop();
+            } catch (InterruptedException ex) {
+                encoder.stop();
+            }
+            exchange.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        final JSpeedometer speedometer = new JSpeedometer(10, "kt");
+        final JSegmentGauge segments = new JSegmentGauge(true, 13, new BasicStroke(1), Color.BLACK, Color.WHITE, 2);
+        segments.setPreferredSize(new Dimension(300, 30));
+
+        final JPanel panel = new JPanel(new BorderLayout());
+        panel.add(speedometer, BorderLayout.CENTER);
+        panel.add(segments, BorderLayout.SOUTH);
+        panel.setSize(300, 330);
+        panel.doLayout();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        server.createContext("/gauges.mjpg", new StreamHandler(panel, FrameStreamEncoder.Format.MJPEG));
+        server.createContext("/gauges.png", new StreamHandler(panel, FrameStreamEncoder.Format.PNG));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        //Drive the gauges, holding still for part of each cycle so identical frames are skipped
+        Thread driver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (long step=0; ; step++) {
+                    final double speed = (step % 200) < 150 ? 65 + 60 * Math.sin(step * 0.02) : speedometer.getModel().getSpeed();
+                    speedometer.setSpeed(speed);
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (int i=0; i<segments.getSegmentCount(); i++)
+                                segments.changeSegmentColor(i, i * 10 < speed ? Color.GREEN : Color.DARK_GRAY);
+                        }
+                    });
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+        }, "Gauge Driver");
+        driver.setDaemon(true);
+        driver.start();
+
+        if (args.length == 0) {
+            System.out.println("Streaming on http://localhost:" + PORT + "/gauges.mjpg and /gauges.png");
+            return;
+        }
+
+        long seconds = Long.parseLong(args[0]);
+        for (String path : new String[]{"/gauges.mjpg", "/gauges.png"}) {
+            long bytes = read(new URL("http://localhost:" + PORT + path), seconds * 1000);
+            FrameStreamEncoder encoder = lastEncoder;
+            encoder.stop();
+            encoder.awaitStop();
+
+            System.out.println(path + ": " + bytes + " bytes read, " + encoder.getSkippedCount() + " identical frames skipped, " +
+                               encoder.getDroppedCount() + " captures dropped, " + encoder.getFailedCount() + " frames failed");
+            for (FrameStreamEncoder.Stage s : FrameStreamEncoder.Stage.values())
+                System.out.println("  " + encoder.getMetrics(s));
+        }
+        server.stop(0);
+        System.exit(0);  //the driver keeps the event dispatch thread alive
+    }
+
+    //Read the stream for a while, returning the number of bytes read
+    private static long read(URL url, long millis) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        long bytes = 0;
+        byte[] buffer = new byte[65536];
+        long end = System.currentTimeMillis() + millis;
+        try (InputStream in = connection.getInputStream()) {
+            int n;
+            while (System.currentTimeMillis() < end && (n = in.read(buffer)) >= 0)
+                bytes += n;
+        }
+        connection.disconnect();
+        return bytes;
+    }
+
+}
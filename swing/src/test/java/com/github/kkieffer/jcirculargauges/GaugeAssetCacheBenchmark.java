@@ -0,0 +1,138 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Measures the first frame of a dashboard of gauges, as at startup, without an asset cache, with an empty one, and with one filled
+ * by the previous pass, and checks that the frames painted from the cache match the ones rendered without it.
+ *
+ * Run headless: java -Djava.awt.headless=true -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.jcirculargauges.GaugeAssetCacheBenchmark
+ *
+ * @author kkieffer
+ */
+public class GaugeAssetCacheBenchmark {
+
+    private static final int GAUGES = 60;
+    private static final int SIZE = 300;
+    private static final int RUNS = 5;  //best of, for each pass
+    private static final Color[] BEZELS = {null, Color.BLUE, Color.GRAY, Color.BLACK, new Color(0, 100, 0)};
+
+    public static void main(String[] args) throws IOException {
+
+        File directory = Files.createTempDirectory("gaugecache").toFile();
+        GaugeAssetCache cache = new GaugeAssetCache(directory);
+
+        firstFrames(null);  //warmup
+        firstFrames(cache);
+
+        BufferedImage[] uncached = firstFrames(null);
+        BufferedImage[] cached = null;
+
+        double best = Double.MAX_VALUE;
+        for (int r=0; r<RUNS; r++) {
+            long start = System.nanoTime();
+            firstFrames(null);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("no cache     %7.1f ms%n", best);
+
+        best = Double.MAX_VALUE;
+        long hits = 0, misses = 0;
+        for (int r=0; r<RUNS; r++) {
+            cache.clear();
+            hits = cache.getHitCount();
+            misses = cache.getMissCount();
+            long start = System.nanoTime();
+            firstFrames(cache);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("empty cache  %7.1f ms  (%d layers rendered, %d shared by gauges configured alike)%n", best,
+                          cache.getMissCount() - misses, cache.getHitCount() - hits);
+
+        best = Double.MAX_VALUE;
+        for (int r=0; r<RUNS; r++) {
+            hits = cache.getHitCount();
+            misses = cache.getMissCount();
+            long start = System.nanoTime();
+            cached = firstFrames(cache);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("filled cache %7.1f ms  (%d layers loaded, %d rendered)%n", best, cache.getHitCount() - hits, cache.getMissCount() - misses);
+
+        int mismatches = 0;
+        for (int i=0; i<GAUGES; i++)
+            if (!samePixels(uncached[i], cached[i]))
+                mismatches++;
+        System.out.println(mismatches == 0 ? "All frames painted from the cache match" : mismatches + " frames painted from the cache DIFFER");
+
+        cache.clear();
+        directory.delete();
+    }
+
+    //Create the dashboard and paint the first frame of each gauge
+    private static BufferedImage[] firstFrames(GaugeAssetCache cache) {
+
+        BufferedImage[] frames = new BufferedImage[GAUGES];
+        for (int i=0; i<GAUGES; i++) {
+            JCircularGauge gauge;
+            switch (i % 3) {
+                case 0:
+                    JSpeedometer speedometer = new JSpeedometer(10, "kt");
+                    speedometer.setSpeed(i);
+                    gauge = speedometer;
+                    break;
+                case 1:
+                    JCompass compass = new JCompass(i % 2 == 0);
+                    compass.setBearing(i * 6);
+                    gauge = compass;
+                    break;
+                default:
+                    JArtificialHorizonGauge horizon = new JArtificialHorizonGauge();
+                    horizon.setAttitude(i % 20 - 10, i % 30 - 15);
+                    gauge = horizon;
+                    break;
+            }
+            gauge.setColors(BEZELS[i % BEZELS.length], null);
+            gauge.setSize(SIZE, SIZE);
+            gauge.setAssetCache(cache);
+
+            frames[i] = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = frames[i].createGraphics();
+            gauge.paint(g);
+            g.dispose();
+        }
+        return frames;
+    }
+
+    private static boolean samePixels(BufferedImage a, BufferedImage b) {
+        for (int y=0; y<a.getHeight(); y++)
+            for (int x=0; x<a.getWidth(); x++)
+                if (a.getRGB(x, y) != b.getRGB(x, y))
+                    return false;
+        return true;
+    }
+
+}
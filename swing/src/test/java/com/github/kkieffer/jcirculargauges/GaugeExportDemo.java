@@ -0,0 +1,118 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exports the artwork of each gauge as SVG, then encodes a few updates of its state and prints their sizes.  For each gauge, a
+ * second SVG has the last state applied the way a client would, by setting the transform of each part group, so the two can be
+ * compared with the gauge on screen.  Runs headless:
+ *
+ *   java -Djava.awt.headless=true -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.jcirculargauges.GaugeExportDemo [directory]
+ *
+ * @author kkieffer
+ */
+public class GaugeExportDemo {
+
+    private static final int SIZE = 300;
+
+    private interface Updater {
+        void update(int step);
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        File dir = new File(args.length > 0 ? args[0] : "gauge-export");
+        dir.mkdirs();
+
+        final JCompass compass = new JCompass(false);
+        compass.setCourse(45);
+        export(dir, "compass", compass, new Updater() {
+            @Override
+            public void update(int step) {
+                compass.setBearing(20 + step * 7.3);
+            }
+        });
+
+        final JSpeedometer speedometer = new JSpeedometer(10, "kt");
+        final PeakHoldTracker peak = new PeakHoldTracker(1000, 5);
+        speedometer.setPeakHold(peak, null);
+        export(dir, "speedometer", speedometer, new Updater() {
+            @Override
+            public void update(int step) {
+                double speed = 40 + step * 9;
+                peak.sample(speed);
+                speedometer.setSpeed(speed);
+            }
+        });
+
+        final JArtificialHorizonGauge horizon = new JArtificialHorizonGauge();
+        export(dir, "horizon", horizon, new Updater() {
+            @Override
+            public void update(int step) {
+                horizon.setAttitude(-10 + step * 4, 5 + step * 2);
+            }
+        });
+    }
+
+    private static void export(File dir, String name, JCircularGauge gauge, Updater updater) throws IOException {
+
+        gauge.setSize(SIZE, SIZE);
+        String svg = GaugeExport.toSvg(gauge);
+        write(new File(dir, name + ".svg"), svg);
+        System.out.println(name + ": " + svg.length() + " bytes of SVG, parts " + String.join(", ", GaugeExport.getPartNames(gauge)));
+
+        ByteBuffer state = ByteBuffer.allocate(GaugeExport.getStateSize(gauge));
+        for (int step=0; step<5; step++) {
+            updater.update(step);
+            state.clear();
+            int bytes = GaugeExport.encodeState(gauge, state);
+            System.out.println("  update " + step + ": " + bytes + " bytes");
+        }
+
+        write(new File(dir, name + "-state.svg"), applyState(svg, GaugeExport.getPartNames(gauge), state));
+    }
+
+    //Set the transform of each part group from the encoded state, as a client would
+    private static String applyState(String svg, String[] parts, ByteBuffer state) {
+        state.flip();
+        int count = state.get() & 0xFF;
+        for (int i=0; i<count; i++) {
+            float rotation = state.getFloat();
+            float offset = state.getFloat();
+            String attribute = Float.isNaN(rotation) ? "display=\"none\"" : "transform=\"rotate(" + rotation + ") translate(0 " + offset + ")\"";
+            svg = svg.replace("<g id=\"" + parts[i] + "\">", "<g id=\"" + parts[i] + "\" " + attribute + ">");
+        }
+        return svg;
+    }
+
+    private static void write(File file, String text) throws IOException {
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            w.write(text);
+        }
+    }
+
+}
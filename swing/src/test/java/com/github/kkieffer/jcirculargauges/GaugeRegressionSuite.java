@@ -0,0 +1,465 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import com.github.kkieffer.jcirculargauges.GaugeRenderer.LevelOfDetail;
+import com.github.kkieffer.jcirculargauges.GaugeRenderer.StaticLayerCache;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import javax.imageio.ImageIO;
+import javax.swing.JComponent;
+
+/**
+ * Renders every gauge type across sizes, colors, levels of detail, cache modes, and edge case states, and compares each render
+ * against a golden image, so changes to the paint paths can be checked for pixel correctness and speed together.  Runs headless
+ * from the swing directory, and exits with status 1 if any case fails:
+ *
+ *   java -Djava.awt.headless=true -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.jcirculargauges.GaugeRegressionSuite
+ *
+ * A render passes if no more than 0.5% of its pixels differ from the golden image by more than a small tolerance in any channel,
+ * which absorbs antialiasing and font differences between platforms.  Each case is also painted repeatedly, and the median paint
+ * time is checked against the budget recorded for the case.  Failed renders, with an image of the differing pixels, and the
+ * timings of every case are written to target/regression.
+ *
+ * After an intended change to the artwork, regenerate the golden images and budgets in src/test/resources/golden with -Dupdate=true.
+ * Budgets are recorded as ten times the measured time, at least 5 ms, so they catch a large slowdown rather than machine noise.
+ *
+ * @author kkieffer
+ */
+public class GaugeRegressionSuite {
+
+    private static final File GOLDEN_DIR = new File(System.getProperty("golden", "src/test/resources/golden"));
+    private static final File OUTPUT_DIR = new File("target/regression");
+    private static final String BUDGETS = "budgets.properties";
+
+    private static final int CHANNEL_TOLERANCE = 48;  //largest channel difference of a matching pixel
+    private static final double PIXEL_TOLERANCE = 0.005;  //fraction of pixels that may differ
+    private static final int WARMUP = 5;
+    private static final int TIMED_PAINTS = 21;
+    private static final double BUDGET_FACTOR = 10;
+    private static final double MIN_BUDGET_MILLIS = 5;
+
+    private static final int[] SIZES = {50, 120, 200};  //minimal, low, and medium detail by default
+
+    /**
+     * Creates the component of a case, sized and set to the state to render
+     */
+    private interface Factory {
+        JComponent create();
+    }
+
+    private static final class Case {
+        private final String name;
+        private final int size;
+        private final Factory factory;
+
+        private Case(String name, int size, Factory factory) {
+            this.name = name;
+            this.size = size;
+            this.factory = factory;
+        }
+    }
+
+
+    private static List<Case> cases() {
+
+        List<Case> cases = new ArrayList<>();
+
+        for (final int size : SIZES) {
+            cases.add(new Case("compass_rotating_" + size, size, new Factory() {
+                @Override
+                public JComponent create() {
+                    JCompass c = new JCompass(false);
+                    c.setBearing(37.4);
+                    c.setCourse(80);
+                    return c;
+                }
+            }));
+            cases.add(new Case("compass_northup_" + size, size, new Factory() {
+                @Override
+                public JComponent create() {
+                    JCompass c = new JCompass(true);
+                    c.setBearing(215.06);
+                    c.setCourse(190);
+                    return c;
+                }
+            }));
+            cases.add(new Case("speedometer_" + size, size, new Factory() {
+                @Override
+                public JComponent create() {
+                    JSpeedometer s = new JSpeedometer(10, "kt");
+                    s.setSpeed(63.6);
+                    return s;
+                }
+            }));
+            cases.add(new Case("horizon_" + size, size, new Factory() {
+                @Override
+                public JComponent create() {
+                    JArtificialHorizonGauge h = new JArtificialHorizonGauge();
+                    h.setAttitude(15, 10);
+                    return h;
+                }
+            }));
+        }
+
+        //Colors
+        cases.add(new Case("compass_colors", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JCompass c = new JCompass(false);
+                c.setColors(Color.WHITE, Color.YELLOW, Color.DARK_GRAY, Color.BLACK);
+                c.setBearing(300);
+                c.setCourse(10);
+                return c;
+            }
+        }));
+        cases.add(new Case("speedometer_colors", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JSpeedometer s = new JSpeedometer(20, "km/h");
+                s.setColors(Color.ORANGE, new Color(60, 90, 160), Color.BLACK);
+                s.setSpeed(180);
+                return s;
+            }
+        }));
+        cases.add(new Case("horizon_colors", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JArtificialHorizonGauge h = new JArtificialHorizonGauge(1.5);
+                h.setColors(Color.WHITE, Color.DARK_GRAY, new Color(40, 120, 40), new Color(20, 40, 120));
+                h.setAttitude(-25, -8);
+                return h;
+            }
+        }));
+
+        //Levels of detail, forced at a size that would otherwise be medium
+        for (final LevelOfDetail level : new LevelOfDetail[]{LevelOfDetail.MINIMAL, LevelOfDetail.FULL}) {
+            cases.add(new Case("compass_lod_" + level.name().toLowerCase(), 200, new Factory() {
+                @Override
+                public JComponent create() {
+                    JCompass c = new JCompass(false);
+                    forceDetail(c, level);
+                    c.setBearing(123.4);
+                    return c;
+                }
+            }));
+            cases.add(new Case("speedometer_lod_" + level.name().toLowerCase(), 200, new Factory() {
+                @Override
+                public JComponent create() {
+                    JSpeedometer s = new JSpeedometer(10, "kt");
+                    forceDetail(s, level);
+                    s.setSpeed(42);
+                    return s;
+                }
+            }));
+            cases.add(new Case("horizon_lod_" + level.name().toLowerCase(), 200, new Factory() {
+                @Override
+                public JComponent create() {
+                    JArtificialHorizonGauge h = new JArtificialHorizonGauge();
+                    forceDetail(h, level);
+                    h.setAttitude(5, -5);
+                    return h;
+                }
+            }));
+        }
+
+        //Static layer cache modes
+        for (final StaticLayerCache cache : new StaticLayerCache[]{StaticLayerCache.NONE, StaticLayerCache.DISPLAY_LIST}) {
+            cases.add(new Case("compass_cache_" + cache.name().toLowerCase(), 200, new Factory() {
+                @Override
+                public JComponent create() {
+                    JCompass c = new JCompass(true);
+                    c.setStaticLayerCache(cache);
+                    c.setBearing(75);
+                    return c;
+                }
+            }));
+            cases.add(new Case("horizon_cache_" + cache.name().toLowerCase(), 200, new Factory() {
+                @Override
+                public JComponent create() {
+                    JArtificialHorizonGauge h = new JArtificialHorizonGauge();
+                    h.setStaticLayerCache(cache);
+                    h.setAttitude(-30, 12);
+                    return h;
+                }
+            }));
+        }
+
+        //Edge cases
+        cases.add(new Case("compass_nan_bearing", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JCompass c = new JCompass(false);
+                c.setBearing(Double.NaN);
+                c.setCourse(45);
+                return c;
+            }
+        }));
+        cases.add(new Case("compass_wrap_bearing", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JCompass c = new JCompass(true);
+                c.setBearing(-0.04);  //wraps to 359.96, shown as 0.0
+                c.showCourseNeedle(false);
+                return c;
+            }
+        }));
+        cases.add(new Case("compass_trail", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JCompass c = new JCompass(false);
+                c.setBearingTrail(64, 0, Color.BLUE);
+                BufferedImage scratch = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+                c.setSize(200, 200);
+                for (int i=0; i<64; i++) {  //each painted bearing is added to the trail
+                    c.setBearing(100 + i * 1.5);
+                    paint(c, scratch);
+                }
+                return c;
+            }
+        }));
+        cases.add(new Case("speedometer_negative", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JSpeedometer s = new JSpeedometer(10, "kt");
+                s.setSpeed(-5);  //shown as "?" with no needle
+                return s;
+            }
+        }));
+        cases.add(new Case("speedometer_over_max", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JSpeedometer s = new JSpeedometer(10, "kt");
+                s.setSpeed(500);
+                return s;
+            }
+        }));
+        cases.add(new Case("speedometer_peak_hold", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JSpeedometer s = new JSpeedometer(10, "kt");
+                PeakHoldTracker tracker = new PeakHoldTracker(Long.MAX_VALUE / 2, 0);  //never decays, so renders are repeatable
+                for (double v : new double[]{35, 110, 72})
+                    tracker.sample(v);
+                s.setPeakHold(tracker, null);
+                s.setSpeed(72);
+                return s;
+            }
+        }));
+        cases.add(new Case("horizon_out_of_dial_up", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JArtificialHorizonGauge h = new JArtificialHorizonGauge(1.5);
+                h.setAttitude(20, 80);  //horizon pushed below the dial, all sky
+                return h;
+            }
+        }));
+        cases.add(new Case("horizon_out_of_dial_down", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JArtificialHorizonGauge h = new JArtificialHorizonGauge(1.5);
+                h.setAttitude(-20, -80);  //all ground
+                return h;
+            }
+        }));
+        cases.add(new Case("horizon_inverted", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JArtificialHorizonGauge h = new JArtificialHorizonGauge();
+                h.setAttitude(180, 0);
+                return h;
+            }
+        }));
+
+        //Segment gauges
+        cases.add(new Case("segments_horizontal", 200, new Factory() {
+            @Override
+            public JComponent create() {
+                JSegmentGauge s = new JSegmentGauge(true, 10, new BasicStroke(1), Color.BLACK, Color.WHITE, 2);
+                for (int i=0; i<7; i++)
+                    s.changeSegmentColor(i, i < 5 ? Color.GREEN : Color.ORANGE);
+                s.changeLabel(0, "0");
+                s.changeLabel(9, "9");
+                return s;
+            }
+        }));
+        cases.add(new Case("segments_vertical", 120, new Factory() {
+            @Override
+            public JComponent create() {
+                JSegmentGauge s = new JSegmentGauge(false, 6, null, null, Color.BLACK, 3);
+                s.setAllSegmentColors(Color.RED);
+                return s;
+            }
+        }));
+
+        return cases;
+    }
+
+    //Set the thresholds so the gauge paints at the level, whatever its size
+    private static void forceDetail(JCircularGauge gauge, LevelOfDetail level) {
+        for (LevelOfDetail l : LevelOfDetail.values())
+            if (l != LevelOfDetail.THUMBNAIL)
+                gauge.setDetailThreshold(l, l.compareTo(level) <= 0 ? 0 : Integer.MAX_VALUE);
+    }
+
+
+    public static void main(String[] args) throws IOException {
+
+        boolean update = Boolean.getBoolean("update");
+        OUTPUT_DIR.mkdirs();
+        if (update)
+            GOLDEN_DIR.mkdirs();
+
+        Properties budgets = new Properties();
+        File budgetFile = new File(GOLDEN_DIR, BUDGETS);
+        if (!update) {
+            try (InputStream in = new FileInputStream(budgetFile)) {
+                budgets.load(in);
+            }
+        }
+
+        int failures = 0;
+        List<Case> cases = cases();
+        try (PrintWriter timings = new PrintWriter(new File(OUTPUT_DIR, "timings.csv"))) {
+            timings.println("case,median ms,budget ms");
+
+            for (Case c : cases) {
+                JComponent component = c.factory.create();
+                component.setSize(c.size, c.size);
+                BufferedImage image = new BufferedImage(c.size, c.size, BufferedImage.TYPE_INT_ARGB);
+                paint(component, image);
+                double millis = time(component, c.size);
+
+                if (update) {
+                    ImageIO.write(image, "png", new File(GOLDEN_DIR, c.name + ".png"));
+                    budgets.setProperty(c.name, String.format("%.1f", Math.max(MIN_BUDGET_MILLIS, millis * BUDGET_FACTOR)));
+                    timings.printf("%s,%.3f,%s%n", c.name, millis, budgets.getProperty(c.name));
+                    System.out.printf("%-28s updated   %7.3f ms%n", c.name, millis);
+                    continue;
+                }
+
+                String failure = compare(c.name, image);
+                String budget = budgets.getProperty(c.name);
+                if (failure == null && budget == null)
+                    failure = "no budget";
+                else if (failure == null && millis > Double.parseDouble(budget))
+                    failure = String.format("%.3f ms over budget of %s ms", millis, budget);
+
+                timings.printf("%s,%.3f,%s%n", c.name, millis, budget);
+                System.out.printf("%-28s %-6s %7.3f ms  %s%n", c.name, failure == null ? "ok" : "FAIL", millis, failure == null ? "" : failure);
+                if (failure != null)
+                    failures++;
+            }
+        }
+
+        if (update) {
+            try (OutputStream out = new FileOutputStream(budgetFile)) {
+                budgets.store(out, "Paint time budgets in milliseconds, see GaugeRegressionSuite");
+            }
+            System.out.println(cases.size() + " golden images updated in " + GOLDEN_DIR);
+            return;
+        }
+
+        System.out.println((cases.size() - failures) + " of " + cases.size() + " cases passed");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    private static void paint(JComponent component, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            component.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    //Median paint time in milliseconds, after a warmup
+    private static double time(JComponent component, int size) {
+        BufferedImage scratch = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        for (int i=0; i<WARMUP; i++)
+            paint(component, scratch);
+
+        long[] nanos = new long[TIMED_PAINTS];
+        for (int i=0; i<TIMED_PAINTS; i++) {
+            long start = System.nanoTime();
+            paint(component, scratch);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[TIMED_PAINTS / 2] / 1e6;
+    }
+
+    //Compare the render with its golden image, returning the reason it fails or null if it passes
+    private static String compare(String name, BufferedImage actual) throws IOException {
+
+        File goldenFile = new File(GOLDEN_DIR, name + ".png");
+        if (!goldenFile.exists()) {
+            ImageIO.write(actual, "png", new File(OUTPUT_DIR, name + ".png"));
+            return "no golden image";
+        }
+
+        BufferedImage golden = ImageIO.read(goldenFile);
+        if (golden.getWidth() != actual.getWidth() || golden.getHeight() != actual.getHeight()) {
+            ImageIO.write(actual, "png", new File(OUTPUT_DIR, name + ".png"));
+            return "size differs from golden image";
+        }
+
+        BufferedImage diff = new BufferedImage(actual.getWidth(), actual.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int differing = 0;
+        for (int y=0; y<actual.getHeight(); y++) {
+            for (int x=0; x<actual.getWidth(); x++) {
+                int a = actual.getRGB(x, y);
+                int g = golden.getRGB(x, y);
+                int delta = 0;
+                for (int shift=0; shift<32; shift+=8)
+                    delta = Math.max(delta, Math.abs(((a >>> shift) & 0xFF) - ((g >>> shift) & 0xFF)));
+                if (delta > CHANNEL_TOLERANCE) {
+                    differing++;
+                    diff.setRGB(x, y, 0xFF0000);
+                }
+                else if (delta > 0)
+                    diff.setRGB(x, y, 0x808080);
+            }
+        }
+
+        double fraction = differing / (double)(actual.getWidth() * actual.getHeight());
+        if (fraction <= PIXEL_TOLERANCE)
+            return null;
+
+        ImageIO.write(actual, "png", new File(OUTPUT_DIR, name + ".png"));
+        ImageIO.write(diff, "png", new File(OUTPUT_DIR, name + "-diff.png"));
+        return String.format("%.2f%% of pixels differ", fraction * 100);
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.JFrame;
+
+/**
+ * Measures the paint time of each gauge, with no static layer cache, with the image cache, and with display lists, at several
+ * device scales.  Also reports the memory held by the image cache and the display lists.  Runs headless:
+ * each gauge is painted into an image whose Graphics is scaled like a HiDPI screen (for instance sun.java2d.uiScale=2).
+ * 
+ * Then compares the rendering profiles, painting each gauge with each profile without a cache (both layers painted every frame)
+ * and with the image cache (only the dynamic layer painted every frame, plus the cost of rendering the static layers once).
+ * 
+ * Then paints the speedometer and the north up compass clipped to the area that changes between values, as their repaint(Rectangle)
+ * requests, against full frames: for speedometer needle only frames, where the rounded readout stays the same, for frames where the
+ * readout changes, and for compass bearings changing as they would at 100 Hz.
+ * 
+ * When a display is available, also compares accelerated buffering (VolatileImages) against BufferedImages, painting into a
+ * volatile target like the Swing back buffer.  This part is skipped when headless.
+ * 
+ * Run: java -Djava.awt.headless=true -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.jcirculargauges.GaugeRenderBenchmark
+ * 
+ * @author kkieffer
+ */
+public class GaugeRenderBenchmark {
+    
+    private static final int SIZE = 300;
+    private static final double[] SCALES = {1.0, 1.5, 2.0};
+    private static final double[] PROFILE_SCALES = {1.0, 2.0};
+    private static final RenderingProfile[] PROFILES = {RenderingProfile.DEFAULT, RenderingProfile.SPEED, RenderingProfile.BALANCED, RenderingProfile.QUALITY};
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+    
+    /**
+     * Changes the value of the gauge between paints, so every frame has new dynamic content
+     */
+    private interface Updater {
+        void update(int frame);
+    }
+    
+    
+    //Average paint time in microseconds
+    private static double timePaint(JCircularGauge gauge, Updater updater, double scale) {
+        
+        int pixels = (int)Math.ceil(SIZE * scale);
+        return timePaint(gauge, updater, new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB_PRE), scale);
+    }
+    
+    //Average paint time in microseconds, painting into the target image
+    private static double timePaint(JCircularGauge gauge, Updater updater, Image image, double scale) {
+        
+        for (int i=0; i<WARMUP; i++)
+            paintOnce(gauge, updater, image, scale, i);
+        
+        long start = System.nanoTime();
+        for (int i=0; i<ITERATIONS; i++)
+            paintOnce(gauge, updater, image, scale, i);
+        
+        return (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+    }
+    
+    private static void paintOnce(JCircularGauge gauge, Updater updater, Image image, double scale, int frame) {
+        updater.update(frame);
+        Graphics2D g = (Graphics2D)image.getGraphics();
+        g.scale(scale, scale);
+        gauge.paint(g);
+        g.dispose();
+    }
+    
+    //Time to render the static layers once (the cost of a cache miss), in microseconds
+    private static double timeCacheBuild(JCircularGauge gauge, double scale) {
+        
+        int pixels = (int)Math.ceil(SIZE * scale);
+        BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB_PRE);
+        
+        long total = 0;
+        for (int i=0; i<50; i++) {
+            gauge.invalidateStaticLayers();
+            Graphics2D g = image.createGraphics();
+            g.scale(scale, scale);
+            long start = System.nanoTime();
+            gauge.paint(g);
+            total += System.nanoTime() - start;
+            g.dispose();
+        }
+        return total / 1000.0 / 50;
+    }
+    
+    
+    private static void run(String name, JCircularGauge gauge, Updater updater) {
+        
+        gauge.setSize(SIZE, SIZE);
+        
+        for (double scale : SCALES) {
+            
+            gauge.setStaticLayerCache(GaugeRenderer.StaticLayerCache.NONE);
+            double direct = timePaint(gauge, updater, scale);
+            
+            gauge.setStaticLayerCache(GaugeRenderer.StaticLayerCache.DISPLAY_LIST);
+            double listed = timePaint(gauge, updater, scale);
+            long listBytes = gauge.getStaticLayerFootprint();
+            
+            gauge.setStaticLayerCache(GaugeRenderer.StaticLayerCache.IMAGE);
+            double cached = timePaint(gauge, updater, scale);
+            long imageBytes = gauge.getStaticLayerFootprint();
+            double miss = timeCacheBuild(gauge, scale);
+            
+            int pixels = (int)Math.ceil(SIZE * scale);
+            System.out.printf("%-22s %5.1f %10d %12.1f %12.1f %12.1f %12.1f %12d %12d%n", name, scale, pixels * pixels, direct, cached, miss, listed, imageBytes, listBytes);
+        }
+    }
+    
+    
+    //Compare the paint times of the rendering profiles
+    private static void runProfiles(Map<String, JCircularGauge> gauges, Map<String, Updater> updaters) {
+        
+        System.out.printf("%n%-22s %-10s %5s %12s %12s %12s%n", "Gauge", "Profile", "Scale", "Direct(us)", "Cached(us)", "Miss(us)");
+        
+        for (Map.Entry<String, JCircularGauge> entry : gauges.entrySet()) {
+            
+            JCircularGauge gauge = entry.getValue();
+            Updater updater = updaters.get(entry.getKey());
+            
+            for (RenderingProfile profile : PROFILES) {
+                gauge.setRenderingProfile(profile);
+                for (double scale : PROFILE_SCALES) {
+                    gauge.setStaticLayerCache(GaugeRenderer.StaticLayerCache.NONE);
+                    double direct = timePaint(gauge, updater, scale);
+                    
+                    gauge.setStaticLayerCache(GaugeRenderer.StaticLayerCache.IMAGE);
+                    double cached = timePaint(gauge, updater, scale);
+                    double miss = timeCacheBuild(gauge, scale);
+                    
+                    System.out.printf("%-22s %-10s %5.1f %12.1f %12.1f %12.1f%n", entry.getKey(), profile, scale, direct, cached, miss);
+                }
+            }
+            gauge.setRenderingProfile(null);
+        }
+    }
+    
+    
+    /**
+     * The area a gauge repaints when its value changes for a frame, as the gauge computes it for repaint(Rectangle)
+     */
+    private interface ChangedArea {
+        Rectangle get(int frame);
+    }
+    
+    //Average paint time in microseconds, painting the whole gauge each frame or only the changed area
+    private static double timeChanges(JCircularGauge gauge, Updater updater, ChangedArea changedArea, double scale) {
+        
+        int pixels = (int)Math.ceil(SIZE * scale);
+        BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB_PRE);
+        
+        long start = 0;
+        for (int i=0; i<WARMUP + ITERATIONS; i++) {
+            if (i == WARMUP)
+                start = System.nanoTime();
+            updater.update(i);
+            Graphics2D g = image.createGraphics();
+            g.scale(scale, scale);
+            if (changedArea != null) {
+                Rectangle changed = changedArea.get(i);
+                g.clipRect(changed.x, changed.y, changed.width, changed.height);
+            }
+            gauge.paint(g);
+            g.dispose();
+        }
+        return (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+    }
+    
+    //Speeds for each frame, and the area that changes from the previous frame
+    private static void timeSpeeds(String name, final JSpeedometer gauge, final double[] speeds) {
+        
+        final SpeedometerRenderer renderer = gauge.getRenderer();
+        Updater updater = new Updater() {
+            @Override
+            public void update(int frame) {
+                gauge.setSpeed(speeds[frame % speeds.length]);
+            }
+        };
+        ChangedArea changedArea = new ChangedArea() {
+            @Override
+            public Rectangle get(int frame) {
+                SpeedValues from = new SpeedValues(speeds[(frame + speeds.length - 1) % speeds.length]);
+                return renderer.getChangedBounds(from, new SpeedValues(speeds[frame % speeds.length]), SIZE, SIZE);
+            }
+        };
+        printChanges(name, gauge, updater, changedArea);
+    }
+    
+    //Bearings changing as they would at 100 Hz while turning at 20 degrees per second, with a fixed course
+    private static void timeBearings(String name, final JCompass gauge) {
+        
+        final CompassRenderer renderer = gauge.getRenderer();
+        Updater updater = new Updater() {
+            @Override
+            public void update(int frame) {
+                gauge.setBearing(frame * 0.2);
+            }
+        };
+        ChangedArea changedArea = new ChangedArea() {
+            @Override
+            public Rectangle get(int frame) {
+                return renderer.getChangedBounds(new CompassValues((frame - 1) * 0.2, 0), new CompassValues(frame * 0.2, 0), SIZE, SIZE);
+            }
+        };
+        printChanges(name, gauge, updater, changedArea);
+    }
+    
+    //Compare frames clipped to the changed area to full frames with the image cache, and to full frames with no cache
+    private static void printChanges(String name, JCircularGauge gauge, Updater updater, ChangedArea changedArea) {
+        
+        for (double scale : PROFILE_SCALES) {
+            gauge.setStaticLayerCache(GaugeRenderer.StaticLayerCache.NONE);
+            double direct = timeChanges(gauge, updater, null, scale);
+            
+            gauge.setStaticLayerCache(GaugeRenderer.StaticLayerCache.IMAGE);
+            double cached = timeChanges(gauge, updater, null, scale);
+            double clipped = timeChanges(gauge, updater, changedArea, scale);
+            
+            System.out.printf("%-22s %5.1f %12.1f %12.1f %12.1f %8.1f%%%n", name, scale, direct, cached, clipped, 100 * clipped / direct);
+        }
+    }
+    
+    //Compare repaints of only the changed area to full frames
+    private static void runPartialRepaint(JSpeedometer speedometer, JCompass northUp) {
+        
+        System.out.printf("%n%-22s %5s %12s %12s %12s %9s%n", "Changed area", "Scale", "Direct(us)", "Cached(us)", "Clipped(us)", "Clip/Dir");
+        
+        timeSpeeds("Speed, needle only", speedometer, new double[] {76.6, 76.8, 77.0, 77.2, 77.4, 77.2, 77.0, 76.8});  //all round to 77
+        timeSpeeds("Speed, readout", speedometer, new double[] {74, 75, 76, 77, 78, 77, 76, 75});
+        timeBearings("Compass (north up)", northUp);
+    }
+    
+    
+    //Compare accelerated buffering on and off, for gauges in a frame so they have a GraphicsConfiguration
+    private static void runAccelerated(Map<String, JCircularGauge> gauges, Map<String, Updater> updaters) {
+        
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("Accelerated buffering: skipped, requires a display");
+            return;
+        }
+        
+        System.out.printf("%n%-22s %5s %15s %15s %8s%n", "Gauge", "Scale", "Buffered(us)", "Volatile(us)", "Active");
+        
+        for (Map.Entry<String, JCircularGauge> entry : gauges.entrySet()) {
+            
+            JCircularGauge gauge = entry.getValue();
+            Updater updater = updaters.get(entry.getKey());
+            
+            JFrame frame = new JFrame();
+            frame.getContentPane().add(gauge);
+            frame.pack();
+            gauge.setSize(SIZE, SIZE);
+            GraphicsConfiguration gc = frame.getGraphicsConfiguration();
+            
+            for (double scale : SCALES) {
+                int pixels = (int)Math.ceil(SIZE * scale);
+                Image target = gc.createCompatibleVolatileImage(pixels, pixels, Transparency.TRANSLUCENT);
+
+                gauge.setAcceleratedBuffering(false);
+                double buffered = timePaint(gauge, updater, target, scale);
+                
+                gauge.setAcceleratedBuffering(true);
+                double accelerated = timePaint(gauge, updater, target, scale);
+                
+                System.out.printf("%-22s %5.1f %15.1f %15.1f %8s%n", entry.getKey(), scale, buffered, accelerated, gauge.isAcceleratedBufferingActive());
+                target.flush();
+            }
+            gauge.setAcceleratedBuffering(false);
+            frame.dispose();
+        }
+    }
+    
+    
+    public static void main(String[] args) {
+        
+        Map<String, JCircularGauge> gauges = new LinkedHashMap<>();
+        Map<String, Updater> updaters = new LinkedHashMap<>();
+        
+        System.out.printf("%-22s %5s %10s %12s %12s %12s %12s %12s %12s%n", "Gauge", "Scale", "Pixels", "Direct(us)", "Cached(us)", "Miss(us)", "List(us)", "Image(B)", "List(B)");
+        
+        final JCompass northUp = new JCompass(true);
+        updaters.put("Compass (north up)", new Updater() {
+            @Override
+            public void update(int frame) {
+                northUp.setBearing(frame * 0.7);
+            }
+        });
+        gauges.put("Compass (north up)", northUp);
+        
+        final JCompass bearingUp = new JCompass(false);
+        updaters.put("Compass (bearing up)", new Updater() {
+            @Override
+            public void update(int frame) {
+                bearingUp.setBearing(frame * 0.7);
+            }
+        });
+        gauges.put("Compass (bearing up)", bearingUp);
+        
+        final JSpeedometer speedometer = new JSpeedometer(10, "knots");
+        updaters.put("Speedometer", new Updater() {
+            @Override
+            public void update(int frame) {
+                speedometer.setSpeed(frame % 140);
+            }
+        });
+        gauges.put("Speedometer", speedometer);
+        
+        final JArtificialHorizonGauge horizon = new JArtificialHorizonGauge();
+        updaters.put("Artificial Horizon", new Updater() {
+            @Override
+            public void update(int frame) {
+                horizon.setAttitude(frame % 60 - 30, frame % 40 - 20);
+            }
+        });
+        gauges.put("Artificial Horizon", horizon);
+        
+        for (Map.Entry<String, JCircularGauge> entry : gauges.entrySet())
+            run(entry.getKey(), entry.getValue(), updaters.get(entry.getKey()));
+        
+        runProfiles(gauges, updaters);
+        
+        runPartialRepaint(speedometer, northUp);
+        
+        runAccelerated(gauges, updaters);
+    }
+    
+}
@@ -0,0 +1,418 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import java.awt.AWTEvent;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+/**
+ * Finds how far the gauges can be driven before the event dispatch thread falls behind.  Producer threads call setSpeed(),
+ * setBearing(), setAttitude(), and changeSegmentColor() on a set of gauges at a fixed rate per gauge, for each rate in a sweep.
+ * For each rate it measures:
+ * <ul>
+ * <li>the depth of the event queue, sampled every millisecond</li>
+ * <li>the latency from a setter call to the paint that shows it, for the oldest update each paint covers</li>
+ * <li>the updates coalesced into another update's paint, which are never painted on their own</li>
+ * <li>the mean paint time, and the fraction of the time the event dispatch thread spent painting</li>
+ * <li>the CPU time of the event dispatch thread and the producers, per gauge</li>
+ * </ul>
+ * and writes the results as JSON to target/stress-report.json.
+ *
+ * Runs headless: an offscreen RepaintManager paints dirty gauges into images, batching all the repaints requested before a paint
+ * runs into it as Swing does on screen, and a counting EventQueue tracks the queue depth.  Configure with system properties:
+ *
+ *   java -Djava.awt.headless=true -Dproducers=4 -Dgauges=8 -Drates=10,100,1000 -Dseconds=3 \
+ *        -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.jcirculargauges.GaugeStressHarness
+ *
+ * where gauges is the number of each of the four gauge types, and rates are updates per second per gauge.
+ *
+ * @author kkieffer
+ */
+public class GaugeStressHarness {
+
+    private static final int PRODUCERS = Integer.getInteger("producers", 4);
+    private static final int GAUGES_PER_TYPE = Integer.getInteger("gauges", 8);
+    private static final String RATES = System.getProperty("rates", "10,100,1000");
+    private static final int SECONDS = Integer.getInteger("seconds", 3);
+    private static final File REPORT = new File(System.getProperty("report", "target/stress-report.json"));
+
+    private static final int SIZE = 200;
+    private static final int MAX_LATENCIES = 1 << 20;  //latency samples kept per run
+    private static final long SAMPLE_NANOS = 1000000;  //queue depth sampling period
+
+    //A gauge, the image it is painted into, and its counts
+    private static final class Tracker {
+        private final JComponent component;
+        private final BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+        private final AtomicLong oldestUnpainted = new AtomicLong();  //nanos of the oldest update not yet painted, 0 if none
+        private final AtomicLong updates = new AtomicLong();
+        private long paints;  //event dispatch thread only
+
+        private Tracker(JComponent component) {
+            this.component = component;
+            component.setSize(SIZE, SIZE);
+        }
+
+        private void updated() {
+            updates.incrementAndGet();
+            oldestUnpainted.compareAndSet(0, System.nanoTime());
+        }
+    }
+
+    /**
+     * Changes the value of a gauge, from a producer thread
+     */
+    private interface Updater {
+        void update(long step);
+    }
+
+    //Counts the events posted and not yet dispatched
+    private static final class CountingEventQueue extends EventQueue {
+        private final AtomicInteger depth = new AtomicInteger();
+
+        @Override
+        public void postEvent(AWTEvent event) {
+            depth.incrementAndGet();
+            super.postEvent(event);
+        }
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            depth.decrementAndGet();
+            super.dispatchEvent(event);
+        }
+    }
+
+    //Paints dirty components into their images, batching the repaints requested before the paint runs
+    private static final class OffscreenRepaintManager extends RepaintManager {
+        private final Map<JComponent, Tracker> trackers;
+        private final Set<JComponent> dirty = new LinkedHashSet<>();
+        private boolean scheduled;
+        private long[] latencies = new long[MAX_LATENCIES];
+        private int latencyCount;
+        private long paintNanos;
+
+        private final Runnable paintDirty = new Runnable() {
+            @Override
+            public void run() {
+                JComponent[] components;
+                synchronized (OffscreenRepaintManager.this) {
+                    components = dirty.toArray(new JComponent[dirty.size()]);
+                    dirty.clear();
+                    scheduled = false;
+                }
+                for (JComponent c : components)
+                    paint(trackers.get(c));
+            }
+        };
+
+        private OffscreenRepaintManager(Map<JComponent, Tracker> trackers) {
+            this.trackers = trackers;
+        }
+
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            if (!trackers.containsKey(c))
+                return;
+            synchronized (this) {
+                dirty.add(c);
+                if (scheduled)
+                    return;
+                scheduled = true;
+            }
+            SwingUtilities.invokeLater(paintDirty);
+        }
+
+        @Override
+        public void addInvalidComponent(JComponent invalidComponent) {
+        }
+
+        private void paint(Tracker t) {
+            long oldest = t.oldestUnpainted.getAndSet(0);  //updates from here on are covered by the next paint
+            long start = System.nanoTime();
+            Graphics2D g = t.image.createGraphics();
+            try {
+                t.component.paint(g);
+            } finally {
+                g.dispose();
+            }
+            long end = System.nanoTime();
+            paintNanos += end - start;
+            t.paints++;
+            if (oldest != 0 && latencyCount < latencies.length)
+                latencies[latencyCount++] = end - oldest;
+        }
+
+        private long[] takeLatencies() {
+            long[] l = Arrays.copyOf(latencies, latencyCount);
+            latencyCount = 0;
+            return l;
+        }
+
+        private long takePaintNanos() {
+            long n = paintNanos;
+            paintNanos = 0;
+            return n;
+        }
+    }
+
+
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException, IOException {
+
+        //Create the gauges, each with an updater that also counts the update
+        final List<Tracker> trackers = new ArrayList<>();
+        final List<Updater> updaters = new ArrayList<>();
+        final Map<JComponent, Tracker> byComponent = new IdentityHashMap<>();
+
+        for (int i=0; i<GAUGES_PER_TYPE; i++) {
+            final JSpeedometer speedometer = new JSpeedometer(10, "kt");
+            final Tracker speedTracker = add(speedometer, trackers, byComponent);
+            updaters.add(new Updater() {
+                @Override
+                public void update(long step) {
+                    speedTracker.updated();
+                    speedometer.setSpeed(65 + 60 * Math.sin(step * 0.01));
+                }
+            });
+
+            final JCompass compass = new JCompass(i % 2 == 0);
+            final Tracker compassTracker = add(compass, trackers, byComponent);
+            updaters.add(new Updater() {
+                @Override
+                public void update(long step) {
+                    compassTracker.updated();
+                    compass.setBearing(step * 0.7);
+                }
+            });
+
+            final JArtificialHorizonGauge horizon = new JArtificialHorizonGauge();
+            final Tracker horizonTracker = add(horizon, trackers, byComponent);
+            updaters.add(new Updater() {
+                @Override
+                public void update(long step) {
+                    horizonTracker.updated();
+                    horizon.setAttitude(30 * Math.sin(step * 0.013), 10 * Math.sin(step * 0.007));
+                }
+            });
+
+            final JSegmentGauge segments = new JSegmentGauge(true, 12, new BasicStroke(1), Color.BLACK, Color.WHITE, 2);
+            final Tracker segmentTracker = add(segments, trackers, byComponent);
+            updaters.add(new Updater() {
+                @Override
+                public void update(long step) {
+                    segmentTracker.updated();
+                    int lit = (int)(step % 13);
+                    for (int s=0; s<segments.getSegmentCount(); s++)  //not thread safe, but only a reference is written per segment
+                        segments.changeSegmentColor(s, s < lit ? Color.GREEN : Color.DARK_GRAY);
+                }
+            });
+        }
+
+        final OffscreenRepaintManager repaintManager = new OffscreenRepaintManager(byComponent);
+        final CountingEventQueue queue = new CountingEventQueue();
+        final long[] edtThread = new long[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                RepaintManager.setCurrentManager(repaintManager);
+                Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {  //on the pushed queue's dispatch thread
+            @Override
+            public void run() {
+                edtThread[0] = Thread.currentThread().getId();
+                for (Tracker t : trackers)  //render the cached faces before measuring
+                    repaintManager.paint(t);
+                repaintManager.takeLatencies();
+                repaintManager.takePaintNanos();
+            }
+        });
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"producers\": ").append(PRODUCERS).append(",\n  \"gauges\": ").append(trackers.size())
+            .append(",\n  \"seconds\": ").append(SECONDS).append(",\n  \"runs\": [");
+
+        String[] rates = RATES.split(",");
+        for (int r=0; r<rates.length; r++) {
+
+            final double rate = Double.parseDouble(rates[r].trim());
+            for (Tracker t : trackers) {
+                t.updates.set(0);
+                t.paints = 0;
+            }
+
+            //Start the producers, each updating every Nth gauge at the rate
+            final long periodNanos = (long)(1e9 / rate);
+            final long end = System.nanoTime() + SECONDS * 1000000000L;
+            Thread[] producers = new Thread[PRODUCERS];
+            for (int p=0; p<PRODUCERS; p++) {
+                final int first = p;
+                producers[p] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        long next = System.nanoTime();
+                        for (long step=0; next < end; step++) {
+                            for (int g=first; g<updaters.size(); g+=PRODUCERS)
+                                updaters.get(g).update(step);
+                            next += periodNanos;
+                            long wait = next - System.nanoTime();
+                            if (wait > 0)
+                                LockSupport.parkNanos(wait);
+                        }
+                    }
+                }, "Producer " + p);
+            }
+
+            long edtCpuStart = threads.getThreadCpuTime(edtThread[0]);
+            long start = System.nanoTime();
+            for (Thread p : producers)
+                p.start();
+
+            //Sample the queue depth until the producers finish
+            long depthSamples = 0, depthTotal = 0, depthMax = 0;
+            while (System.nanoTime() < end) {
+                int depth = Math.max(0, queue.depth.get());
+                depthSamples++;
+                depthTotal += depth;
+                depthMax = Math.max(depthMax, depth);
+                LockSupport.parkNanos(SAMPLE_NANOS);
+            }
+
+            long producerCpu = 0;
+            for (Thread p : producers) {
+                producerCpu += Math.max(0, threads.getThreadCpuTime(p.getId()));  //before it exits
+                p.join();
+            }
+
+            //Let the event dispatch thread catch up, then collect
+            long drainStart = System.nanoTime();
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            SwingUtilities.invokeAndWait(new Runnable() {  //the paints queued by the last notifications
+                @Override
+                public void run() {
+                }
+            });
+            double drainMillis = (System.nanoTime() - drainStart) / 1e6;
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            long edtCpu = threads.getThreadCpuTime(edtThread[0]) - edtCpuStart;
+
+            final long[][] latencies = new long[1][];
+            final long[] paintNanos = new long[1];
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    latencies[0] = repaintManager.takeLatencies();
+                    paintNanos[0] = repaintManager.takePaintNanos();
+                }
+            });
+            Arrays.sort(latencies[0]);
+
+            long updates = 0, paints = 0;
+            for (Tracker t : trackers) {
+                updates += t.updates.get();
+                paints += t.paints;
+            }
+
+            double paintBusy = paintNanos[0] / 1e9 / elapsed * 100;  //percent of the time the event dispatch thread was painting
+            double edtCpuPerGauge = edtCpu / 1e9 / elapsed / trackers.size() * 100;  //percent of a core
+            double producerCpuPerGauge = producerCpu / 1e9 / elapsed / trackers.size() * 100;
+
+            System.out.printf("%8.0f Hz: %9d updates %8d paints (%5.1f%% coalesced)  queue mean %6.1f max %6d  latency p50 %7.2f p99 %8.2f max %8.2f ms  painting %5.1f%%  EDT %5.2f%% CPU per gauge%n",
+                              rate, updates, paints, updates == 0 ? 0 : 100.0 * (updates - paints) / updates, depthTotal / (double)depthSamples, depthMax,
+                              percentile(latencies[0], 0.5), percentile(latencies[0], 0.99), percentile(latencies[0], 1.0), paintBusy, edtCpuPerGauge);
+
+            json.append(r == 0 ? "\n" : ",\n").append("    {")
+                .append("\"rate\": ").append(rate)
+                .append(", \"updates\": ").append(updates)
+                .append(", \"paints\": ").append(paints)
+                .append(", \"coalesced\": ").append(Math.max(0, updates - paints))
+                .append(", \"queueDepthMean\": ").append(round(depthTotal / (double)depthSamples))
+                .append(", \"queueDepthMax\": ").append(depthMax)
+                .append(", \"latencyMillis\": {\"p50\": ").append(round(percentile(latencies[0], 0.5)))
+                .append(", \"p90\": ").append(round(percentile(latencies[0], 0.9)))
+                .append(", \"p99\": ").append(round(percentile(latencies[0], 0.99)))
+                .append(", \"max\": ").append(round(percentile(latencies[0], 1.0))).append('}')
+                .append(", \"paintMillisMean\": ").append(round(paints == 0 ? 0 : paintNanos[0] / 1e6 / paints))
+                .append(", \"paintBusyPercent\": ").append(round(paintBusy))
+                .append(", \"drainMillis\": ").append(round(drainMillis))
+                .append(", \"edtCpuPercentPerGauge\": ").append(round(edtCpuPerGauge))
+                .append(", \"producerCpuPercentPerGauge\": ").append(round(producerCpuPerGauge))
+                .append('}');
+        }
+        json.append("\n  ]\n}\n");
+
+        REPORT.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(REPORT)) {
+            out.print(json);
+        }
+        System.out.println("Report written to " + REPORT);
+        System.exit(0);  //the pushed event queue keeps the event dispatch thread alive
+    }
+
+    private static Tracker add(JComponent component, List<Tracker> trackers, Map<JComponent, Tracker> byComponent) {
+        Tracker t = new Tracker(component);
+        trackers.add(t);
+        byComponent.put(component, t);
+        return t;
+    }
+
+    //The latency at the fraction of the sorted samples, in milliseconds
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int)Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)));
+        return sorted[index] / 1e6;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import com.github.kkieffer.accessorygauges.JSegmentGauge;
+import java.awt.AWTEvent;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Drives a dashboard with frames of 40 values (4 compasses with bearing and course, 8 speedometers, 4 artificial horizons with roll
+ * and pitch, and 2 segment gauges with 8 segments each) from a producer thread, first calling each setter in turn and then
+ * committing each frame with a GaugeTransaction.  For each it reports the events posted to the event dispatch thread per frame, and
+ * the model notifications that saw a partly applied frame: every value of frame k is k modulo 300, so a view notified while models
+ * hold different frames would paint a mix of them.
+ *
+ * Runs headless.  Configure with system properties:
+ *
+ *   java -Djava.awt.headless=true -Drate=200 -Dseconds=2 \
+ *        -cp ../core/target/classes:target/classes:target/test-classes com.github.kkieffer.jcirculargauges.GaugeTransactionHarness
+ *
+ * where rate is frames per second.
+ *
+ * @author kkieffer
+ */
+public class GaugeTransactionHarness {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("rate", "200"));
+    private static final int SECONDS = Integer.getInteger("seconds", 2);
+
+    private static final List<JCompass> compasses = new ArrayList<>();
+    private static final List<JSpeedometer> speedometers = new ArrayList<>();
+    private static final List<JArtificialHorizonGauge> horizons = new ArrayList<>();
+    private static final List<JSegmentGauge> segmentGauges = new ArrayList<>();
+
+    private static final AtomicLong notifications = new AtomicLong();
+    private static final AtomicLong torn = new AtomicLong();
+
+    //Counts the events posted
+    private static final class CountingEventQueue extends EventQueue {
+        private final AtomicLong posted = new AtomicLong();
+
+        @Override
+        public void postEvent(AWTEvent event) {
+            posted.incrementAndGet();
+            super.postEvent(event);
+        }
+    }
+
+    /**
+     * Applies one frame to the dashboard, from the producer thread
+     */
+    private interface FrameWriter {
+        void write(double value);
+    }
+
+    //Checks that all the models hold the same frame when any of them notifies, on the event dispatch thread
+    private static final ChangeListener checker = new ChangeListener() {
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            notifications.incrementAndGet();
+            double value = speedometers.get(0).getModel().getSpeed();
+            boolean same = true;
+            for (JSpeedometer s : speedometers)
+                same &= s.getModel().getSpeed() == value;
+            for (JCompass c : compasses)
+                same &= c.getModel().getBearing() == value && c.getModel().getCourse() == value;
+            for (JArtificialHorizonGauge h : horizons)
+                same &= h.getModel().getRoll() == value && h.getModel().getPitch() == value;
+            if (!same)
+                torn.incrementAndGet();
+        }
+    };
+
+
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+
+        for (int i=0; i<4; i++) {
+            compasses.add(new JCompass(true));
+            horizons.add(new JArtificialHorizonGauge());
+        }
+        for (int i=0; i<8; i++)
+            speedometers.add(new JSpeedometer(10, "kt"));
+        for (int i=0; i<2; i++)
+            segmentGauges.add(new JSegmentGauge(true, 8, new BasicStroke(1), Color.BLACK, Color.WHITE, 2));
+
+        for (JCompass c : compasses)
+            c.getModel().addChangeListener(checker);
+        for (JSpeedometer s : speedometers)
+            s.getModel().addChangeListener(checker);
+        for (JArtificialHorizonGauge h : horizons)
+            h.getModel().addChangeListener(checker);
+
+        final CountingEventQueue queue = new CountingEventQueue();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+            }
+        });
+
+        System.out.printf("%-14s %8s %10s %12s %14s %14s %16s%n", "Mode", "Frames", "Events", "Events/frame", "Notifications", "Torn", "Producer(us/fr)");
+
+        run("Setters", queue, new FrameWriter() {
+            @Override
+            public void write(double value) {
+                for (JCompass c : compasses) {
+                    c.setBearing(value);
+                    c.setCourse(value);
+                }
+                for (JSpeedometer s : speedometers)
+                    s.setSpeed(value);
+                for (JArtificialHorizonGauge h : horizons)
+                    h.setAttitude(value, value);
+                for (JSegmentGauge g : segmentGauges)  //not thread safe, but only a reference is written per segment
+                    for (int s=0; s<g.getSegmentCount(); s++)
+                        g.changeSegmentColor(s, s < value % 9 ? Color.GREEN : Color.DARK_GRAY);
+            }
+        });
+
+        final GaugeTransaction transaction = new GaugeTransaction();
+        run("Transactions", queue, new FrameWriter() {
+            @Override
+            public void write(double value) {
+                transaction.begin();
+                for (JCompass c : compasses) {
+                    transaction.setBearing(c, value);
+                    transaction.setCourse(c, value);
+                }
+                for (JSpeedometer s : speedometers)
+                    transaction.setSpeed(s, value);
+                for (JArtificialHorizonGauge h : horizons)
+                    transaction.setAttitude(h, value, value);
+                for (JSegmentGauge g : segmentGauges)
+                    for (int s=0; s<g.getSegmentCount(); s++)
+                        transaction.changeSegmentColor(g, s, s < value % 9 ? Color.GREEN : Color.DARK_GRAY);
+                transaction.commit();
+            }
+        });
+        System.out.printf("Transactions: %d frames committed, applied in %d events%n", transaction.getCommittedCount(), transaction.getAppliedCount());
+
+        System.exit(0);  //the pushed event queue keeps the event dispatch thread alive
+    }
+
+    private static void run(String mode, CountingEventQueue queue, FrameWriter writer) throws InterruptedException, InvocationTargetException {
+
+        drain();
+        long postedStart = queue.posted.get();
+        notifications.set(0);
+        torn.set(0);
+
+        long periodNanos = (long)(1e9 / RATE);
+        long end = System.nanoTime() + SECONDS * 1000000000L;
+        long next = System.nanoTime();
+        long writeNanos = 0;
+        int frames = 0;
+        while (next < end) {
+            long start = System.nanoTime();
+            writer.write(frames % 300);
+            writeNanos += System.nanoTime() - start;
+            frames++;
+            next += periodNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+        }
+
+        drain();
+        long events = queue.posted.get() - postedStart - 2;  //less the two drain events
+        System.out.printf("%-14s %8d %10d %12.2f %14d %14d %16.1f%n", mode, frames, events, events / (double)frames, notifications.get(), torn.get(), writeNanos / 1000.0 / frames);
+    }
+
+    //Wait for the events queued so far, and the notifications they queue
+    private static void drain() throws InterruptedException, InvocationTargetException {
+        for (int i=0; i<2; i++)
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+    }
+
+}
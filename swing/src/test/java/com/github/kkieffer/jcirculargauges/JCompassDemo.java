@@ -19,13 +19,16 @@ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
 package com.github.kkieffer.jcirculargauges;
 
 
+import com.github.kkieffer.jcirculargauges.GaugeRenderer.LevelOfDetail;
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Container;
+import java.awt.Dimension;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
 /**
- * Demo of the Gauge (alternates between North Up and Bearing Up
+ * Demo of the Gauge (alternates between North Up and Bearing Up), with a north up thumbnail sharing its model
  * 
  * @author kkieffer
  */
@@ -41,7 +44,14 @@ public class JCompassDemo {
         JCompass g = new JCompass(false);  //slightly more pitch sensitivity
         g.setColors(Color.WHITE, Color.YELLOW, null, Color.BLACK);
         g.setCourse(45);
+        g.setBearingTrail(120, 10000, Color.CYAN);  //last 120 bearings, for up to 10 seconds
 	thePane.add(g);
+        
+        JCompass thumbnail = new JCompass(true);
+        thumbnail.setModel(g.getModel());  //follows the main compass
+        thumbnail.setDetailThreshold(LevelOfDetail.MINIMAL, 40);  //thumbnail detail below a radius of 40
+        thumbnail.setPreferredSize(new Dimension(60, 60));
+        thePane.add(thumbnail, BorderLayout.WEST);
 
 	myFrame.pack();
         myFrame.setVisible(true);
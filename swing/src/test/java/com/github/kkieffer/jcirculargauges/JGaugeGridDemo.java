@@ -0,0 +1,104 @@
+/*
+Copyright (C) 2019 K. Kieffer
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+*/
+
+package com.github.kkieffer.jcirculargauges;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Demo of a grid of 2000 vehicles, each with a compass and speedometer, all updated 10 times a second.  Only the visible cells
+ * listen to their models, which is shown in the title.
+ *
+ * @author kkieffer
+ */
+public class JGaugeGridDemo {
+
+    private static final int VEHICLES = 2000;
+
+    private static class Vehicle {
+        private final CompassModel heading = new CompassModel();
+        private final SpeedModel speed = new SpeedModel();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        final List<Vehicle> fleet = new ArrayList<>();
+        for (int i=0; i<VEHICLES; i++)
+            fleet.add(new Vehicle());
+
+        //One compass and speedometer paint every cell
+        final JCompass compass = new JCompass(true);
+        final JSpeedometer speedometer = new JSpeedometer(10, "kt");
+        compass.setCellRenderer(true);
+        speedometer.setCellRenderer(true);
+        final JPanel cell = new JPanel(new GridLayout(1, 2));
+        cell.add(compass);
+        cell.add(speedometer);
+
+        final JGaugeGrid<Vehicle> grid = new JGaugeGrid<>(new GaugeCellRenderer<Vehicle>() {
+            @Override
+            public Component getGaugeCellRendererComponent(JGaugeGrid<Vehicle> grid, Vehicle item, int index) {
+                compass.setModel(item.heading);
+                speedometer.setModel(item.speed);
+                return cell;
+            }
+
+            @Override
+            public GaugeModel[] getModels(Vehicle item) {
+                return new GaugeModel[]{item.heading, item.speed};
+            }
+        }, 160, 80);
+        grid.setItems(fleet);
+
+        final JFrame myFrame = new JFrame("Gauge Grid Demo");
+        JScrollPane scroll = new JScrollPane(grid);
+        scroll.setPreferredSize(new Dimension(820, 500));
+        myFrame.getContentPane().add(scroll);
+        myFrame.pack();
+        myFrame.setVisible(true);
+
+        Random r = new Random();
+        long frame = 0;
+        while (true) {
+            for (Vehicle v : fleet) {
+                v.heading.setBearing(v.heading.getBearing() + r.nextGaussian() * 3);
+                v.speed.setSpeed(Math.max(0, Math.min(130, v.speed.getSpeed() + r.nextGaussian() * 2)));
+            }
+
+            if (++frame % 10 == 0)
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        myFrame.setTitle("Gauge Grid Demo - " + grid.getAttachedCount() + " of " + VEHICLES + " vehicles visible");
+                    }
+                });
+            Thread.sleep(100);
+        }
+
+    }
+
+}